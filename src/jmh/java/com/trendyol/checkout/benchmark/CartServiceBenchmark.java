@@ -0,0 +1,67 @@
+package com.trendyol.checkout.benchmark;
+
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.dto.response.BasicResponse;
+import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.service.CartServiceImpl;
+import com.trendyol.checkout.store.ShardedCartStore;
+import com.trendyol.checkout.validation.ItemValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every add is followed by the removal of the same item, so the cart keeps its shape across
+ * invocations. Adds the cart rejects return the exception and skip the removal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartServiceBenchmark {
+    private static final int CART_ID = 1;
+
+    @Param
+    private CartShape shape;
+
+    private CartServiceImpl cartService;
+    private ItemRequest itemRequest;
+    private VasItemRequest vasItemRequest;
+
+    @Setup
+    public void setUp() {
+        cartService = new CartServiceImpl(new ShardedCartStore(1), new ItemValidator(), new PromotionCalculator());
+        shape.seed(cartService, CART_ID);
+        itemRequest = shape.newItemRequest();
+        vasItemRequest = shape.newVasItemRequest();
+    }
+
+    @Benchmark
+    public Object addThenRemoveItem() {
+        try {
+            cartService.addNonVasItemToCart(CART_ID, itemRequest);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        return cartService.removeItem(CART_ID, itemRequest.getItemId());
+    }
+
+    @Benchmark
+    public Object addThenRemoveVasItem() {
+        try {
+            cartService.addVasItemToCart(CART_ID, vasItemRequest);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        return cartService.removeItem(CART_ID, vasItemRequest.getVasItemId());
+    }
+
+    @Benchmark
+    public ResponseEntity<BasicResponse> displayCart() {
+        return cartService.displayCart(CART_ID);
+    }
+}
@@ -0,0 +1,104 @@
+package com.trendyol.checkout.benchmark;
+
+import com.trendyol.checkout.CartConstants;
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.dto.response.BasicResponse;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.service.CartServiceImpl;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.store.ShardedCartStore;
+import com.trendyol.checkout.validation.ItemValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cart contents the benchmarks are run against.
+ */
+public enum CartShape {
+    EMPTY,
+    /**
+     * 10 unique default items, 30 items in total, every add is rejected
+     */
+    FULL,
+    /**
+     * 6 default items with 3 VasItems each
+     */
+    VAS_HEAVY,
+    DIGITAL_ONLY;
+
+    static final int NEW_ITEM_ID = 900;
+    static final int NEW_VAS_ITEM_ID = 901;
+    private static final int VAS_PARENT_CATEGORY_ID = 1001;
+
+    /**
+     * Fills the cart through the service, as a client restoring it would.
+     */
+    public void seed(CartServiceImpl service, int cartId) {
+        service.resetCart(cartId);
+        if (this == EMPTY) {
+            return;
+        }
+
+        BasicResponse response = service.addItemsToCart(cartId, batch()).getBody();
+        if (response == null || !response.isResult()) {
+            throw new IllegalStateException("Could not seed " + this + " cart: " + response);
+        }
+    }
+
+    /**
+     * @return the cart as committed to the store
+     */
+    public CompactCart build() {
+        CartStore cartStore = new ShardedCartStore(1);
+        seed(new CartServiceImpl(cartStore, new ItemValidator(), new PromotionCalculator()), 1);
+        return cartStore.getOrCreate(1);
+    }
+
+    /**
+     * @return request for an item that is not in the cart yet, of the type the cart holds
+     */
+    public ItemRequest newItemRequest() {
+        int categoryId = this == DIGITAL_ONLY ? CartConstants.DIGITAL_ITEM_CATEGORY_ID : VAS_PARENT_CATEGORY_ID;
+        return new ItemRequest(NEW_ITEM_ID, categoryId, 100, 10.0, 1);
+    }
+
+    /**
+     * @return request for a VasItem of the first item of the cart, rejected when the cart has no default item
+     */
+    public VasItemRequest newVasItemRequest() {
+        return new VasItemRequest(1, CartConstants.VAS_ITEM_CATEGORY_ID, CartConstants.VAS_ITEM_SELLER_ID, 5.0, 1, NEW_VAS_ITEM_ID);
+    }
+
+    private BatchItemRequest batch() {
+        List<ItemRequest> items = new ArrayList<>();
+        List<VasItemRequest> vasItems = new ArrayList<>();
+
+        switch (this) {
+            case FULL:
+                for (int i = 1; i <= CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART; i++) {
+                    items.add(new ItemRequest(i, VAS_PARENT_CATEGORY_ID, 100 + i, 100.0 * i, 3));
+                }
+                break;
+            case VAS_HEAVY:
+                for (int i = 1; i <= 6; i++) {
+                    items.add(new ItemRequest(i, VAS_PARENT_CATEGORY_ID, 100, 1000.0, 1));
+                    for (int v = 0; v < 3; v++) {
+                        vasItems.add(new VasItemRequest(i, CartConstants.VAS_ITEM_CATEGORY_ID, CartConstants.VAS_ITEM_SELLER_ID, 50.0, 1, 100 + i * 10 + v));
+                    }
+                }
+                break;
+            case DIGITAL_ONLY:
+                for (int i = 1; i <= 5; i++) {
+                    items.add(new ItemRequest(i, CartConstants.DIGITAL_ITEM_CATEGORY_ID, 200, 50.0, 1));
+                }
+                break;
+            default:
+                break;
+        }
+        return new BatchItemRequest(items, vasItems);
+    }
+}
@@ -0,0 +1,57 @@
+package com.trendyol.checkout.benchmark;
+
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.validation.ItemValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests the cart cannot take are measured as well, the thrown exception is the result then.
+ * A valid request should allocate no more than the resolved item, a {@code DefaultItem} with its
+ * empty VasItem list takes 72 bytes with compressed references, see {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ItemValidatorBenchmark {
+    @Param
+    private CartShape shape;
+
+    private ItemValidator validator;
+    private Cart cart;
+    private ItemRequest itemRequest;
+    private VasItemRequest vasItemRequest;
+
+    @Setup
+    public void setUp() {
+        validator = new ItemValidator();
+        // Requests are validated against the working copy of a mutation
+        cart = shape.build().toCart();
+        itemRequest = shape.newItemRequest();
+        vasItemRequest = shape.newVasItemRequest();
+    }
+
+    @Benchmark
+    public Object validateNonVasItemRequest() {
+        try {
+            return validator.validateNonVasItemRequest(cart, itemRequest);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object validateVasItemRequest() {
+        try {
+            return validator.validateVasItemRequest(cart, vasItemRequest);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
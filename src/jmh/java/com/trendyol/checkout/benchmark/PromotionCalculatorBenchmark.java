@@ -0,0 +1,60 @@
+package com.trendyol.checkout.benchmark;
+
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.promotion.PromotionResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PromotionCalculatorBenchmark {
+    @Param
+    private CartShape shape;
+
+    private PromotionCalculator calculator;
+    private Cart cart;
+    private CompactCart compactCart;
+    private List<Item> items;
+    private double totalPrice;
+    private PromotionResult result;
+
+    @Setup
+    public void setUp() {
+        calculator = new PromotionCalculator();
+        compactCart = shape.build();
+        cart = compactCart.toCart();
+        items = new ArrayList<>(cart.getItems());
+        totalPrice = cart.getTotalPrice();
+        result = new PromotionResult();
+    }
+
+    @Benchmark
+    public PromotionResult calculateFromCartAggregates() {
+        calculator.calculateMaxPromotion(cart, result);
+        return result;
+    }
+
+    /**
+     * Committed carts are compact, displaying one evaluates the promotions by scanning its lines.
+     */
+    @Benchmark
+    public PromotionResult calculateFromCompactCart() {
+        calculator.calculateMaxPromotion(compactCart, result);
+        return result;
+    }
+
+    @Benchmark
+    public PromotionResult calculateFromItemList() {
+        return calculator.calculateMaxPromotion(items, totalPrice);
+    }
+}
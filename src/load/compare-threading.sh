@@ -0,0 +1,24 @@
+#!/bin/sh
+# Runs the HTTP load test with platform and with virtual server threads at growing client
+# concurrency and the same heap, then prints the ALL line of every run. Concurrency is sustainable
+# while throughput keeps growing and errors and p99 stay flat. Virtual threads need Java 21+.
+#
+# usage: src/load/compare-threading.sh [heap] [concurrency levels...]
+set -e
+
+HEAP=${1:-512m}
+[ $# -gt 0 ] && shift
+LEVELS=${*:-"100 500 1000 2000 5000"}
+OUT=target/load-test/threading
+
+mkdir -p "$OUT"
+for MODE in platform virtual; do
+  for THREADS in $LEVELS; do
+    REPORT="$OUT/$MODE-$THREADS.txt"
+    ./mvnw -B -q -Pload-test -DskipTests verify \
+      -Dload.jvm.args="-Xmx$HEAP" \
+      -Dload.args="--checkout.threading.mode=$MODE --load.target=http --load.thread-mode=virtual --load.threads=$THREADS --load.think-time-millis=50 --load.output=$REPORT" > /dev/null
+    printf '%-8s %6s clients  ' "$MODE" "$THREADS"
+    grep '^ALL' "$REPORT"
+  done
+done
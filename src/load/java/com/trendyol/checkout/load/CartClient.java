@@ -0,0 +1,14 @@
+package com.trendyol.checkout.load;
+
+/**
+ * The operations a load worker sends, each one returns whether the cart accepted the request.
+ */
+interface CartClient {
+    boolean add(int cartId, int itemId, int categoryId, int sellerId, double price);
+
+    boolean addVasItem(int cartId, int itemId, int vasItemId, int categoryId, int sellerId, double price);
+
+    boolean remove(int cartId, int itemId);
+
+    boolean display(int cartId);
+}
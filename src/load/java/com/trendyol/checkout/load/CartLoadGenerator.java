@@ -0,0 +1,178 @@
+package com.trendyol.checkout.load;
+
+import com.trendyol.checkout.CheckoutApplication;
+import com.trendyol.checkout.concurrent.VirtualThreads;
+import com.trendyol.checkout.controller.CartController;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application and drives {@link CartController} from M threads across N carts, then
+ * writes throughput and latency percentiles per operation to a file. The controller is called in
+ * process, or over HTTP through the embedded web server when {@code load.target=http}.
+ * <p>
+ * Workers are closed loop: a request is sent when the previous one returns, so the latencies do
+ * not include time a request would have spent waiting for a busy server.
+ * <p>
+ * The write ahead log, snapshots and spilled carts go to a new temporary directory deleted after
+ * the run, so every run starts without carts instead of replaying the previous one.
+ */
+public class CartLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        LoadTarget target = LoadSettings.target(environmentOf(args));
+
+        SpringApplication application = new SpringApplication(CheckoutApplication.class);
+        application.setWebApplicationType(target == LoadTarget.HTTP ? WebApplicationType.SERVLET : WebApplicationType.NONE);
+        // Logging every request, and every expected rejection, would measure the console rather than the cart
+        application.setDefaultProperties(Map.of(
+                "logging.level.com.trendyol.checkout.aspect", "OFF",
+                "server.port", "0"));
+        Path dataDirectory = Files.createTempDirectory("cart-load-");
+        application.addInitializers(context -> useDataDirectory(context.getEnvironment(), dataDirectory));
+
+        try (ConfigurableApplicationContext context = application.run(args)) {
+            LoadSettings settings = LoadSettings.from(context.getEnvironment());
+            String report = run(client(context, settings), settings);
+
+            Files.createDirectories(settings.getOutput().toAbsolutePath().getParent());
+            Files.writeString(settings.getOutput(), report);
+            System.out.println(report);
+            System.out.println("Report written to " + settings.getOutput().toAbsolutePath());
+        } finally {
+            FileSystemUtils.deleteRecursively(dataDirectory);
+        }
+    }
+
+    /**
+     * Points the durable cart state at the directory. application.properties takes precedence over
+     * default properties, so the paths are added above it and only command line arguments override them.
+     */
+    private static void useDataDirectory(ConfigurableEnvironment environment, Path dataDirectory) {
+        MapPropertySource source = new MapPropertySource("loadDataDirectory", Map.of(
+                "checkout.wal.directory", dataDirectory.resolve("wal").toString(),
+                "checkout.snapshot.directory", dataDirectory.resolve("snapshots").toString(),
+                "checkout.cart-expiry.spill-directory", dataDirectory.resolve("spill").toString()));
+        MutablePropertySources sources = environment.getPropertySources();
+        if (sources.contains(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+            sources.addAfter(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME, source);
+        } else {
+            sources.addFirst(source);
+        }
+    }
+
+    static String run(CartClient client, LoadSettings settings) {
+        long measureFromNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+        long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+
+        List<LoadWorker> workers = new ArrayList<>();
+        for (int i = 0; i < settings.getThreads(); i++) {
+            workers.add(new LoadWorker(client, settings, settings.getSeed() + i, measureFromNanos, endNanos));
+        }
+
+        ExecutorService executor = newExecutor(settings);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (LoadWorker worker : workers) {
+                futures.add(executor.submit(worker));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Load worker failed", e);
+        } finally {
+            executor.shutdown();
+        }
+
+        return report(settings, workers);
+    }
+
+    private static ExecutorService newExecutor(LoadSettings settings) {
+        return settings.getThreadMode() == ThreadMode.VIRTUAL
+                ? VirtualThreads.newThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(settings.getThreads());
+    }
+
+    private static CartClient client(ConfigurableApplicationContext context, LoadSettings settings) {
+        if (settings.getTarget() == LoadTarget.CONTROLLER) {
+            return new ControllerCartClient(context.getBean(CartController.class));
+        }
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        return new HttpCartClient(HttpClient.newHttpClient(), port);
+    }
+
+    private static StandardEnvironment environmentOf(String[] args) {
+        StandardEnvironment environment = new StandardEnvironment();
+        // Same lenient conversion as the application environment, so that load.target=http works
+        environment.setConversionService(new ApplicationConversionService());
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        return environment;
+    }
+
+    private static String report(LoadSettings settings, List<LoadWorker> workers) {
+        StringBuilder report = new StringBuilder();
+        report.append("Cart load test, ").append(settings).append(System.lineSeparator());
+        report.append("Java ").append(Runtime.version()).append(", ")
+                .append(Runtime.getRuntime().availableProcessors()).append(" processors, ")
+                .append(Runtime.getRuntime().maxMemory() / (1024 * 1024)).append(" MB max heap")
+                .append(System.lineSeparator());
+        report.append(String.format("%-10s %12s %10s %12s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "ops/s", "p50 us", "p99 us", "p999 us", "max us"));
+
+        Histogram all = LoadWorker.newHistogram();
+        long allErrors = 0;
+        for (LoadOperation operation : LoadOperation.values()) {
+            Histogram histogram = LoadWorker.newHistogram();
+            long errors = 0;
+            for (LoadWorker worker : workers) {
+                histogram.add(worker.histogram(operation));
+                errors += worker.errors(operation);
+            }
+            all.add(histogram);
+            allErrors += errors;
+            appendLine(report, operation.toString(), histogram, errors, settings.getDurationSeconds());
+        }
+        appendLine(report, "ALL", all, allErrors, settings.getDurationSeconds());
+
+        return report.toString();
+    }
+
+    private static void appendLine(StringBuilder report, String name, Histogram histogram, long errors, int durationSeconds) {
+        report.append(String.format("%-10s %12d %10d %12.1f %10.1f %10.1f %10.1f %10.1f%n",
+                name,
+                histogram.getTotalCount(),
+                errors,
+                (double) histogram.getTotalCount() / durationSeconds,
+                micros(histogram.getValueAtPercentile(50)),
+                micros(histogram.getValueAtPercentile(99)),
+                micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getMaxValue())));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.trendyol.checkout.load;
+
+import com.trendyol.checkout.controller.CartController;
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Calls the controller bean directly, measuring the application without HTTP.
+ */
+class ControllerCartClient implements CartClient {
+    private final CartController controller;
+
+    ControllerCartClient(CartController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public boolean add(int cartId, int itemId, int categoryId, int sellerId, double price) {
+        return call(() -> controller.add(cartId, new ItemRequest(itemId, categoryId, sellerId, price, 1)));
+    }
+
+    @Override
+    public boolean addVasItem(int cartId, int itemId, int vasItemId, int categoryId, int sellerId, double price) {
+        return call(() -> controller.add(cartId, new VasItemRequest(itemId, categoryId, sellerId, price, 1, vasItemId)));
+    }
+
+    @Override
+    public boolean remove(int cartId, int itemId) {
+        return call(() -> controller.delete(cartId, itemId));
+    }
+
+    @Override
+    public boolean display(int cartId) {
+        return call(() -> controller.displayCart(cartId, null));
+    }
+
+    private static boolean call(Supplier<ResponseEntity<?>> request) {
+        // Outside of the web layer rejected requests surface as the exceptions the handler maps to 400
+        try {
+            return request.get().getStatusCode().is2xxSuccessful();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
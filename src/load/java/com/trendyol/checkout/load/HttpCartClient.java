@@ -0,0 +1,69 @@
+package com.trendyol.checkout.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Sends the requests to the embedded web server, so the server's threading mode takes part.
+ */
+class HttpCartClient implements CartClient {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    HttpCartClient(HttpClient client, int port) {
+        this.client = client;
+        this.baseUrl = "http://localhost:" + port + "/api/v1/cart/";
+    }
+
+    @Override
+    public boolean add(int cartId, int itemId, int categoryId, int sellerId, double price) {
+        String body = "{\"itemId\":" + itemId + ",\"categoryId\":" + categoryId + ",\"sellerId\":" + sellerId + ",\"price\":" + price + ",\"quantity\":1}";
+        return send(post(cartId + "/items", body));
+    }
+
+    @Override
+    public boolean addVasItem(int cartId, int itemId, int vasItemId, int categoryId, int sellerId, double price) {
+        String body = "{\"itemId\":" + itemId + ",\"vasItemId\":" + vasItemId + ",\"categoryId\":" + categoryId + ",\"sellerId\":" + sellerId + ",\"price\":" + price + ",\"quantity\":1}";
+        return send(post(cartId + "/vas_items", body));
+    }
+
+    @Override
+    public boolean remove(int cartId, int itemId) {
+        return send(request(cartId + "/items/" + itemId).DELETE().build());
+    }
+
+    @Override
+    public boolean display(int cartId) {
+        return send(request(String.valueOf(cartId)).GET().build());
+    }
+
+    private HttpRequest post(String path, String body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+    }
+
+    private boolean send(HttpRequest request) {
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a response", e);
+        }
+    }
+}
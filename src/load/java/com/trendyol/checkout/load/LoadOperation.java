@@ -0,0 +1,8 @@
+package com.trendyol.checkout.load;
+
+public enum LoadOperation {
+    ADD,
+    VAS_ADD,
+    REMOVE,
+    DISPLAY
+}
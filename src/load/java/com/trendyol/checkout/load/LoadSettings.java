@@ -0,0 +1,151 @@
+package com.trendyol.checkout.load;
+
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Load test parameters, read from {@code load.*} properties. They can be given as command line
+ * arguments like {@code --load.threads=64}.
+ */
+public class LoadSettings {
+    private final LoadTarget target;
+    private final String serverThreadingMode;
+    private final int carts;
+    private final int threads;
+    private final ThreadMode threadMode;
+    private final int thinkTimeMillis;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int[] weights;
+    private final int totalWeight;
+    private final long seed;
+    private final Path output;
+
+    public LoadSettings(LoadTarget target, String serverThreadingMode, int carts, int threads, ThreadMode threadMode, int thinkTimeMillis, int warmupSeconds, int durationSeconds, int[] weights, long seed, Path output) {
+        if (carts < 1 || threads < 1 || warmupSeconds < 0 || durationSeconds < 1 || thinkTimeMillis < 0) {
+            throw new IllegalArgumentException("Carts, threads and duration must be positive, warmup and think time cannot be negative");
+        }
+        if (weights.length != LoadOperation.values().length || Arrays.stream(weights).anyMatch(w -> w < 0) || Arrays.stream(weights).sum() == 0) {
+            throw new IllegalArgumentException("Operation mix must give a non negative weight to every operation and a positive total");
+        }
+
+        this.target = target;
+        this.serverThreadingMode = serverThreadingMode;
+        this.carts = carts;
+        this.threads = threads;
+        this.threadMode = threadMode;
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+        this.weights = weights.clone();
+        this.totalWeight = Arrays.stream(weights).sum();
+        this.seed = seed;
+        this.output = output;
+    }
+
+    public static LoadSettings from(Environment environment) {
+        int[] weights = new int[LoadOperation.values().length];
+        weights[LoadOperation.ADD.ordinal()] = environment.getProperty("load.mix.add", Integer.class, 40);
+        weights[LoadOperation.VAS_ADD.ordinal()] = environment.getProperty("load.mix.vas-add", Integer.class, 10);
+        weights[LoadOperation.REMOVE.ordinal()] = environment.getProperty("load.mix.remove", Integer.class, 25);
+        weights[LoadOperation.DISPLAY.ordinal()] = environment.getProperty("load.mix.display", Integer.class, 25);
+
+        String defaultOutput = "target/load-test/cart-load-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt";
+
+        return new LoadSettings(
+                target(environment),
+                environment.getProperty("checkout.threading.mode", "platform"),
+                environment.getProperty("load.carts", Integer.class, 1000),
+                environment.getProperty("load.threads", Integer.class, Runtime.getRuntime().availableProcessors()),
+                environment.getProperty("load.thread-mode", ThreadMode.class, ThreadMode.PLATFORM),
+                environment.getProperty("load.think-time-millis", Integer.class, 0),
+                environment.getProperty("load.warmup-seconds", Integer.class, 5),
+                environment.getProperty("load.duration-seconds", Integer.class, 30),
+                weights,
+                environment.getProperty("load.seed", Long.class, 42L),
+                Path.of(environment.getProperty("load.output", defaultOutput))
+        );
+    }
+
+    /**
+     * The target decides whether a web server is started, so it is read before the context is up.
+     */
+    public static LoadTarget target(Environment environment) {
+        return environment.getProperty("load.target", LoadTarget.class, LoadTarget.CONTROLLER);
+    }
+
+    /**
+     * @param draw uniformly drawn number in [0, total weight)
+     */
+    public LoadOperation pick(int draw) {
+        for (LoadOperation operation : LoadOperation.values()) {
+            draw -= weights[operation.ordinal()];
+            if (draw < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Draw is out of range: " + draw);
+    }
+
+    public LoadTarget getTarget() {
+        return target;
+    }
+
+    public int getCarts() {
+        return carts;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public int getThinkTimeMillis() {
+        return thinkTimeMillis;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder mix = new StringBuilder();
+        for (LoadOperation operation : LoadOperation.values()) {
+            mix.append(mix.length() == 0 ? "" : ", ").append(operation).append('=').append(weights[operation.ordinal()]);
+        }
+        return "target=" + target +
+                (target == LoadTarget.HTTP ? ", serverThreadingMode=" + serverThreadingMode : "") +
+                ", carts=" + carts +
+                ", threads=" + threads +
+                ", threadMode=" + threadMode +
+                ", thinkTimeMillis=" + thinkTimeMillis +
+                ", warmupSeconds=" + warmupSeconds +
+                ", durationSeconds=" + durationSeconds +
+                ", mix={" + mix + '}' +
+                ", seed=" + seed;
+    }
+}
@@ -0,0 +1,12 @@
+package com.trendyol.checkout.load;
+
+public enum LoadTarget {
+    /**
+     * Calls the controller bean in process, no web server is started
+     */
+    CONTROLLER,
+    /**
+     * Sends HTTP requests to the embedded web server on a random port
+     */
+    HTTP
+}
@@ -0,0 +1,105 @@
+package com.trendyol.checkout.load;
+
+import com.trendyol.checkout.CartConstants;
+import org.HdrHistogram.Histogram;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends requests until the end of the run, each one to a random cart, pausing for the think time
+ * in between. Latencies are recorded in histograms of the worker only, so workers never contend on
+ * them. Requests the cart rejects count as errors, their latency is recorded too.
+ */
+class LoadWorker implements Runnable {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    // Item ids a cart is filled with, a few more than a cart can hold so some adds are rejected
+    private static final int ITEM_SLOTS = CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART + 2;
+    private static final int VAS_PARENT_CATEGORY_ID = 1001;
+
+    private final CartClient client;
+    private final LoadSettings settings;
+    private final SplittableRandom random;
+    private final long measureFromNanos;
+    private final long endNanos;
+    private final Histogram[] histograms = new Histogram[LoadOperation.values().length];
+    private final long[] errors = new long[LoadOperation.values().length];
+
+    LoadWorker(CartClient client, LoadSettings settings, long seed, long measureFromNanos, long endNanos) {
+        this.client = client;
+        this.settings = settings;
+        this.random = new SplittableRandom(seed);
+        this.measureFromNanos = measureFromNanos;
+        this.endNanos = endNanos;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = newHistogram();
+        }
+    }
+
+    @Override
+    public void run() {
+        long start;
+        while ((start = System.nanoTime()) < endNanos) {
+            LoadOperation operation = settings.pick(random.nextInt(settings.getTotalWeight()));
+            int cartId = random.nextInt(settings.getCarts()) + 1;
+            int slot = random.nextInt(ITEM_SLOTS) + 1;
+
+            boolean succeeded;
+            try {
+                succeeded = execute(operation, cartId, slot);
+            } catch (RuntimeException e) {
+                succeeded = false;
+            }
+            long latency = System.nanoTime() - start;
+
+            if (start >= measureFromNanos) {
+                histograms[operation.ordinal()].recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+                if (!succeeded) {
+                    errors[operation.ordinal()]++;
+                }
+            }
+
+            if (settings.getThinkTimeMillis() > 0 && !think()) {
+                return;
+            }
+        }
+    }
+
+    private boolean execute(LoadOperation operation, int cartId, int slot) {
+        switch (operation) {
+            case ADD:
+                return client.add(cartId, slot, VAS_PARENT_CATEGORY_ID, 100 + slot % 3, 100.0 * slot);
+            case VAS_ADD:
+                return client.addVasItem(cartId, slot, 1000 + slot, CartConstants.VAS_ITEM_CATEGORY_ID, CartConstants.VAS_ITEM_SELLER_ID, 10.0);
+            case REMOVE:
+                return client.remove(cartId, slot);
+            case DISPLAY:
+                return client.display(cartId);
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private boolean think() {
+        try {
+            Thread.sleep(settings.getThinkTimeMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    Histogram histogram(LoadOperation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    long errors(LoadOperation operation) {
+        return errors[operation.ordinal()];
+    }
+
+    static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+}
@@ -0,0 +1,9 @@
+package com.trendyol.checkout.load;
+
+public enum ThreadMode {
+    PLATFORM,
+    /**
+     * Requires a Java 21 or newer runtime
+     */
+    VIRTUAL
+}
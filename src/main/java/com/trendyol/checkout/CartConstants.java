@@ -1,11 +1,15 @@
 package com.trendyol.checkout;
 
+import com.trendyol.checkout.money.Money;
+
 import java.util.List;
 
 public final class CartConstants {
     public static final int MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART = 10;
     public static final int MAX_TOTAL_ITEM_COUNT_IN_CART = 30;
     public static final int MAX_CART_TOTAL_PRICE = 500_000;
+    public static final long MAX_CART_TOTAL_PRICE_IN_CENTS = MAX_CART_TOTAL_PRICE * Money.CENTS_PER_UNIT;
+    public static final int MAX_BATCH_LINE_COUNT = 2 * MAX_TOTAL_ITEM_COUNT_IN_CART;
 
     // Default items
     public static final int DEFAULT_ITEM_MAX_COUNT_IN_CART = 10;
@@ -0,0 +1,114 @@
+package com.trendyol.checkout.aspect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands {@link LogEvent}s from request threads to a single writer thread over a bounded queue.
+ * Publishing never blocks: when the queue is full the event is dropped and counted, and the writer
+ * reports how many events were dropped once it catches up. Messages are formatted on the writer
+ * thread, so a request only pays for the queue offer.
+ */
+public class AsyncLogPipeline implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    private final BlockingQueue<LogEvent> queue;
+    private final LongAdder droppedEventCount = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running;
+    private long reportedDroppedEventCount;
+
+    public AsyncLogPipeline(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "cart-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    public void publish(LogEvent event) {
+        if (!queue.offer(event)) {
+            droppedEventCount.increment();
+        }
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEventCount.sum();
+    }
+
+    /**
+     * Stops the writer after it has written the events already queued.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if (writer.isAlive()) {
+            writer.join();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (running || !queue.isEmpty()) {
+                LogEvent event = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    write(event);
+                }
+                if (event == null || queue.isEmpty()) {
+                    reportDroppedEvents();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportDroppedEvents() {
+        long dropped = droppedEventCount.sum();
+        if (dropped > reportedDroppedEventCount) {
+            logger.warn("{} log events were dropped because the log queue was full, {} in total", dropped - reportedDroppedEventCount, dropped);
+            reportedDroppedEventCount = dropped;
+        }
+    }
+
+    private static void write(LogEvent event) {
+        if (event.request() != null) {
+            writeWithRequest(event);
+        } else {
+            writeWithoutRequest(event);
+        }
+    }
+
+    private static void writeWithRequest(LogEvent event) {
+        switch (event.phase()) {
+            case START -> logger.info("Method '{}' is called on cart {} for request {}", event.methodName(), event.cartId(), event.request());
+            case SUCCESS -> logger.info("'{}' is successfully executed on cart {} for {}. {}", event.methodName(), event.cartId(), event.request(), body(event.outcome()));
+            case ERROR -> logger.error("Error when executing '{}' method on cart {} for request {}. {}", event.methodName(), event.cartId(), event.request(), ((Throwable) event.outcome()).getMessage());
+        }
+    }
+
+    private static void writeWithoutRequest(LogEvent event) {
+        switch (event.phase()) {
+            case START -> logger.info("Method '{}' is called", event.methodName());
+            case SUCCESS -> logger.info("'{}' method is successfully executed. {}", event.methodName(), body(event.outcome()));
+            case ERROR -> logger.error("Error when executing '{}' method. {}", event.methodName(), ((Throwable) event.outcome()).getMessage());
+        }
+    }
+
+    private static Object body(Object response) {
+        Object body = response instanceof ResponseEntity<?> entity ? entity.getBody() : response;
+        // Cart displays are served as already serialized JSON
+        return body instanceof byte[] json ? new String(json, StandardCharsets.UTF_8) : body;
+    }
+}
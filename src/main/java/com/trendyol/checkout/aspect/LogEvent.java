@@ -0,0 +1,16 @@
+package com.trendyol.checkout.aspect;
+
+/**
+ * A cart operation event waiting in {@link AsyncLogPipeline}. It keeps references to the request
+ * and to the response or exception instead of their text, they are rendered only when the event
+ * is written. Requests and responses are not changed after the operation returns, so rendering
+ * them later on the writer thread prints what the caller saw.
+ */
+record LogEvent(Phase phase, String methodName, int cartId, Object request, Object outcome) {
+
+    enum Phase {
+        START,
+        SUCCESS,
+        ERROR
+    }
+}
@@ -1,61 +1,89 @@
 package com.trendyol.checkout.aspect;
 
 import com.trendyol.checkout.models.dto.request.ItemRequest;
-import com.trendyol.checkout.models.dto.response.BasicResponse;
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import com.trendyol.checkout.service.CartService;
+import jakarta.annotation.PreDestroy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs the start and the outcome of every {@link CartService} call through an
+ * {@link AsyncLogPipeline}. Calls are sampled per method with
+ * {@code checkout.logging.sample-rate.<method>} (falling back to
+ * {@code checkout.logging.sample-rate.default}); a sampled call logs both its start and its
+ * outcome, errors are logged whether the call was sampled or not.
+ */
 @Aspect
 @Component
 public class LoggingAspect {
-    private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
+    private static final String SAMPLE_RATE_PROPERTY = "checkout.logging.sample-rate.";
 
-    @Before("execution(* com.trendyol.checkout.service.CartService.*(..)) && args(itemRequest)")
-    public void logStartOfMethodsWithItemRequest(JoinPoint joinPoint, ItemRequest itemRequest) {
-        String methodName = joinPoint.getSignature().getName();
+    private final AsyncLogPipeline pipeline;
+    private final Map<String, Double> sampleRates = new HashMap<>();
+    private final double defaultSampleRate;
 
-        logger.info("Method '{}' is called for request {}", methodName, itemRequest);
+    @Autowired
+    public LoggingAspect(Environment environment, @Value("${checkout.logging.queue-capacity:8192}") int queueCapacity) {
+        this.defaultSampleRate = environment.getProperty(SAMPLE_RATE_PROPERTY + "default", Double.class, 1.0);
+        for (Method method : CartService.class.getMethods()) {
+            sampleRates.put(method.getName(), environment.getProperty(SAMPLE_RATE_PROPERTY + method.getName(), Double.class, defaultSampleRate));
+        }
+        this.pipeline = new AsyncLogPipeline(queueCapacity);
+        this.pipeline.start();
     }
 
-    @AfterThrowing(value = "execution(* com.trendyol.checkout.service.CartService.*(..)) && args(itemRequest)", throwing = "ex")
-    public void logErrorsOfMethodsWithItemRequest(JoinPoint joinPoint, Exception ex, ItemRequest itemRequest) {
-        String methodName = joinPoint.getSignature().getName();
-
-        logger.error("Error when executing '{}' method for request {}. {}", methodName, itemRequest, ex.getMessage());
+    @Around("execution(* com.trendyol.checkout.service.CartService.*(..)) && args(cartId, itemRequest)")
+    public Object logMethodsWithItemRequest(ProceedingJoinPoint joinPoint, int cartId, ItemRequest itemRequest) throws Throwable {
+        return proceedAndLog(joinPoint, cartId, itemRequest);
     }
 
-    @AfterReturning(value = "execution(* com.trendyol.checkout.service.CartService.*(..)) && args(itemRequest)", returning = "response")
-    public void logSuccessOfMethodsWithItemRequest(JoinPoint joinPoint, ItemRequest itemRequest, ResponseEntity<BasicResponse> response) {
-        String methodName = joinPoint.getSignature().getName();
-
-        logger.info("'{}' is successfully executed for {}. {}", methodName, itemRequest, response.getBody());
+    @Around("execution(* com.trendyol.checkout.service.CartService.*(..)) && !args(int, com.trendyol.checkout.models.dto.request.ItemRequest)")
+    public Object logMethodsWithoutItemRequest(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedAndLog(joinPoint, 0, null);
     }
 
-    @Before("execution(* com.trendyol.checkout.service.CartService.*(..)) && !args(com.trendyol.checkout.models.dto.request.ItemRequest)")
-    public void logStartOfMethodsWithoutItemRequest(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
+    public long getDroppedEventCount() {
+        return pipeline.getDroppedEventCount();
+    }
 
-        logger.info("Method '{}' is called", methodName);
+    @PreDestroy
+    public void close() throws InterruptedException {
+        pipeline.close();
     }
 
-    @AfterThrowing(value = "execution(* com.trendyol.checkout.service.CartService.*(..)) && !args(com.trendyol.checkout.models.dto.request.ItemRequest)", throwing = "ex")
-    public void logErrorsOfMethodsWithoutItemRequest(JoinPoint joinPoint, Exception ex) {
+    private Object proceedAndLog(ProceedingJoinPoint joinPoint, int cartId, ItemRequest itemRequest) throws Throwable {
         String methodName = joinPoint.getSignature().getName();
+        boolean sampled = isSampled(methodName);
+        if (sampled) {
+            pipeline.publish(new LogEvent(LogEvent.Phase.START, methodName, cartId, itemRequest, null));
+        }
 
-        logger.error("Error when executing '{}' method. {}", methodName, ex.getMessage());
-    }
+        Object response;
+        try {
+            response = joinPoint.proceed();
+        } catch (Exception ex) {
+            pipeline.publish(new LogEvent(LogEvent.Phase.ERROR, methodName, cartId, itemRequest, ex));
+            throw ex;
+        }
 
-    @AfterReturning(value = "execution(* com.trendyol.checkout.service.CartService.*(..)) && !args(com.trendyol.checkout.models.dto.request.ItemRequest)", returning = "response")
-    public void logSuccessOfMethodsWithoutItemRequest(JoinPoint joinPoint, ResponseEntity<BasicResponse> response) {
-        String methodName = joinPoint.getSignature().getName();
+        if (sampled) {
+            pipeline.publish(new LogEvent(LogEvent.Phase.SUCCESS, methodName, cartId, itemRequest, response));
+        }
+        return response;
+    }
 
-        logger.info("'{}' method is successfully executed. {}", methodName, response.getBody());
+    private boolean isSampled(String methodName) {
+        double rate = sampleRates.getOrDefault(methodName, defaultSampleRate);
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
     }
 }
@@ -0,0 +1,80 @@
+package com.trendyol.checkout.aspect;
+
+import com.trendyol.checkout.service.CartService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every {@link CartService} call into a {@code cart.operation} timer tagged with the
+ * operation, its outcome and, for failures, the simple name of the exception. Timers publish a
+ * percentile histogram, so the Prometheus endpoint exposes latency buckets and, through their
+ * counts, throughput and failures per exception type. Recording is lock free; timers are looked
+ * up from maps built ahead of time so a call does not build meter ids.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+    static final String OPERATION_TIMER = "cart.operation";
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> successTimers = new HashMap<>();
+    private final Map<FailureKey, Timer> failureTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Method method : CartService.class.getMethods()) {
+            successTimers.put(method.getName(), timer(method.getName(), SUCCESS, NO_EXCEPTION));
+        }
+    }
+
+    @Around("execution(* com.trendyol.checkout.service.CartService.*(..))")
+    public Object recordOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        String methodName = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object response;
+        try {
+            response = joinPoint.proceed();
+        } catch (Exception ex) {
+            failureTimer(methodName, ex.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+        successTimers.get(methodName).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return response;
+    }
+
+    private Timer failureTimer(String methodName, Class<? extends Exception> exceptionType) {
+        return failureTimers.computeIfAbsent(new FailureKey(methodName, exceptionType),
+                key -> timer(key.methodName(), FAILURE, key.exceptionType().getSimpleName()));
+    }
+
+    private Timer timer(String methodName, String outcome, String exception) {
+        return Timer.builder(OPERATION_TIMER)
+                .description("Latency of cart operations")
+                .tag("operation", methodName)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+    }
+
+    private record FailureKey(String methodName, Class<? extends Exception> exceptionType) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.trendyol.checkout.config;
+
+import com.trendyol.checkout.snapshot.FileCartSpillStore;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.store.ExpiringCartStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Moves carts idle for longer than {@code checkout.cart-expiry.default-cart-ttl}, or
+ * {@code checkout.cart-expiry.digital-cart-ttl} for digital carts, out of memory into
+ * {@code checkout.cart-expiry.spill-directory}. The resident cart store is wrapped, so every other
+ * bean reads carts faulted back in from disk transparently. Spilled carts not accessed for
+ * {@code checkout.cart-expiry.spill-ttl} are deleted from disk.
+ */
+@Configuration
+public class CartExpiryConfiguration {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "checkout.cart-expiry.enabled", havingValue = "true", matchIfMissing = true)
+    public ExpiringCartStore expiringCartStore(@Qualifier(CartStore.RESIDENT) CartStore residentCartStore,
+                                               @Value("${checkout.cart-expiry.spill-directory:data/spill}") Path spillDirectory,
+                                               @Value("${checkout.cart-expiry.default-cart-ttl:1h}") Duration defaultCartTtl,
+                                               @Value("${checkout.cart-expiry.digital-cart-ttl:15m}") Duration digitalCartTtl,
+                                               @Value("${checkout.cart-expiry.spill-ttl:30d}") Duration spillTtl,
+                                               @Value("${checkout.cart-expiry.tick:1s}") Duration tick,
+                                               @Value("${checkout.cart-expiry.wheel-size:512}") int wheelSize) {
+        return new ExpiringCartStore(residentCartStore, new FileCartSpillStore(spillDirectory), defaultCartTtl, digitalCartTtl, spillTtl, tick, wheelSize);
+    }
+
+    /**
+     * Carts are recovered while the context starts, they must not be expired before that.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startExpiry(ApplicationReadyEvent event) {
+        Optional.ofNullable(event.getApplicationContext().getBeanProvider(ExpiringCartStore.class).getIfAvailable())
+                .ifPresent(ExpiringCartStore::start);
+    }
+}
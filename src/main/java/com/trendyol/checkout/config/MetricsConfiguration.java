@@ -0,0 +1,46 @@
+package com.trendyol.checkout.config;
+
+import com.trendyol.checkout.aspect.LoggingAspect;
+import com.trendyol.checkout.store.ExpiringCartStore;
+import com.trendyol.checkout.store.OffHeapCartStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder droppedLogEventsMeterBinder(LoggingAspect loggingAspect) {
+        return registry -> FunctionCounter.builder("cart.log.events.dropped", loggingAspect, LoggingAspect::getDroppedEventCount)
+                .description("Cart operation log events dropped because the log queue was full")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder offHeapCartStoreMeterBinder(ObjectProvider<OffHeapCartStore> offHeapCartStore) {
+        return registry -> offHeapCartStore.ifAvailable(cartStore ->
+                Gauge.builder("cart.store.off.heap", cartStore, OffHeapCartStore::reservedBytes)
+                        .description("Off-heap memory reserved by the slabs and indexes of the cart store")
+                        .baseUnit("bytes")
+                        .register(registry));
+    }
+
+    @Bean
+    public MeterBinder expiringCartStoreMeterBinder(ObjectProvider<ExpiringCartStore> expiringCartStore) {
+        return registry -> expiringCartStore.ifAvailable(cartStore -> {
+            FunctionCounter.builder("cart.store.evictions", cartStore, ExpiringCartStore::getEvictedCartCount)
+                    .description("Idle carts spilled to disk and removed from memory")
+                    .register(registry);
+            FunctionCounter.builder("cart.store.fault.ins", cartStore, ExpiringCartStore::getFaultedInCartCount)
+                    .description("Spilled carts read back into memory on access")
+                    .register(registry);
+            FunctionCounter.builder("cart.store.spill.expirations", cartStore, ExpiringCartStore::getExpiredSpilledCartCount)
+                    .description("Spilled carts deleted from disk after the spill TTL")
+                    .register(registry);
+        });
+    }
+}
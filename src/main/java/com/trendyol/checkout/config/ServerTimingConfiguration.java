@@ -0,0 +1,32 @@
+package com.trendyol.checkout.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trendyol.checkout.timing.ServerTimingFilter;
+import com.trendyol.checkout.timing.ServerTimingMessageConverter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Returns a {@code Server-Timing} header with the validation, mutation, promotion and
+ * serialization time of every cart request and records each request as a JFR event.
+ */
+@Configuration
+public class ServerTimingConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter());
+        registration.addUrlPatterns("/api/v1/cart/*", "/api/v1/reactive/cart/*");
+        return registration;
+    }
+
+    /**
+     * Replaces the Jackson converter Spring Boot would otherwise register, with the same object mapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter serverTimingMessageConverter(ObjectMapper objectMapper) {
+        return new ServerTimingMessageConverter(objectMapper);
+    }
+}
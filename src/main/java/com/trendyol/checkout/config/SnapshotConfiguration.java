@@ -0,0 +1,52 @@
+package com.trendyol.checkout.config;
+
+import com.trendyol.checkout.snapshot.CartSnapshotStore;
+import com.trendyol.checkout.snapshot.FileCartSnapshotStore;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.wal.CartMutationLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Snapshots all carts to {@code checkout.snapshot.directory} every {@code checkout.snapshot.interval}
+ * and truncates the write ahead log behind them, so a restart loads the latest snapshot with
+ * {@code checkout.snapshot.load-parallelism} threads and only replays the log written since.
+ */
+@Configuration
+public class SnapshotConfiguration {
+
+    @Value("${checkout.snapshot.interval:5m}")
+    private Duration interval;
+
+    @Bean
+    @ConditionalOnProperty(name = "checkout.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+    public FileCartSnapshotStore cartSnapshotStore(CartStore cartStore, CartMutationLog mutationLog,
+                                                   @Value("${checkout.snapshot.directory:data/snapshots}") Path directory,
+                                                   @Value("${checkout.snapshot.load-parallelism:0}") int loadParallelism) {
+        int parallelism = loadParallelism > 0 ? loadParallelism : Runtime.getRuntime().availableProcessors();
+        return new FileCartSnapshotStore(cartStore, mutationLog, directory, parallelism);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "checkout.snapshot.enabled", havingValue = "false")
+    public CartSnapshotStore disabledCartSnapshotStore() {
+        return CartSnapshotStore.DISABLED;
+    }
+
+    /**
+     * Carts are recovered while the context starts, snapshots must not be taken before that.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSnapshots(ApplicationReadyEvent event) {
+        Optional.ofNullable(event.getApplicationContext().getBeanProvider(FileCartSnapshotStore.class).getIfAvailable())
+                .ifPresent(snapshotStore -> snapshotStore.start(interval));
+    }
+}
@@ -0,0 +1,28 @@
+package com.trendyol.checkout.config;
+
+import com.trendyol.checkout.concurrent.VirtualThreads;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code checkout.threading.mode=virtual} Tomcat runs every request, and so the controller
+ * and the service layer, on a virtual thread of its own instead of its bounded worker pool.
+ * Nothing on the cart path blocks while holding a monitor, which would pin the carrier thread:
+ * carts are committed with a compare and set, the cart stores, the mutation log and the spill and
+ * snapshot files are guarded by {@code java.util.concurrent} locks and logback guards its
+ * appenders with a {@code ReentrantLock}. Blocking under one of those locks, like a forced log
+ * write or a cart faulted in from disk, parks the virtual thread and frees its carrier. The one
+ * thread local, {@link com.trendyol.checkout.timing.ServerTiming}, holds the request being served
+ * and is removed when it ends, nothing is cached per thread across requests.
+ */
+@Configuration
+public class ThreadingConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "checkout.threading.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,41 @@
+package com.trendyol.checkout.config;
+
+import com.trendyol.checkout.wal.CartMutationLog;
+import com.trendyol.checkout.wal.FsyncPolicy;
+import com.trendyol.checkout.wal.MappedCartMutationLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Makes the committed cart versions durable with a memory mapped write ahead log in
+ * {@code checkout.wal.directory}, replayed when the application starts. By default records are
+ * forced to disk by a background thread every {@code checkout.wal.fsync-interval}, so a request
+ * never waits for the disk; {@code checkout.wal.fsync=always} makes requests wait for their record.
+ */
+@Configuration
+public class WalConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "checkout.wal.enabled", havingValue = "true", matchIfMissing = true)
+    public MappedCartMutationLog cartMutationLog(@Value("${checkout.wal.directory:data/wal}") Path directory,
+                                                 @Value("${checkout.wal.segment-size:64MB}") DataSize segmentSize,
+                                                 @Value("${checkout.wal.fsync:interval}") FsyncPolicy fsyncPolicy,
+                                                 @Value("${checkout.wal.fsync-interval:100ms}") Duration fsyncInterval) {
+        if (segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("checkout.wal.segment-size can be maximum " + DataSize.ofBytes(Integer.MAX_VALUE).toMegabytes() + "MB");
+        }
+        return new MappedCartMutationLog(directory, (int) segmentSize.toBytes(), fsyncPolicy, fsyncInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "checkout.wal.enabled", havingValue = "false")
+    public CartMutationLog disabledCartMutationLog() {
+        return CartMutationLog.DISABLED;
+    }
+}
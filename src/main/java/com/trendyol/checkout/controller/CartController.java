@@ -1,15 +1,17 @@
 package com.trendyol.checkout.controller;
 
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
 import com.trendyol.checkout.models.dto.request.ItemRequest;
 import com.trendyol.checkout.models.dto.request.VasItemRequest;
 import com.trendyol.checkout.models.dto.response.BasicResponse;
 import com.trendyol.checkout.service.CartServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
-@RequestMapping("/api/v1/cart")
+@RequestMapping("/api/v1/cart/{cartId}")
 public class CartController {
     private CartServiceImpl cartService;
 
@@ -19,27 +21,37 @@ public class CartController {
     }
 
     @PostMapping("/items")
-    public ResponseEntity<BasicResponse> add(@RequestBody ItemRequest request) {
-        return cartService.addNonVasItemToCart(request);
+    public ResponseEntity<BasicResponse> add(@PathVariable int cartId, @RequestBody ItemRequest request) {
+        return cartService.addNonVasItemToCart(cartId, request);
     }
 
     @PostMapping("/vas_items")
-    public ResponseEntity<BasicResponse> add(@RequestBody VasItemRequest request) {
-        return cartService.addVasItemToCart(request);
+    public ResponseEntity<BasicResponse> add(@PathVariable int cartId, @RequestBody VasItemRequest request) {
+        return cartService.addVasItemToCart(cartId, request);
+    }
+
+    @PostMapping("/items/batch")
+    public ResponseEntity<BasicResponse> addAll(@PathVariable int cartId, @RequestBody BatchItemRequest request) {
+        return cartService.addItemsToCart(cartId, request);
     }
 
     @DeleteMapping("/items/{itemId}")
-    public ResponseEntity<BasicResponse> delete(@PathVariable int itemId) {
-        return cartService.removeItem(itemId);
+    public ResponseEntity<BasicResponse> delete(@PathVariable int cartId, @PathVariable int itemId) {
+        return cartService.removeItem(cartId, itemId);
     }
 
     @DeleteMapping
-    public ResponseEntity<BasicResponse> resetCart() {
-        return cartService.resetCart();
+    public ResponseEntity<BasicResponse> resetCart(@PathVariable int cartId) {
+        return cartService.resetCart(cartId);
     }
 
     @GetMapping
-    public ResponseEntity<BasicResponse> displayCart() {
-        return cartService.displayCart();
+    public ResponseEntity<byte[]> displayCart(@PathVariable int cartId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cartService.displayCart(cartId, ifNoneMatch);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<BasicResponse> displayCartChanges(@PathVariable int cartId, @RequestParam long since) {
+        return cartService.displayCartChanges(cartId, since);
     }
 }
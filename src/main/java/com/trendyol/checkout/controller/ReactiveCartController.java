@@ -0,0 +1,52 @@
+package com.trendyol.checkout.controller;
+
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.dto.response.BasicResponse;
+import com.trendyol.checkout.service.ReactiveCartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/reactive/cart/{cartId}")
+public class ReactiveCartController {
+    private ReactiveCartService cartService;
+
+    @Autowired
+    public ReactiveCartController(ReactiveCartService cartService) {
+        this.cartService = cartService;
+    }
+
+    @PostMapping("/items")
+    public Mono<ResponseEntity<BasicResponse>> add(@PathVariable int cartId, @RequestBody ItemRequest request) {
+        return cartService.addNonVasItemToCart(cartId, request);
+    }
+
+    @PostMapping("/vas_items")
+    public Mono<ResponseEntity<BasicResponse>> add(@PathVariable int cartId, @RequestBody VasItemRequest request) {
+        return cartService.addVasItemToCart(cartId, request);
+    }
+
+    @PostMapping("/items/batch")
+    public Mono<ResponseEntity<BasicResponse>> addAll(@PathVariable int cartId, @RequestBody BatchItemRequest request) {
+        return cartService.addItemsToCart(cartId, request);
+    }
+
+    @DeleteMapping("/items/{itemId}")
+    public Mono<ResponseEntity<BasicResponse>> delete(@PathVariable int cartId, @PathVariable int itemId) {
+        return cartService.removeItem(cartId, itemId);
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<BasicResponse>> resetCart(@PathVariable int cartId) {
+        return cartService.resetCart(cartId);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<BasicResponse>> displayCart(@PathVariable int cartId) {
+        return cartService.displayCart(cartId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.trendyol.checkout.exception;
+
+/**
+ * A cart operation rejected by a business rule, like a full cart or an unknown item. Rejections
+ * are part of the normal traffic and are reported to the client by their message only, so they
+ * are created without capturing a stack trace and without suppression.
+ */
+public abstract class CartRejectionException extends RuntimeException {
+    protected CartRejectionException(String message) {
+        super(message, null, false, false);
+    }
+}
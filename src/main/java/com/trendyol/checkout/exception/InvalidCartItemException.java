@@ -1,6 +1,6 @@
 package com.trendyol.checkout.exception;
 
-public class InvalidCartItemException extends RuntimeException {
+public class InvalidCartItemException extends CartRejectionException {
     public InvalidCartItemException(String message) {
         super(message);
     }
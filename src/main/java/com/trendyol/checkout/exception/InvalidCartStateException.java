@@ -1,6 +1,6 @@
 package com.trendyol.checkout.exception;
 
-public class InvalidCartStateException extends RuntimeException {
+public class InvalidCartStateException extends CartRejectionException {
     public InvalidCartStateException(String message) {
         super(message);
     }
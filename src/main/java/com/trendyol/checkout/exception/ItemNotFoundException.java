@@ -1,6 +1,6 @@
 package com.trendyol.checkout.exception;
 
-public class ItemNotFoundException extends RuntimeException {
+public class ItemNotFoundException extends CartRejectionException {
     public ItemNotFoundException(String message) {
         super(message);
     }
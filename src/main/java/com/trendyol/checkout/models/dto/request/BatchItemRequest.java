@@ -0,0 +1,51 @@
+package com.trendyol.checkout.models.dto.request;
+
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * Items and VasItems added in one request. Items are applied before VasItems, so a VasItem can
+ * refer to a default item of the same batch.
+ */
+@SuperBuilder
+public class BatchItemRequest {
+    private List<ItemRequest> items;
+    private List<VasItemRequest> vasItems;
+
+    public BatchItemRequest() {
+    }
+
+    public BatchItemRequest(List<ItemRequest> items, List<VasItemRequest> vasItems) {
+        this.items = items;
+        this.vasItems = vasItems;
+    }
+
+    public List<ItemRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemRequest> items) {
+        this.items = items;
+    }
+
+    public List<VasItemRequest> getVasItems() {
+        return vasItems;
+    }
+
+    public void setVasItems(List<VasItemRequest> vasItems) {
+        this.vasItems = vasItems;
+    }
+
+    public int size() {
+        return (items == null ? 0 : items.size()) + (vasItems == null ? 0 : vasItems.size());
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "items=" + items +
+                ", vasItems=" + vasItems +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.trendyol.checkout.models.dto.response;
+
+import java.util.List;
+
+public class BatchItemResponse {
+    private int addedCount;
+    private int rejectedCount;
+    private long version;
+    private List<BatchLineResult> lines;
+
+    public BatchItemResponse(long version, List<BatchLineResult> lines) {
+        this.version = version;
+        this.lines = lines;
+        for (BatchLineResult line : lines) {
+            if (line.isResult()) {
+                addedCount++;
+            } else {
+                rejectedCount++;
+            }
+        }
+    }
+
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<BatchLineResult> getLines() {
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "addedCount=" + addedCount +
+                ", rejectedCount=" + rejectedCount +
+                ", version=" + version +
+                ", lines=" + lines +
+                '}';
+    }
+}
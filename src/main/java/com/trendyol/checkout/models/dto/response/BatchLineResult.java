@@ -0,0 +1,41 @@
+package com.trendyol.checkout.models.dto.response;
+
+public class BatchLineResult {
+    private Integer itemId;
+    private Integer vasItemId;
+    private boolean result;
+    private String message;
+
+    public BatchLineResult(Integer itemId, Integer vasItemId, boolean result, String message) {
+        this.itemId = itemId;
+        this.vasItemId = vasItemId;
+        this.result = result;
+        this.message = message;
+    }
+
+    public Integer getItemId() {
+        return itemId;
+    }
+
+    public Integer getVasItemId() {
+        return vasItemId;
+    }
+
+    public boolean isResult() {
+        return result;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "itemId=" + itemId +
+                (vasItemId != null ? ", vasItemId=" + vasItemId : "") +
+                ", result=" + result +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.trendyol.checkout.models.dto.response;
+
+import com.trendyol.checkout.models.entity.cart.CartView;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.money.Money;
+import com.trendyol.checkout.promotion.PromotionResult;
+
+import java.util.List;
+
+/**
+ * The changes of a cart after {@code sinceVersion}: the current state of the items added or
+ * changed since, the ids of the items removed since and the current totals.
+ */
+public class CartDeltaResponse {
+    private long sinceVersion;
+    private long version;
+    private List<Item> items;
+    private List<Integer> removedItemIds;
+    private Double totalPrice;
+    private Integer appliedPromotionId;
+    private Double totalDiscount;
+
+    public CartDeltaResponse(long sinceVersion, CartView cart, List<Item> items, List<Integer> removedItemIds, PromotionResult promotion) {
+        this.sinceVersion = sinceVersion;
+        this.version = cart.getVersion();
+        this.items = items;
+        this.removedItemIds = removedItemIds;
+        this.totalPrice = Money.toUnits(cart.getTotalPriceInCents() - promotion.getDiscountInCents());
+        this.appliedPromotionId = promotion.hasPromotion() ? promotion.getPromotionId() : null;
+        this.totalDiscount = promotion.getDiscount();
+    }
+
+    public long getSinceVersion() {
+        return sinceVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public List<Integer> getRemovedItemIds() {
+        return removedItemIds;
+    }
+
+    public Double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public Integer getAppliedPromotionId() {
+        return appliedPromotionId;
+    }
+
+    public Double getTotalDiscount() {
+        return totalDiscount;
+    }
+
+    @Override
+    public String toString() {
+        return "CartDeltaResponse{" +
+                "sinceVersion=" + sinceVersion +
+                ", version=" + version +
+                ", items=" + items +
+                ", removedItemIds=" + removedItemIds +
+                ", totalPrice=" + totalPrice +
+                ", appliedPromotionId=" + appliedPromotionId +
+                ", totalDiscount=" + totalDiscount +
+                '}';
+    }
+}
@@ -1,8 +1,10 @@
 package com.trendyol.checkout.models.dto.response;
 
-import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CartView;
 import com.trendyol.checkout.models.entity.item.Item;
 import com.trendyol.checkout.models.entity.item.ItemType;
+import com.trendyol.checkout.money.Money;
+import com.trendyol.checkout.promotion.PromotionResult;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -12,13 +14,22 @@ public class CartResponse {
     private Double totalPrice;
     private Integer appliedPromotionId;
     private Double totalDiscount;
+    private long version;
 
-
-    public CartResponse(Cart cart) {
+    public CartResponse(CartView cart) {
         this.items = cart.getItems().stream().filter(i->i.getType() != ItemType.VAS_ITEM).collect(Collectors.toList());
-        this.totalPrice = cart.getTotalPrice() - cart.getTotalDiscount();
+        this.totalPrice = Money.toUnits(cart.getTotalPriceInCents() - cart.getTotalDiscountInCents());
         this.appliedPromotionId = cart.getAppliedPromotionId();
         this.totalDiscount = cart.getTotalDiscount();
+        this.version = cart.getVersion();
+    }
+
+    public CartResponse(CartView cart, PromotionResult promotion) {
+        this.items = cart.getItems().stream().filter(i->i.getType() != ItemType.VAS_ITEM).collect(Collectors.toList());
+        this.totalPrice = Money.toUnits(cart.getTotalPriceInCents() - promotion.getDiscountInCents());
+        this.appliedPromotionId = promotion.hasPromotion() ? promotion.getPromotionId() : null;
+        this.totalDiscount = promotion.getDiscount();
+        this.version = cart.getVersion();
     }
 
     public CartResponse(List<Item> items, Double totalPrice, Integer appliedPromotionId, Double totalDiscount) {
@@ -60,6 +71,14 @@ public class CartResponse {
         this.totalDiscount = totalDiscount;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "CartResponse{" +
@@ -67,6 +86,7 @@ public class CartResponse {
                 ", totalPrice=" + totalPrice +
                 ", appliedPromotionId=" + appliedPromotionId +
                 ", totalDiscount=" + totalDiscount +
+                ", version=" + version +
                 '}';
     }
 }
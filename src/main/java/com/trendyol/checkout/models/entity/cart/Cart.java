@@ -1,64 +1,108 @@
 package com.trendyol.checkout.models.entity.cart;
 
 import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.money.Money;
 import com.trendyol.checkout.models.entity.item.ItemType;
-import org.springframework.stereotype.Component;
-
 import java.util.*;
 
-@Component
-public class Cart {
+/**
+ * Cart a mutation works on, with its lines as item objects and the aggregates promotion evaluation
+ * reads kept up to date on every change. Committed carts are kept as {@link CompactCart}.
+ */
+public class Cart implements CartView {
     private int id;
     private List<Item> items;
+    private List<Item> itemsView;
+    private final ItemIndex itemIndex = new ItemIndex();
+    private final GroupedItemTotals sellerTotals = new GroupedItemTotals();
+    private final GroupedItemTotals categoryTotals = new GroupedItemTotals();
+    private int nonVasItemCount;
     private Integer itemCount;
     private Integer uniqueItemCount;
-    private Double totalPrice;
+    private long totalPriceInCents;
     private Integer appliedPromotionId;
-    private Double totalDiscount;
+    private long totalDiscountInCents;
     private Boolean isDigitalItemCart;
+    private long version;
 
     public Cart() {
-        this.items = new ArrayList<>();
+        useItems(new ArrayList<>());
         this.itemCount = 0;
         this.uniqueItemCount = 0;
-        this.totalPrice = 0.0;
-        this.totalDiscount = 0.0;
+        this.totalPriceInCents = 0;
+        this.totalDiscountInCents = 0;
     }
 
-    public Cart(List<Item> items, Integer itemCount, Integer uniqueItemCount, Double totalPrice, Integer appliedPromotionId, Double totalDiscount, Boolean isDigitalItemCart) {
-        this.items = items;
+    public Cart(int id) {
+        this();
+        this.id = id;
+    }
+
+    /**
+     * Creates a deep copy of the given cart. Mutations are applied to such a copy and
+     * committed to the store afterwards, so a cart that has been handed to readers is never changed.
+     */
+    public Cart(Cart cart) {
+        this.id = cart.id;
+        List<Item> copiedItems = new ArrayList<>(cart.items.size());
+        for (Item item : cart.items) {
+            copiedItems.add(item.copy());
+        }
+        useItems(copiedItems);
+        this.itemCount = cart.itemCount;
+        this.uniqueItemCount = cart.uniqueItemCount;
+        this.totalPriceInCents = cart.totalPriceInCents;
+        this.appliedPromotionId = cart.appliedPromotionId;
+        this.totalDiscountInCents = cart.totalDiscountInCents;
+        this.isDigitalItemCart = cart.isDigitalItemCart;
+        this.version = cart.version;
+    }
+
+    public Cart(List<Item> items, Integer itemCount, Integer uniqueItemCount, double totalPrice, Integer appliedPromotionId, double totalDiscount, Boolean isDigitalItemCart) {
+        useItems(new ArrayList<>(items));
         this.itemCount = itemCount;
         this.uniqueItemCount = uniqueItemCount;
-        this.totalPrice = totalPrice;
+        this.totalPriceInCents = Money.ofUnits(totalPrice);
         this.appliedPromotionId = appliedPromotionId;
-        this.totalDiscount = totalDiscount;
+        this.totalDiscountInCents = Money.ofUnits(totalDiscount);
         this.isDigitalItemCart = isDigitalItemCart;
     }
 
-    public Cart(int id, List<Item> items, Integer itemCount, Integer uniqueItemCount, Double totalPrice, Integer appliedPromotionId, Double totalDiscount, Boolean isDigitalItemCart) {
+    public Cart(int id, List<Item> items, Integer itemCount, Integer uniqueItemCount, double totalPrice, Integer appliedPromotionId, double totalDiscount, Boolean isDigitalItemCart) {
         this.id = id;
-        this.items = items;
+        useItems(new ArrayList<>(items));
         this.itemCount = itemCount;
         this.uniqueItemCount = uniqueItemCount;
-        this.totalPrice = totalPrice;
+        this.totalPriceInCents = Money.ofUnits(totalPrice);
         this.appliedPromotionId = appliedPromotionId;
-        this.totalDiscount = totalDiscount;
+        this.totalDiscountInCents = Money.ofUnits(totalDiscount);
         this.isDigitalItemCart = isDigitalItemCart;
     }
 
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return read-only view of the items, use {@link #addItem} and {@link #removeItem} to change them
+     */
     public List<Item> getItems() {
-        return items;
+        return itemsView;
+    }
+
+    public int getLineCount() {
+        return items.size();
     }
 
     public void setItems(List<Item> items) {
-        this.items = items;
+        useItems(new ArrayList<>(items));
         this.uniqueItemCount = (int) items.stream()
                 .filter(i -> i.getType() != ItemType.VAS_ITEM)
                 .map(Item::getItemId).distinct().count();
         this.isDigitalItemCart = !items.isEmpty() && items.get(0).getType() == ItemType.DIGITAL_ITEM;
 
         for (Item item : items) {
-            this.totalPrice += item.getPrice() * item.getQuantity();
+            this.totalPriceInCents += Money.times(item.getPriceInCents(), item.getQuantity());
             this.itemCount += item.getQuantity();
         }
     }
@@ -79,12 +123,20 @@ public class Cart {
         this.uniqueItemCount = uniqueItemCount;
     }
 
-    public Double getTotalPrice() {
-        return totalPrice;
+    public double getTotalPrice() {
+        return Money.toUnits(totalPriceInCents);
     }
 
-    public void setTotalPrice(Double totalPrice) {
-        this.totalPrice = totalPrice;
+    public void setTotalPrice(double totalPrice) {
+        this.totalPriceInCents = Money.ofUnits(totalPrice);
+    }
+
+    public long getTotalPriceInCents() {
+        return totalPriceInCents;
+    }
+
+    public void setTotalPriceInCents(long totalPriceInCents) {
+        this.totalPriceInCents = totalPriceInCents;
     }
 
     public Integer getAppliedPromotionId() {
@@ -95,12 +147,20 @@ public class Cart {
         this.appliedPromotionId = appliedPromotionId;
     }
 
-    public Double getTotalDiscount() {
-        return totalDiscount;
+    public double getTotalDiscount() {
+        return Money.toUnits(totalDiscountInCents);
+    }
+
+    public void setTotalDiscount(double totalDiscount) {
+        this.totalDiscountInCents = Money.ofUnits(totalDiscount);
+    }
+
+    public long getTotalDiscountInCents() {
+        return totalDiscountInCents;
     }
 
-    public void setTotalDiscount(Double totalDiscount) {
-        this.totalDiscount = totalDiscount;
+    public void setTotalDiscountInCents(long totalDiscountInCents) {
+        this.totalDiscountInCents = totalDiscountInCents;
     }
 
     public Boolean isDigitalItemCart() {
@@ -111,30 +171,130 @@ public class Cart {
         isDigitalItemCart = digitalItemCart;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Optional<Item> findItemById(Integer itemId) {
-        return this.items.stream().filter(item -> item.getItemId() == itemId).findFirst();
+        return Optional.ofNullable(findItem(itemId));
+    }
+
+    /**
+     * @return the item with the given id or null when the cart does not contain it
+     */
+    public Item findItem(int itemId) {
+        return itemIndex.get(itemId);
+    }
+
+    public void addItem(Item item) {
+        items.add(item);
+        itemIndex.put(item.getItemId(), item);
+        trackLine(item, 1, item.getQuantity());
+    }
+
+    public void increaseQuantity(Item item, int quantity) {
+        item.setQuantity(item.getQuantity() + quantity);
+        trackLine(item, 0, quantity);
+    }
+
+    /**
+     * @return the removed item or null when the cart does not contain it
+     */
+    public Item removeItem(int itemId) {
+        Item removed = itemIndex.remove(itemId);
+        if (removed != null) {
+            removeFromItems(removed);
+            trackLine(removed, -1, -removed.getQuantity());
+        }
+        return removed;
+    }
+
+    /**
+     * @return number of distinct sellers among the non VAS items
+     */
+    public int getDistinctSellerCount() {
+        return sellerTotals.nonEmptyGroupCount();
+    }
+
+    public long getSellerSubtotalInCents(int sellerId) {
+        return sellerTotals.subtotal(sellerId);
+    }
+
+    public long getCategorySubtotalInCents(int categoryId) {
+        return categoryTotals.subtotal(categoryId);
+    }
+
+    public int getNonVasItemCount() {
+        return nonVasItemCount;
     }
 
     public void reset() {
-        this.items = new ArrayList<>();
+        useItems(new ArrayList<>());
         this.itemCount = 0;
         this.uniqueItemCount = 0;
-        this.totalPrice = 0.0;
+        this.totalPriceInCents = 0;
         this.appliedPromotionId = null;
-        this.totalDiscount = 0.0;
+        this.totalDiscountInCents = 0;
         this.isDigitalItemCart = null;
     }
 
+    private void useItems(List<Item> items) {
+        this.items = items;
+        this.itemsView = Collections.unmodifiableList(items);
+
+        itemIndex.clear();
+        sellerTotals.clear();
+        categoryTotals.clear();
+        nonVasItemCount = 0;
+        for (Item item : items) {
+            // Keep the first occurrence, as the stream based lookup used to do
+            if (itemIndex.get(item.getItemId()) == null) {
+                itemIndex.put(item.getItemId(), item);
+            }
+            trackLine(item, 1, item.getQuantity());
+        }
+    }
+
+    /**
+     * Keeps the aggregates read by promotion evaluation in line with the items.
+     * Quantities must therefore be changed through {@link #increaseQuantity}.
+     */
+    private void trackLine(Item item, int lineDelta, int quantityDelta) {
+        long subtotalDelta = Money.times(item.getPriceInCents(), quantityDelta);
+
+        categoryTotals.add(item.getCategoryId(), lineDelta, subtotalDelta);
+        if (item.getType() != ItemType.VAS_ITEM) {
+            sellerTotals.add(item.getSellerId(), lineDelta, subtotalDelta);
+            nonVasItemCount += lineDelta;
+        }
+    }
+
+    private void removeFromItems(Item item) {
+        // A cart holds a few dozen lines at most, so compacting the list is bounded
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == item) {
+                items.remove(i);
+                return;
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "Cart{" +
-                "items=" + items +
+                "id=" + id +
+                ", items=" + items +
                 ", itemCount=" + itemCount +
                 ", uniqueItemCount=" + uniqueItemCount +
-                ", totalPrice=" + totalPrice +
+                ", totalPrice=" + getTotalPrice() +
                 ", appliedPromotionId=" + appliedPromotionId +
-                ", totalDiscount=" + totalDiscount +
+                ", totalDiscount=" + getTotalDiscount() +
                 ", isDigitalItemCart=" + isDigitalItemCart +
+                ", version=" + version +
                 '}';
     }
 }
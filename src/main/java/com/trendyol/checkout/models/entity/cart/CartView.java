@@ -0,0 +1,63 @@
+package com.trendyol.checkout.models.entity.cart;
+
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.money.Money;
+
+import java.util.List;
+
+/**
+ * Read access to a cart shared by the mutable {@link Cart} a mutation works on and the
+ * {@link CompactCart} committed carts are kept as, so validation, promotion evaluation and the
+ * responses read either one.
+ */
+public interface CartView {
+    int getId();
+
+    long getVersion();
+
+    /**
+     * @return read-only list of the cart lines, VAS items included
+     */
+    List<Item> getItems();
+
+    /**
+     * @return number of cart lines, the size of {@link #getItems()}
+     */
+    int getLineCount();
+
+    /**
+     * @return the item with the given id or null when the cart does not contain it
+     */
+    Item findItem(int itemId);
+
+    Integer getItemCount();
+
+    Integer getUniqueItemCount();
+
+    long getTotalPriceInCents();
+
+    default double getTotalPrice() {
+        return Money.toUnits(getTotalPriceInCents());
+    }
+
+    long getTotalDiscountInCents();
+
+    default double getTotalDiscount() {
+        return Money.toUnits(getTotalDiscountInCents());
+    }
+
+    Integer getAppliedPromotionId();
+
+    Boolean isDigitalItemCart();
+
+    /**
+     * @return number of distinct sellers among the non VAS items
+     */
+    int getDistinctSellerCount();
+
+    long getSellerSubtotalInCents(int sellerId);
+
+    long getCategorySubtotalInCents(int categoryId);
+
+    int getNonVasItemCount();
+}
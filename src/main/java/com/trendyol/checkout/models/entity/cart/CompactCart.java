@@ -0,0 +1,389 @@
+package com.trendyol.checkout.models.entity.cart;
+
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.DigitalItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.ItemType;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import com.trendyol.checkout.money.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Committed version of a cart with its lines in primitive columns instead of item objects, so a
+ * cart is six objects whatever it holds. Lines are in cart order, the VAS items attached to a
+ * default item follow it with the index of its line as their parent; cart lines have no parent.
+ * A compact cart is never changed, {@link #toCart()} gives the {@link Cart} a mutation works on
+ * and {@link #of(Cart)} compacts its result.
+ * <p>
+ * The aggregates promotion evaluation reads are computed once when the cart is compacted, like
+ * {@link Cart} keeps them up to date on every mutation. Subtotals are kept per distinct seller and
+ * category id in sorted arrays, so reading one does not depend on the number of lines. Items
+ * handed out by {@link #getItems()} and {@link #findItem(int)} are built on every call.
+ */
+public final class CompactCart implements CartView {
+    public static final int NO_PARENT = -1;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final long[] NO_LONGS = new long[0];
+    private static final byte[] NO_BYTES = new byte[0];
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+    private static final int NO_PROMOTION = Integer.MIN_VALUE;
+    private static final byte UNKNOWN_CART_TYPE = -1;
+    private static final int ITEM_ID_COLUMN = 0;
+    private static final int CATEGORY_ID_COLUMN = 1;
+    private static final int SELLER_ID_COLUMN = 2;
+    private static final int QUANTITY_COLUMN = 3;
+    private static final int INT_COLUMN_COUNT = 4;
+    private static final int TYPE_COLUMN = 0;
+    private static final int PARENT_COLUMN = 1;
+    private static final int BYTE_COLUMN_COUNT = 2;
+
+    private final int id;
+    private final long version;
+    private final int itemCount;
+    private final int uniqueItemCount;
+    private final long totalPriceInCents;
+    private final long totalDiscountInCents;
+    private final int appliedPromotionId;
+    private final byte digitalItemCart;
+    private final int lineCount;
+    // Columns of the lines, the int and the byte columns share an array each to save array headers
+    private final int[] intColumns;
+    private final long[] pricesInCents;
+    private final byte[] byteColumns;
+    private final int cartLineCount;
+    private final int nonVasItemCount;
+    private final int distinctSellerCount;
+    // Distinct seller ids of the non VAS cart lines followed by the distinct category ids of the
+    // cart lines, each part sorted, and the subtotal of every id
+    private final int[] groupKeys;
+    private final long[] groupSubtotals;
+
+    /**
+     * Takes the lines as parallel arrays of equal length.
+     */
+    public CompactCart(int id, long version, int itemCount, int uniqueItemCount, long totalPriceInCents, long totalDiscountInCents,
+                       Integer appliedPromotionId, Boolean digitalItemCart,
+                       int[] itemIds, int[] categoryIds, int[] sellerIds, long[] pricesInCents, int[] quantities, byte[] types, byte[] parents) {
+        this(id, version, itemCount, uniqueItemCount, totalPriceInCents, totalDiscountInCents, appliedPromotionId, digitalItemCart,
+                pricesInCents.length, concat(itemIds, categoryIds, sellerIds, quantities), pricesInCents, concat(types, parents));
+    }
+
+    private CompactCart(int id, long version, int itemCount, int uniqueItemCount, long totalPriceInCents, long totalDiscountInCents,
+                        Integer appliedPromotionId, Boolean digitalItemCart,
+                        int lineCount, int[] intColumns, long[] pricesInCents, byte[] byteColumns) {
+        this.id = id;
+        this.version = version;
+        this.itemCount = itemCount;
+        this.uniqueItemCount = uniqueItemCount;
+        this.totalPriceInCents = totalPriceInCents;
+        this.totalDiscountInCents = totalDiscountInCents;
+        this.appliedPromotionId = appliedPromotionId != null ? appliedPromotionId : NO_PROMOTION;
+        this.digitalItemCart = digitalItemCart == null ? UNKNOWN_CART_TYPE : (byte) (digitalItemCart ? 1 : 0);
+        this.lineCount = lineCount;
+        this.intColumns = intColumns;
+        this.pricesInCents = pricesInCents;
+        this.byteColumns = byteColumns;
+
+        int cartLineCount = 0;
+        int nonVasItemCount = 0;
+        for (int line = 0; line < lineCount; line++) {
+            if (parent(line) == NO_PARENT) {
+                cartLineCount++;
+                if (type(line) != ItemType.VAS_ITEM) {
+                    nonVasItemCount++;
+                }
+            }
+        }
+        this.cartLineCount = cartLineCount;
+        this.nonVasItemCount = nonVasItemCount;
+
+        int[] sellerIds = new int[nonVasItemCount];
+        int[] categoryIds = new int[cartLineCount];
+        for (int line = 0, seller = 0, category = 0; line < lineCount; line++) {
+            if (parent(line) == NO_PARENT) {
+                categoryIds[category++] = categoryId(line);
+                if (type(line) != ItemType.VAS_ITEM) {
+                    sellerIds[seller++] = sellerId(line);
+                }
+            }
+        }
+        this.distinctSellerCount = sortDistinct(sellerIds);
+        int distinctCategoryCount = sortDistinct(categoryIds);
+
+        int groupCount = distinctSellerCount + distinctCategoryCount;
+        this.groupKeys = groupCount == 0 ? NO_INTS : new int[groupCount];
+        this.groupSubtotals = groupCount == 0 ? NO_LONGS : new long[groupCount];
+        System.arraycopy(sellerIds, 0, groupKeys, 0, distinctSellerCount);
+        System.arraycopy(categoryIds, 0, groupKeys, distinctSellerCount, distinctCategoryCount);
+        for (int line = 0; line < lineCount; line++) {
+            if (parent(line) == NO_PARENT) {
+                long subtotal = Money.times(pricesInCents[line], quantity(line));
+                groupSubtotals[Arrays.binarySearch(groupKeys, distinctSellerCount, groupCount, categoryId(line))] += subtotal;
+                if (type(line) != ItemType.VAS_ITEM) {
+                    groupSubtotals[Arrays.binarySearch(groupKeys, 0, distinctSellerCount, sellerId(line))] += subtotal;
+                }
+            }
+        }
+    }
+
+    public static CompactCart empty(int id) {
+        return new CompactCart(id, 0, 0, 0, 0, 0, null, null, 0, NO_INTS, NO_LONGS, NO_BYTES);
+    }
+
+    public static CompactCart of(Cart cart) {
+        int lineCount = 0;
+        for (Item item : cart.getItems()) {
+            lineCount += 1 + vasItems(item).size();
+        }
+        if (lineCount > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Cart " + cart.getId() + " has " + lineCount + " lines, more than a compact cart holds");
+        }
+
+        int[] intColumns = lineCount == 0 ? NO_INTS : new int[INT_COLUMN_COUNT * lineCount];
+        long[] pricesInCents = lineCount == 0 ? NO_LONGS : new long[lineCount];
+        byte[] byteColumns = lineCount == 0 ? NO_BYTES : new byte[BYTE_COLUMN_COUNT * lineCount];
+
+        int line = 0;
+        for (Item item : cart.getItems()) {
+            int parent = line;
+            putLine(item, NO_PARENT, line++, lineCount, intColumns, pricesInCents, byteColumns);
+            for (VasItem vasItem : vasItems(item)) {
+                putLine(vasItem, parent, line++, lineCount, intColumns, pricesInCents, byteColumns);
+            }
+        }
+
+        return new CompactCart(cart.getId(), cart.getVersion(), cart.getItemCount(), cart.getUniqueItemCount(),
+                cart.getTotalPriceInCents(), cart.getTotalDiscountInCents(), cart.getAppliedPromotionId(), cart.isDigitalItemCart(),
+                lineCount, intColumns, pricesInCents, byteColumns);
+    }
+
+    /**
+     * @return mutable copy of the cart
+     */
+    public Cart toCart() {
+        Cart cart = new Cart(id, items(), itemCount, uniqueItemCount, 0, getAppliedPromotionId(), 0, isDigitalItemCart());
+        cart.setTotalPriceInCents(totalPriceInCents);
+        cart.setTotalDiscountInCents(totalDiscountInCents);
+        cart.setVersion(version);
+        return cart;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items());
+    }
+
+    public int getLineCount() {
+        return cartLineCount;
+    }
+
+    public Item findItem(int itemId) {
+        int line = findLine(itemId);
+        return line < 0 ? null : toItem(line);
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    public Integer getUniqueItemCount() {
+        return uniqueItemCount;
+    }
+
+    public long getTotalPriceInCents() {
+        return totalPriceInCents;
+    }
+
+    public long getTotalDiscountInCents() {
+        return totalDiscountInCents;
+    }
+
+    public Integer getAppliedPromotionId() {
+        return appliedPromotionId != NO_PROMOTION ? appliedPromotionId : null;
+    }
+
+    public Boolean isDigitalItemCart() {
+        return digitalItemCart == UNKNOWN_CART_TYPE ? null : digitalItemCart == 1;
+    }
+
+    public int getDistinctSellerCount() {
+        return distinctSellerCount;
+    }
+
+    public long getSellerSubtotalInCents(int sellerId) {
+        int group = Arrays.binarySearch(groupKeys, 0, distinctSellerCount, sellerId);
+        return group < 0 ? 0 : groupSubtotals[group];
+    }
+
+    public long getCategorySubtotalInCents(int categoryId) {
+        int group = Arrays.binarySearch(groupKeys, distinctSellerCount, groupKeys.length, categoryId);
+        return group < 0 ? 0 : groupSubtotals[group];
+    }
+
+    public int getNonVasItemCount() {
+        return nonVasItemCount;
+    }
+
+    /**
+     * @return number of lines, the cart lines and the VAS items attached to default items
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return index of the cart line with the item, or -1 when the cart does not contain it
+     */
+    public int findLine(int itemId) {
+        for (int line = 0; line < lineCount; line++) {
+            if (itemId(line) == itemId && parent(line) == NO_PARENT) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    public int itemId(int line) {
+        return intColumns[ITEM_ID_COLUMN * lineCount + line];
+    }
+
+    public int categoryId(int line) {
+        return intColumns[CATEGORY_ID_COLUMN * lineCount + line];
+    }
+
+    public int sellerId(int line) {
+        return intColumns[SELLER_ID_COLUMN * lineCount + line];
+    }
+
+    public long priceInCents(int line) {
+        return pricesInCents[line];
+    }
+
+    public int quantity(int line) {
+        return intColumns[QUANTITY_COLUMN * lineCount + line];
+    }
+
+    public ItemType type(int line) {
+        return ITEM_TYPES[byteColumns[TYPE_COLUMN * lineCount + line]];
+    }
+
+    /**
+     * @return index of the default item line the VAS item line is attached to, {@link #NO_PARENT} for a cart line
+     */
+    public int parent(int line) {
+        return byteColumns[PARENT_COLUMN * lineCount + line];
+    }
+
+    private List<Item> items() {
+        List<Item> items = new ArrayList<>(lineCount);
+        for (int line = 0; line < lineCount; line++) {
+            if (parent(line) == NO_PARENT) {
+                items.add(toItem(line));
+            }
+        }
+        return items;
+    }
+
+    private Item toItem(int line) {
+        ItemType type = type(line);
+        Item item = switch (type) {
+            case DEFAULT_ITEM -> new DefaultItem(itemId(line), categoryId(line), sellerId(line), 0, quantity(line));
+            case VAS_ITEM -> new VasItem(itemId(line), categoryId(line), sellerId(line), 0, quantity(line));
+            case DIGITAL_ITEM -> new DigitalItem(itemId(line), categoryId(line), sellerId(line), 0, quantity(line));
+        };
+        item.setPriceInCents(pricesInCents[line]);
+
+        if (item instanceof DefaultItem defaultItem) {
+            for (int attached = line + 1; attached < lineCount && parent(attached) == line; attached++) {
+                defaultItem.getVasItems().add((VasItem) toItem(attached));
+            }
+        }
+        return item;
+    }
+
+    private static void putLine(Item item, int parent, int line, int lineCount, int[] intColumns, long[] pricesInCents, byte[] byteColumns) {
+        intColumns[ITEM_ID_COLUMN * lineCount + line] = item.getItemId();
+        intColumns[CATEGORY_ID_COLUMN * lineCount + line] = item.getCategoryId();
+        intColumns[SELLER_ID_COLUMN * lineCount + line] = item.getSellerId();
+        intColumns[QUANTITY_COLUMN * lineCount + line] = item.getQuantity();
+        pricesInCents[line] = item.getPriceInCents();
+        byteColumns[TYPE_COLUMN * lineCount + line] = (byte) typeOf(item).ordinal();
+        byteColumns[PARENT_COLUMN * lineCount + line] = (byte) parent;
+    }
+
+    /**
+     * Sorts the values and moves the distinct ones to the front.
+     *
+     * @return number of distinct values
+     */
+    private static int sortDistinct(int[] values) {
+        Arrays.sort(values);
+        int distinct = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (distinct == 0 || values[distinct - 1] != values[i]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct;
+    }
+
+    private static int[] concat(int[]... columns) {
+        int length = columns[0].length;
+        int[] values = new int[columns.length * length];
+        for (int i = 0; i < columns.length; i++) {
+            System.arraycopy(columns[i], 0, values, i * length, length);
+        }
+        return values;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] values = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, values, first.length, second.length);
+        return values;
+    }
+
+    private static ItemType typeOf(Item item) {
+        if (item.getType() != null) {
+            return item.getType();
+        }
+        // Items built without a type are typed by their class
+        if (item instanceof VasItem) {
+            return ItemType.VAS_ITEM;
+        }
+        return item instanceof DigitalItem ? ItemType.DIGITAL_ITEM : ItemType.DEFAULT_ITEM;
+    }
+
+    private static List<VasItem> vasItems(Item item) {
+        if (item instanceof DefaultItem defaultItem && defaultItem.getVasItems() != null) {
+            return defaultItem.getVasItems();
+        }
+        return List.of();
+    }
+
+    @Override
+    public String toString() {
+        return "CompactCart{" +
+                "id=" + id +
+                ", items=" + getItems() +
+                ", itemCount=" + itemCount +
+                ", uniqueItemCount=" + uniqueItemCount +
+                ", totalPrice=" + getTotalPrice() +
+                ", appliedPromotionId=" + getAppliedPromotionId() +
+                ", totalDiscount=" + getTotalDiscount() +
+                ", isDigitalItemCart=" + isDigitalItemCart() +
+                ", version=" + version +
+                '}';
+    }
+}
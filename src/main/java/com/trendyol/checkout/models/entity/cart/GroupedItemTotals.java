@@ -0,0 +1,125 @@
+package com.trendyol.checkout.models.entity.cart;
+
+import java.util.Arrays;
+
+/**
+ * Running line count and subtotal in cents of cart items grouped by an int key such as the seller or
+ * category id. Backed by a linear probing table of primitive arrays. Groups whose line count
+ * drops to zero keep their slot, a cart only ever sees a handful of distinct keys.
+ */
+final class GroupedItemTotals {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private boolean[] used;
+    private int[] lineCounts;
+    private long[] subtotals;
+    private int mask;
+    private int usedSlots;
+    private int nonEmptyGroupCount;
+
+    GroupedItemTotals() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    void add(int key, int lineCountDelta, long subtotalDelta) {
+        int slot = findOrInsert(key);
+        int oldLineCount = lineCounts[slot];
+
+        lineCounts[slot] += lineCountDelta;
+        subtotals[slot] += subtotalDelta;
+
+        if (oldLineCount == 0 && lineCounts[slot] > 0) {
+            nonEmptyGroupCount++;
+        } else if (oldLineCount > 0 && lineCounts[slot] == 0) {
+            nonEmptyGroupCount--;
+            subtotals[slot] = 0;
+        }
+    }
+
+    int lineCount(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : lineCounts[slot];
+    }
+
+    long subtotal(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : subtotals[slot];
+    }
+
+    /**
+     * @return number of keys that currently have at least one line
+     */
+    int nonEmptyGroupCount() {
+        return nonEmptyGroupCount;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(lineCounts, 0);
+        Arrays.fill(subtotals, 0);
+        usedSlots = 0;
+        nonEmptyGroupCount = 0;
+    }
+
+    private int find(int key) {
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int findOrInsert(int key) {
+        if ((usedSlots + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        int slot = slotOf(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        used[slot] = true;
+        keys[slot] = key;
+        usedSlots++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        int[] oldLineCounts = lineCounts;
+        long[] oldSubtotals = subtotals;
+
+        allocate(oldKeys.length * 2);
+        usedSlots = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            // Empty groups are dropped while rehashing
+            if (oldUsed[i] && oldLineCounts[i] > 0) {
+                int slot = findOrInsert(oldKeys[i]);
+                lineCounts[slot] = oldLineCounts[i];
+                subtotals[slot] = oldSubtotals[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        lineCounts = new int[capacity];
+        subtotals = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slotOf(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
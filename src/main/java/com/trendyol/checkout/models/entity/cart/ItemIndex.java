@@ -0,0 +1,123 @@
+package com.trendyol.checkout.models.entity.cart;
+
+import com.trendyol.checkout.models.entity.item.Item;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from item id to the item of a cart. Keys are kept as primitive ints and
+ * collisions are resolved by linear probing, so lookups neither box the id nor allocate.
+ * Removal shifts the following entries back instead of leaving tombstones.
+ */
+final class ItemIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private Item[] values;
+    private int mask;
+    private int size;
+
+    ItemIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    Item get(int itemId) {
+        int slot = slotOf(itemId);
+        while (values[slot] != null) {
+            if (keys[slot] == itemId) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(int itemId, Item item) {
+        if ((size + 1) * 2 > values.length) {
+            grow();
+        }
+
+        int slot = slotOf(itemId);
+        while (values[slot] != null) {
+            if (keys[slot] == itemId) {
+                values[slot] = item;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = itemId;
+        values[slot] = item;
+        size++;
+    }
+
+    Item remove(int itemId) {
+        int slot = slotOf(itemId);
+        while (values[slot] != null) {
+            if (keys[slot] == itemId) {
+                Item removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void shiftBack(int freeSlot) {
+        int slot = freeSlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                break;
+            }
+
+            // An entry may only move back if the free slot lies between its home slot and its current slot
+            int home = slotOf(keys[slot]);
+            boolean canMove = freeSlot <= slot
+                    ? (home <= freeSlot || home > slot)
+                    : (home <= freeSlot && home > slot);
+
+            if (canMove) {
+                keys[freeSlot] = keys[slot];
+                values[freeSlot] = values[slot];
+                freeSlot = slot;
+            }
+        }
+        values[freeSlot] = null;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Item[] oldValues = values;
+
+        allocate(oldValues.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Item[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slotOf(int itemId) {
+        int hash = itemId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -29,6 +29,20 @@ public class DefaultItem extends Item {
         this.vasItems = vasItems;
     }
 
+    @Override
+    public DefaultItem copy() {
+        List<VasItem> copiedVasItems = new ArrayList<>();
+        if (vasItems != null) {
+            for (VasItem vasItem : vasItems) {
+                copiedVasItems.add(vasItem.copy());
+            }
+        }
+
+        DefaultItem copiedItem = new DefaultItem(this);
+        copiedItem.setVasItems(copiedVasItems);
+        return copiedItem;
+    }
+
     public List<VasItem> getVasItems() {
         return vasItems;
     }
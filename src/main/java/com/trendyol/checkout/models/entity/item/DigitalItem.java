@@ -17,4 +17,9 @@ public class DigitalItem extends Item {
     public DigitalItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
         super(itemId, categoryId, sellerId, price, quantity, ItemType.DIGITAL_ITEM);
     }
+
+    @Override
+    public DigitalItem copy() {
+        return new DigitalItem(this);
+    }
 }
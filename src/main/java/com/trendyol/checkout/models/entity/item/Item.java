@@ -1,5 +1,7 @@
 package com.trendyol.checkout.models.entity.item;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.trendyol.checkout.money.Money;
 import lombok.experimental.SuperBuilder;
 
 @SuperBuilder
@@ -7,7 +9,7 @@ public abstract class Item {
     private int itemId;
     private int categoryId;
     private int sellerId;
-    private double price;
+    private long priceInCents;
     private int quantity;
     private ItemType type;
 
@@ -18,7 +20,7 @@ public abstract class Item {
         this.itemId = itemId;
         this.categoryId = categoryId;
         this.sellerId = sellerId;
-        this.price = price;
+        this.priceInCents = Money.ofUnits(price);
         this.quantity = quantity;
         this.type = type;
     }
@@ -27,7 +29,7 @@ public abstract class Item {
         this.itemId = copiedItem.itemId;
         this.categoryId = copiedItem.categoryId;
         this.sellerId = copiedItem.sellerId;
-        this.price = copiedItem.price;
+        this.priceInCents = copiedItem.priceInCents;
         this.quantity = copiedItem.quantity;
         this.type = copiedItem.type;
     }
@@ -57,11 +59,20 @@ public abstract class Item {
     }
 
     public double getPrice() {
-        return price;
+        return Money.toUnits(priceInCents);
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        this.priceInCents = Money.ofUnits(price);
+    }
+
+    @JsonIgnore
+    public long getPriceInCents() {
+        return priceInCents;
+    }
+
+    public void setPriceInCents(long priceInCents) {
+        this.priceInCents = priceInCents;
     }
 
     public int getQuantity() {
@@ -72,6 +83,8 @@ public abstract class Item {
         this.quantity = quantity;
     }
 
+    public abstract Item copy();
+
     public ItemType getType() {
         return type;
     }
@@ -86,9 +99,15 @@ public abstract class Item {
                 "itemId=" + itemId +
                 ", categoryId=" + categoryId +
                 ", sellerId=" + sellerId +
-                ", price=" + price +
+                ", price=" + getPrice() +
                 ", quantity=" + quantity +
                 ", type=" + type +
                 '}';
     }
+
+    public static abstract class ItemBuilder<C extends Item, B extends ItemBuilder<C, B>> {
+        public B price(double price) {
+            return priceInCents(Money.ofUnits(price));
+        }
+    }
 }
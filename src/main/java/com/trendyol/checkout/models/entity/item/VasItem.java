@@ -31,4 +31,9 @@ public class VasItem extends Item {
     public VasItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
         super(itemId, categoryId, sellerId, price, quantity, ItemType.VAS_ITEM);
     }
+
+    @Override
+    public VasItem copy() {
+        return new VasItem(this);
+    }
 }
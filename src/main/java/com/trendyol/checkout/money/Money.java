@@ -0,0 +1,36 @@
+package com.trendyol.checkout.money;
+
+/**
+ * Amounts are kept as a {@code long} number of cents, so sums are exact and no wrapper objects
+ * are created. {@code double} amounts only appear at the edges, in requests and JSON responses.
+ */
+public final class Money {
+    public static final long CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    public static long ofUnits(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    public static long ofUnits(long amount) {
+        return Math.multiplyExact(amount, CENTS_PER_UNIT);
+    }
+
+    public static double toUnits(long cents) {
+        return (double) cents / CENTS_PER_UNIT;
+    }
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, (long) quantity);
+    }
+
+    /**
+     * @return the given percentage of the amount, rounded half up to the nearest cent
+     */
+    public static long percentage(long cents, int percent) {
+        long scaled = Math.multiplyExact(cents, (long) percent);
+        return Math.floorDiv(scaled + 50, 100);
+    }
+}
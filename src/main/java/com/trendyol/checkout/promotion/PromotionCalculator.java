@@ -1,90 +1,94 @@
 package com.trendyol.checkout.promotion;
 
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CartView;
 import com.trendyol.checkout.models.entity.item.Item;
-import com.trendyol.checkout.models.entity.item.ItemType;
+import com.trendyol.checkout.promotion.rule.CompiledPromotionPlan;
+import com.trendyol.checkout.promotion.rule.OverTotalPolicy;
+import com.trendyol.checkout.promotion.rule.PromotionRuleDefinition;
+import com.trendyol.checkout.promotion.rule.PromotionRuleLoader;
+import com.trendyol.checkout.promotion.rule.PromotionRuleSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.List;
 
+/**
+ * Applies the best promotion of the configured rules. When the rules form more than one
+ * exclusivity group, or the policy lets a combination be cut down to fit the cart total, the
+ * evaluation is delegated to {@link PromotionSolver}.
+ */
 @Component
 public class PromotionCalculator {
-    private final int SAME_SELLER_PROMOTION_ID = 9909;
-    private final int SAME_SELLER_PROMOTION_DISCOUNT_PERCENTAGE = 10;
+    private static final String DEFAULT_RULES_LOCATION = "promotions.json";
+    private static final int DEFAULT_MAX_NODES = 4096;
 
-    private final int CATEGORY_PROMOTION_ID = 5676;
-    private final int CATEGORY_PROMOTION_APPLIED_FOR_CATEGORY_ID = 3003;
-    private final int CATEGORY_PROMOTION_DISCOUNT_PERCENTAGE = 5;
+    private final CompiledPromotionPlan plan;
+    private final PromotionSolver solver;
 
-    private final int TOTAL_PRICE_PROMOTION_ID = 1232;
-    private final List<Integer> TOTAL_PRICE_PROMOTION_THRESHOLDS = List.of(5000, 10_000, 50_000);
-    private final List<Integer> TOTAL_PRICE_PROMOTION_DISCOUNTS = List.of(250, 500, 1000, 2000);
+    public PromotionCalculator() {
+        this(PromotionRuleLoader.load(new ClassPathResource(DEFAULT_RULES_LOCATION)), DEFAULT_MAX_NODES);
+    }
 
-    public HashMap<String, Number> calculateMaxPromotion(List<Item> cartItems, double totalCartPrice) {
-        double maxPromotion = 0;
-        Integer idMaxPromotion = null;
+    @Autowired
+    public PromotionCalculator(@Value("${checkout.promotion.rules-location:classpath:promotions.json}") Resource rulesLocation,
+                               @Value("${checkout.promotion.solver.max-nodes:4096}") int maxNodes) {
+        this(PromotionRuleLoader.load(rulesLocation), maxNodes);
+    }
 
-        double sameSellerDiscount = calculateSameSellerPromotion(cartItems, totalCartPrice);
-        double categoryDiscount = calculateCategoryPromotion(cartItems);
-        double totalPriceDiscount = calculateTotalPricePromotion(totalCartPrice);
+    public PromotionCalculator(List<PromotionRuleDefinition> rules) {
+        this(new PromotionRuleSet(OverTotalPolicy.NO_PROMOTION, rules), DEFAULT_MAX_NODES);
+    }
 
-        if (sameSellerDiscount > maxPromotion) {
-            maxPromotion = sameSellerDiscount;
-            idMaxPromotion = SAME_SELLER_PROMOTION_ID;
-        }
-        if (categoryDiscount > maxPromotion) {
-            maxPromotion = categoryDiscount;
-            idMaxPromotion = CATEGORY_PROMOTION_ID;
-        }
-        if (totalPriceDiscount > maxPromotion) {
-            maxPromotion = totalPriceDiscount;
-            idMaxPromotion = TOTAL_PRICE_PROMOTION_ID;
-        }
-        if (maxPromotion > totalCartPrice) {
-            maxPromotion = 0;
-            idMaxPromotion = null;
-        }
+    public PromotionCalculator(PromotionRuleSet ruleSet, int maxNodes) {
+        this.plan = CompiledPromotionPlan.compile(ruleSet.getRules());
+        boolean singleChoice = plan.groupCount() <= 1 && ruleSet.getOverTotalPolicy() == OverTotalPolicy.NO_PROMOTION;
+        this.solver = singleChoice ? null : new PromotionSolver(ruleSet, maxNodes);
+    }
 
-        HashMap<String, Number> bestPromotion = new HashMap<>();
-        bestPromotion.put("discount", maxPromotion);
-        bestPromotion.put("promotionId", idMaxPromotion);
+    public PromotionResult calculateMaxPromotion(List<Item> cartItems, double totalCartPrice) {
+        // Building the cart computes the aggregates the plan reads in a single pass over the items
+        Cart cart = new Cart(cartItems, 0, 0, totalCartPrice, null, 0, false);
+        return calculateMaxPromotion(cart);
+    }
 
-        return bestPromotion;
+    public PromotionResult calculateMaxPromotion(CartView cart) {
+        PromotionResult result = new PromotionResult();
+        calculateMaxPromotion(cart, result);
+        return result;
     }
 
-    private double calculateSameSellerPromotion(List<Item> cartItems, double totalCartPrice) {
-        if (cartItems.size() > 1 && allItemsFromSameSeller(cartItems) ) {
-            return totalCartPrice * (SAME_SELLER_PROMOTION_DISCOUNT_PERCENTAGE / 100.0);
-        } else {
-            return 0.0;
+    /**
+     * Evaluates the promotions from the aggregates the cart keeps up to date on every mutation,
+     * the cost does not depend on the number of items in the cart. The outcome is written to
+     * {@code result}, nothing is allocated once the result has been filled before.
+     */
+    public void calculateMaxPromotion(CartView cart, PromotionResult result) {
+        if (solver != null) {
+            PromotionCombination combination = result.combination();
+            solver.solve(cart, combination);
+            result.apply(combination);
+            return;
         }
-    }
 
-    private double calculateCategoryPromotion(List<Item> cartItems) {
-        return  cartItems.stream()
-                .filter(i -> i.getCategoryId() == CATEGORY_PROMOTION_APPLIED_FOR_CATEGORY_ID)
-                .map(i -> i.getPrice() * i.getQuantity())
-                .reduce(0.0, (subtotal, element) -> subtotal + element * (CATEGORY_PROMOTION_DISCOUNT_PERCENTAGE / 100.0));
-    }
+        long maxPromotion = 0;
+        int idMaxPromotion = 0;
 
-    private double calculateTotalPricePromotion(double totalCartPrice) {
-        for (int i = TOTAL_PRICE_PROMOTION_THRESHOLDS.size() - 1; i >= 0; i--) {
-            if (totalCartPrice >= TOTAL_PRICE_PROMOTION_THRESHOLDS.get(i)) {
-                return TOTAL_PRICE_PROMOTION_DISCOUNTS.get(i + 1);
+        for (int rule = 0; rule < plan.size(); rule++) {
+            long discount = plan.discountInCents(rule, cart);
+            if (discount > maxPromotion) {
+                maxPromotion = discount;
+                idMaxPromotion = plan.promotionId(rule);
             }
         }
-        return TOTAL_PRICE_PROMOTION_DISCOUNTS.get(0);
-    }
-
-    private boolean allItemsFromSameSeller(List<Item> cartItems) {
-        List<Item> nonVasItems = cartItems.stream()
-                .filter(i -> i.getType() != ItemType.VAS_ITEM)
-                .toList();
 
-        if (nonVasItems.isEmpty()) {
-            return false;
+        if (maxPromotion == 0 || maxPromotion > cart.getTotalPriceInCents()) {
+            result.clear();
+        } else {
+            result.apply(idMaxPromotion, maxPromotion);
         }
-        return nonVasItems.stream().allMatch(i -> i.getSellerId() == nonVasItems.get(0).getSellerId());
     }
-
 }
@@ -0,0 +1,83 @@
+package com.trendyol.checkout.promotion;
+
+import com.trendyol.checkout.money.Money;
+
+import java.util.Arrays;
+
+/**
+ * Set of promotions chosen by {@link PromotionSolver}. Like {@link PromotionResult} it is mutable,
+ * so a caller can keep one around and let the solver fill it on every evaluation.
+ */
+public final class PromotionCombination {
+    private int[] promotionIds = new int[4];
+    private int size;
+    private long discountInCents;
+    private long upperBoundInCents;
+    private boolean optimal;
+
+    void clear() {
+        this.size = 0;
+        this.discountInCents = 0;
+        this.upperBoundInCents = 0;
+        this.optimal = true;
+    }
+
+    void add(int promotionId, long discountInCents) {
+        if (size == promotionIds.length) {
+            promotionIds = Arrays.copyOf(promotionIds, size * 2);
+        }
+        promotionIds[size++] = promotionId;
+        this.discountInCents += discountInCents;
+    }
+
+    void complete(boolean optimal, long upperBoundInCents) {
+        this.optimal = optimal;
+        this.upperBoundInCents = Math.max(upperBoundInCents, discountInCents);
+    }
+
+    public boolean hasPromotion() {
+        return size > 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPromotionId(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return promotionIds[index];
+    }
+
+    public long getDiscountInCents() {
+        return discountInCents;
+    }
+
+    public double getDiscount() {
+        return Money.toUnits(discountInCents);
+    }
+
+    /**
+     * @return false when the search budget ran out before the combination was proven to be the best one
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return no combination grants a higher discount than this
+     */
+    public long getUpperBoundInCents() {
+        return upperBoundInCents;
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionCombination{" +
+                "promotionIds=" + Arrays.toString(Arrays.copyOf(promotionIds, size)) +
+                ", discount=" + getDiscount() +
+                ", optimal=" + optimal +
+                '}';
+    }
+}
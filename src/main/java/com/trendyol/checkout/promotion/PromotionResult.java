@@ -0,0 +1,84 @@
+package com.trendyol.checkout.promotion;
+
+import com.trendyol.checkout.money.Money;
+
+/**
+ * Outcome of a promotion evaluation. Instances are mutable so that a caller can keep one around
+ * and let {@link PromotionCalculator} fill it on every evaluation instead of allocating.
+ * <p>
+ * When several promotions are stacked the discount is their sum and the promotion id is the one
+ * of the first promotion in configuration order, {@link #getPromotionCount()} tells how many apply.
+ */
+public final class PromotionResult {
+    private boolean applied;
+    private int promotionId;
+    private int promotionCount;
+    private long discountInCents;
+    private PromotionCombination combination;
+
+    public void apply(int promotionId, long discountInCents) {
+        this.applied = true;
+        this.promotionId = promotionId;
+        this.promotionCount = 1;
+        this.discountInCents = discountInCents;
+    }
+
+    void apply(PromotionCombination combination) {
+        if (combination.hasPromotion()) {
+            this.applied = true;
+            this.promotionId = combination.getPromotionId(0);
+            this.promotionCount = combination.size();
+            this.discountInCents = combination.getDiscountInCents();
+        } else {
+            clear();
+        }
+    }
+
+    public void clear() {
+        this.applied = false;
+        this.promotionId = 0;
+        this.promotionCount = 0;
+        this.discountInCents = 0;
+    }
+
+    /**
+     * @return scratch combination for the solver, kept with the result so it is reused with it
+     */
+    PromotionCombination combination() {
+        if (combination == null) {
+            combination = new PromotionCombination();
+        }
+        return combination;
+    }
+
+    public boolean hasPromotion() {
+        return applied;
+    }
+
+    /**
+     * Only meaningful when {@link #hasPromotion()} is true.
+     */
+    public int getPromotionId() {
+        return promotionId;
+    }
+
+    public int getPromotionCount() {
+        return promotionCount;
+    }
+
+    public long getDiscountInCents() {
+        return discountInCents;
+    }
+
+    public double getDiscount() {
+        return Money.toUnits(discountInCents);
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionResult{" +
+                "promotionId=" + (applied ? promotionId : null) +
+                ", discount=" + getDiscount() +
+                '}';
+    }
+}
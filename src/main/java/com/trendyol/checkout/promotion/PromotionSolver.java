@@ -0,0 +1,257 @@
+package com.trendyol.checkout.promotion;
+
+import com.trendyol.checkout.models.entity.cart.CartView;
+import com.trendyol.checkout.promotion.rule.CompiledPromotionPlan;
+import com.trendyol.checkout.promotion.rule.OverTotalPolicy;
+import com.trendyol.checkout.promotion.rule.PromotionRuleLoader;
+import com.trendyol.checkout.promotion.rule.PromotionRuleSet;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds the combination of stackable promotions with the highest total discount. At most one rule
+ * of every exclusivity group is applied and, depending on the {@link OverTotalPolicy}, the total
+ * discount may not exceed the cart total.
+ * <p>
+ * Rules sharing a single group reproduce {@link PromotionCalculator}: the best rule wins and ties
+ * go to the rule listed first.
+ * <p>
+ * Fitting the discounts under the cart total is a multiple choice knapsack, solved by a depth
+ * first branch and bound over the groups. Rules of a group are tried from the highest discount
+ * down and a branch is cut as soon as the best remaining rule of every later group cannot beat the
+ * best combination found. The search starts from a greedy combination and visits at most
+ * {@code maxNodes} nodes, when the budget runs out the best combination found so far is returned
+ * together with an upper bound.
+ * <p>
+ * {@link PromotionCalculator} delegates to the solver when its rules need it, the solver is not a
+ * bean of its own.
+ */
+public class PromotionSolver {
+    private static final String DEFAULT_RULES_LOCATION = "promotions.json";
+    private static final int DEFAULT_MAX_NODES = 4096;
+    private static final int NONE = -1;
+    private static final int WORKSPACE_SLOTS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 4;
+
+    private final CompiledPromotionPlan plan;
+    private final OverTotalPolicy overTotalPolicy;
+    private final int maxNodes;
+    private final int[] groupStarts;
+    private final int[] rulesByGroup;
+    // Pooled rather than per thread, with virtual threads every request would get a new one
+    private final AtomicReferenceArray<Workspace> workspaces = new AtomicReferenceArray<>(WORKSPACE_SLOTS);
+
+    public PromotionSolver() {
+        this(PromotionRuleLoader.load(new ClassPathResource(DEFAULT_RULES_LOCATION)), DEFAULT_MAX_NODES);
+    }
+
+    public PromotionSolver(PromotionRuleSet ruleSet, int maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("Max nodes must be positive: " + maxNodes);
+        }
+        this.plan = CompiledPromotionPlan.compile(ruleSet.getRules());
+        this.overTotalPolicy = ruleSet.getOverTotalPolicy();
+        this.maxNodes = maxNodes;
+
+        // Bucket the rules by group once, keeping the configuration order inside a group
+        int groupCount = plan.groupCount();
+        this.groupStarts = new int[groupCount + 1];
+        for (int rule = 0; rule < plan.size(); rule++) {
+            groupStarts[plan.group(rule) + 1]++;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            groupStarts[g + 1] += groupStarts[g];
+        }
+        this.rulesByGroup = new int[plan.size()];
+        int[] next = groupStarts.clone();
+        for (int rule = 0; rule < plan.size(); rule++) {
+            rulesByGroup[next[plan.group(rule)]++] = rule;
+        }
+    }
+
+    public PromotionCombination solve(CartView cart) {
+        PromotionCombination result = new PromotionCombination();
+        solve(cart, result);
+        return result;
+    }
+
+    public void solve(CartView cart, PromotionCombination result) {
+        int slot = (int) Thread.currentThread().getId() & (WORKSPACE_SLOTS - 1);
+        Workspace ws = workspaces.getAndSet(slot, null);
+        if (ws == null) {
+            ws = new Workspace(plan.size(), plan.groupCount());
+        }
+        try {
+            solve(cart, result, ws);
+        } finally {
+            workspaces.compareAndSet(slot, null, ws);
+        }
+    }
+
+    private void solve(CartView cart, PromotionCombination result, Workspace ws) {
+        long capacity = cart.getTotalPriceInCents();
+        result.clear();
+
+        rankCandidates(cart, ws, overTotalPolicy == OverTotalPolicy.BEST_WITHIN_TOTAL ? capacity : Long.MAX_VALUE);
+
+        long unconstrainedBest = ws.remainingMax[0];
+        if (unconstrainedBest == 0) {
+            return;
+        }
+        if (unconstrainedBest <= capacity) {
+            takeGroupBests(ws, 0);
+            write(ws, result);
+            result.complete(true, unconstrainedBest);
+            return;
+        }
+        if (overTotalPolicy == OverTotalPolicy.NO_PROMOTION) {
+            return;
+        }
+
+        seedGreedily(ws, capacity);
+        ws.nodes = 0;
+        ws.exhausted = false;
+        search(ws, 0, 0, capacity);
+
+        write(ws, result);
+        result.complete(!ws.exhausted, ws.exhausted ? capacity : ws.bestDiscount);
+    }
+
+    /**
+     * Computes every rule's discount, orders the applicable rules of each group from the highest
+     * discount down and sums the best discount of every group from the last group backwards.
+     */
+    private void rankCandidates(CartView cart, Workspace ws, long capacity) {
+        int groupCount = plan.groupCount();
+
+        for (int g = 0; g < groupCount; g++) {
+            int size = 0;
+            for (int i = groupStarts[g]; i < groupStarts[g + 1]; i++) {
+                int rule = rulesByGroup[i];
+                long discount = plan.discountInCents(rule, cart);
+                ws.discounts[rule] = discount;
+                if (discount <= 0 || discount > capacity) {
+                    continue;
+                }
+
+                // Insertion sort, stable so that equal discounts keep the configuration order
+                int at = groupStarts[g] + size++;
+                while (at > groupStarts[g] && ws.discounts[ws.candidates[at - 1]] < discount) {
+                    ws.candidates[at] = ws.candidates[at - 1];
+                    at--;
+                }
+                ws.candidates[at] = rule;
+            }
+            ws.candidateCounts[g] = size;
+        }
+
+        ws.remainingMax[groupCount] = 0;
+        for (int g = groupCount - 1; g >= 0; g--) {
+            long groupBest = ws.candidateCounts[g] == 0 ? 0 : ws.discounts[ws.candidates[groupStarts[g]]];
+            ws.remainingMax[g] = ws.remainingMax[g + 1] + groupBest;
+        }
+    }
+
+    /**
+     * Takes the best rule that still fits from every group in turn. This gives the search a bound to
+     * prune against and is what remains when the node budget runs out right away.
+     */
+    private void seedGreedily(Workspace ws, long capacity) {
+        long discount = 0;
+        for (int g = 0; g < plan.groupCount(); g++) {
+            ws.bestChosen[g] = NONE;
+            int start = groupStarts[g];
+            for (int i = start; i < start + ws.candidateCounts[g]; i++) {
+                int rule = ws.candidates[i];
+                if (discount + ws.discounts[rule] <= capacity) {
+                    ws.bestChosen[g] = rule;
+                    discount += ws.discounts[rule];
+                    break;
+                }
+            }
+        }
+        ws.bestDiscount = discount;
+    }
+
+    private void search(Workspace ws, int group, long discount, long capacity) {
+        if (ws.nodes++ >= maxNodes) {
+            ws.exhausted = true;
+            return;
+        }
+
+        if (discount > ws.bestDiscount) {
+            record(ws, group, discount);
+        }
+        if (group == plan.groupCount() || discount + ws.remainingMax[group] <= ws.bestDiscount) {
+            return;
+        }
+        if (discount + ws.remainingMax[group] <= capacity) {
+            // Every later group can take its best rule, nothing in this branch beats that
+            System.arraycopy(ws.chosen, 0, ws.bestChosen, 0, group);
+            takeGroupBests(ws, group);
+            ws.bestDiscount = discount + ws.remainingMax[group];
+            return;
+        }
+
+        int start = groupStarts[group];
+        for (int i = start; i < start + ws.candidateCounts[group]; i++) {
+            int rule = ws.candidates[i];
+            if (discount + ws.discounts[rule] <= capacity) {
+                ws.chosen[group] = rule;
+                search(ws, group + 1, discount + ws.discounts[rule], capacity);
+                if (ws.exhausted) {
+                    return;
+                }
+            }
+        }
+        ws.chosen[group] = NONE;
+        search(ws, group + 1, discount, capacity);
+    }
+
+    private void record(Workspace ws, int group, long discount) {
+        System.arraycopy(ws.chosen, 0, ws.bestChosen, 0, group);
+        for (int g = group; g < plan.groupCount(); g++) {
+            ws.bestChosen[g] = NONE;
+        }
+        ws.bestDiscount = discount;
+    }
+
+    private void takeGroupBests(Workspace ws, int fromGroup) {
+        for (int g = fromGroup; g < plan.groupCount(); g++) {
+            ws.bestChosen[g] = ws.candidateCounts[g] == 0 ? NONE : ws.candidates[groupStarts[g]];
+        }
+    }
+
+    private void write(Workspace ws, PromotionCombination result) {
+        for (int g = 0; g < plan.groupCount(); g++) {
+            int rule = ws.bestChosen[g];
+            if (rule != NONE) {
+                result.add(plan.promotionId(rule), ws.discounts[rule]);
+            }
+        }
+    }
+
+    /**
+     * Scratch space of one evaluation, sized for the plan so solving does not allocate.
+     */
+    private static final class Workspace {
+        private final long[] discounts;
+        private final int[] candidates;
+        private final int[] candidateCounts;
+        private final long[] remainingMax;
+        private final int[] chosen;
+        private final int[] bestChosen;
+        private long bestDiscount;
+        private int nodes;
+        private boolean exhausted;
+
+        private Workspace(int ruleCount, int groupCount) {
+            this.discounts = new long[ruleCount];
+            this.candidates = new int[ruleCount];
+            this.candidateCounts = new int[groupCount];
+            this.remainingMax = new long[groupCount + 1];
+            this.chosen = new int[groupCount];
+            this.bestChosen = new int[groupCount];
+        }
+    }
+}
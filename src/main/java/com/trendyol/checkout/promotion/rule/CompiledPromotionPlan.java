@@ -0,0 +1,176 @@
+package com.trendyol.checkout.promotion.rule;
+
+import com.trendyol.checkout.models.entity.cart.CartView;
+import com.trendyol.checkout.money.Money;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Promotion rules compiled once into flat arrays indexed by rule position. Evaluating a rule only
+ * reads the aggregates the cart keeps up to date, so it neither walks the items nor allocates.
+ * Rules keep the order of the configuration, which decides ties between equal discounts.
+ */
+public final class CompiledPromotionPlan {
+    private final int[] promotionIds;
+    private final PromotionRuleType[] types;
+    private final int[] keys;
+    private final boolean[] percentage;
+    private final long[] values;
+    private final long[][] tierThresholds;
+    private final long[][] tierValues;
+    private final int[] groups;
+    private int groupCount;
+
+    private CompiledPromotionPlan(int ruleCount) {
+        this.promotionIds = new int[ruleCount];
+        this.types = new PromotionRuleType[ruleCount];
+        this.keys = new int[ruleCount];
+        this.percentage = new boolean[ruleCount];
+        this.values = new long[ruleCount];
+        this.tierThresholds = new long[ruleCount][];
+        this.tierValues = new long[ruleCount][];
+        this.groups = new int[ruleCount];
+    }
+
+    public static CompiledPromotionPlan compile(List<PromotionRuleDefinition> rules) {
+        CompiledPromotionPlan plan = new CompiledPromotionPlan(rules.size());
+        Map<String, Integer> groupIndexes = new HashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            plan.compileRule(i, rules.get(i));
+
+            String group = rules.get(i).getExclusivityGroup();
+            plan.groups[i] = group == null
+                    ? plan.groupCount++
+                    : groupIndexes.computeIfAbsent(group, g -> plan.groupCount++);
+        }
+        return plan;
+    }
+
+    public int size() {
+        return promotionIds.length;
+    }
+
+    public int promotionId(int rule) {
+        return promotionIds[rule];
+    }
+
+    /**
+     * @return index of the exclusivity group of the rule, a rule without a group gets a group of its own
+     */
+    public int group(int rule) {
+        return groups[rule];
+    }
+
+    public int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * @return discount the rule grants to the cart, 0 when the rule does not apply
+     */
+    public long discountInCents(int rule, CartView cart) {
+        long totalPriceInCents = cart.getTotalPriceInCents();
+
+        switch (types[rule]) {
+            case SAME_SELLER:
+                return cart.getLineCount() > 1 && cart.getDistinctSellerCount() == 1
+                        ? benefit(rule, values[rule], totalPriceInCents)
+                        : 0;
+            case SELLER:
+                return benefit(rule, values[rule], cart.getSellerSubtotalInCents(keys[rule]));
+            case CATEGORY:
+                return benefit(rule, values[rule], cart.getCategorySubtotalInCents(keys[rule]));
+            case TOTAL_PRICE:
+                int tier = findTier(tierThresholds[rule], totalPriceInCents);
+                return tier < 0 ? 0 : benefit(rule, tierValues[rule][tier], totalPriceInCents);
+            default:
+                throw new IllegalStateException("Unknown promotion rule type " + types[rule]);
+        }
+    }
+
+    private long benefit(int rule, long value, long baseInCents) {
+        if (baseInCents <= 0) {
+            return 0;
+        }
+        return percentage[rule] ? Money.percentage(baseInCents, (int) value) : value;
+    }
+
+    /**
+     * @return index of the tier with the highest threshold not above the total, -1 when there is none
+     */
+    private static int findTier(long[] thresholds, long totalPriceInCents) {
+        int index = Arrays.binarySearch(thresholds, totalPriceInCents);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void compileRule(int i, PromotionRuleDefinition rule) {
+        if (rule.getType() == null || rule.getDiscountType() == null) {
+            throw new IllegalArgumentException("Promotion " + rule.getId() + " must define a type and a discount type");
+        }
+
+        promotionIds[i] = rule.getId();
+        types[i] = rule.getType();
+        percentage[i] = rule.getDiscountType() == DiscountType.PERCENTAGE;
+
+        switch (rule.getType()) {
+            case SAME_SELLER:
+                values[i] = compileValue(rule, rule.getValue());
+                break;
+            case SELLER:
+                keys[i] = requireKey(rule, rule.getSellerId(), "sellerId");
+                values[i] = compileValue(rule, rule.getValue());
+                break;
+            case CATEGORY:
+                keys[i] = requireKey(rule, rule.getCategoryId(), "categoryId");
+                values[i] = compileValue(rule, rule.getValue());
+                break;
+            case TOTAL_PRICE:
+                compileTiers(i, rule);
+                break;
+        }
+    }
+
+    private void compileTiers(int i, PromotionRuleDefinition rule) {
+        if (rule.getTiers() == null || rule.getTiers().isEmpty()) {
+            throw new IllegalArgumentException("Promotion " + rule.getId() + " must define at least one tier");
+        }
+
+        List<PromotionRuleDefinition.Tier> tiers = rule.getTiers().stream()
+                .sorted(Comparator.comparingDouble(PromotionRuleDefinition.Tier::getMinTotalPrice))
+                .toList();
+
+        tierThresholds[i] = new long[tiers.size()];
+        tierValues[i] = new long[tiers.size()];
+        for (int t = 0; t < tiers.size(); t++) {
+            tierThresholds[i][t] = Money.ofUnits(tiers.get(t).getMinTotalPrice());
+            tierValues[i][t] = compileValue(rule, tiers.get(t).getValue());
+            if (t > 0 && tierThresholds[i][t] == tierThresholds[i][t - 1]) {
+                throw new IllegalArgumentException("Promotion " + rule.getId() + " has two tiers starting at " + tiers.get(t).getMinTotalPrice());
+            }
+        }
+    }
+
+    private static long compileValue(PromotionRuleDefinition rule, double value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Promotion " + rule.getId() + " has a negative discount");
+        }
+        if (rule.getDiscountType() == DiscountType.PERCENTAGE) {
+            if (value != Math.rint(value) || value > 100) {
+                throw new IllegalArgumentException("Promotion " + rule.getId() + " percentage must be a whole number up to 100");
+            }
+            return (long) value;
+        }
+        return Money.ofUnits(value);
+    }
+
+    private static int requireKey(PromotionRuleDefinition rule, Integer key, String name) {
+        if (key == null) {
+            throw new IllegalArgumentException("Promotion " + rule.getId() + " must define " + name);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,6 @@
+package com.trendyol.checkout.promotion.rule;
+
+public enum DiscountType {
+    PERCENTAGE,
+    FIXED
+}
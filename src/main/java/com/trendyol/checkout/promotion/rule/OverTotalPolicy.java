@@ -0,0 +1,12 @@
+package com.trendyol.checkout.promotion.rule;
+
+public enum OverTotalPolicy {
+    /**
+     * When the best combination exceeds the cart total no promotion is applied
+     */
+    NO_PROMOTION,
+    /**
+     * The best combination whose discount does not exceed the cart total is applied
+     */
+    BEST_WITHIN_TOTAL
+}
@@ -0,0 +1,147 @@
+package com.trendyol.checkout.promotion.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A promotion as it is written in the promotion configuration file. Amounts are in currency units,
+ * percentages are whole numbers.
+ */
+public class PromotionRuleDefinition {
+    private int id;
+    private PromotionRuleType type;
+    private Integer sellerId;
+    private Integer categoryId;
+    private String exclusivityGroup;
+    private DiscountType discountType;
+    private double value;
+    private List<Tier> tiers = new ArrayList<>();
+
+    public PromotionRuleDefinition() {
+    }
+
+    public PromotionRuleDefinition(int id, PromotionRuleType type, Integer sellerId, Integer categoryId, DiscountType discountType, double value, List<Tier> tiers) {
+        this.id = id;
+        this.type = type;
+        this.sellerId = sellerId;
+        this.categoryId = categoryId;
+        this.discountType = discountType;
+        this.value = value;
+        this.tiers = tiers;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public PromotionRuleType getType() {
+        return type;
+    }
+
+    public void setType(PromotionRuleType type) {
+        this.type = type;
+    }
+
+    public Integer getSellerId() {
+        return sellerId;
+    }
+
+    public void setSellerId(Integer sellerId) {
+        this.sellerId = sellerId;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * Rules sharing a group are mutually exclusive, a rule without a group stacks with every other rule
+     */
+    public String getExclusivityGroup() {
+        return exclusivityGroup;
+    }
+
+    public void setExclusivityGroup(String exclusivityGroup) {
+        this.exclusivityGroup = exclusivityGroup;
+    }
+
+    public DiscountType getDiscountType() {
+        return discountType;
+    }
+
+    public void setDiscountType(DiscountType discountType) {
+        this.discountType = discountType;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    public List<Tier> getTiers() {
+        return tiers;
+    }
+
+    public void setTiers(List<Tier> tiers) {
+        this.tiers = tiers;
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionRuleDefinition{" +
+                "id=" + id +
+                ", type=" + type +
+                ", sellerId=" + sellerId +
+                ", categoryId=" + categoryId +
+                ", exclusivityGroup=" + exclusivityGroup +
+                ", discountType=" + discountType +
+                ", value=" + value +
+                ", tiers=" + tiers +
+                '}';
+    }
+
+    public static class Tier {
+        private double minTotalPrice;
+        private double value;
+
+        public Tier() {
+        }
+
+        public Tier(double minTotalPrice, double value) {
+            this.minTotalPrice = minTotalPrice;
+            this.value = value;
+        }
+
+        public double getMinTotalPrice() {
+            return minTotalPrice;
+        }
+
+        public void setMinTotalPrice(double minTotalPrice) {
+            this.minTotalPrice = minTotalPrice;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public void setValue(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "{minTotalPrice=" + minTotalPrice + ", value=" + value + '}';
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.trendyol.checkout.promotion.rule;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Reads promotion definitions from a JSON file of the form {@code {"overTotalPolicy": ..., "rules": [...]}}.
+ */
+public final class PromotionRuleLoader {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+
+    private PromotionRuleLoader() {
+    }
+
+    public static PromotionRuleSet load(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return MAPPER.readValue(in, PromotionRuleSet.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read promotion rules from " + resource.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.trendyol.checkout.promotion.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content of the promotion configuration file.
+ */
+public class PromotionRuleSet {
+    private OverTotalPolicy overTotalPolicy = OverTotalPolicy.NO_PROMOTION;
+    private List<PromotionRuleDefinition> rules = new ArrayList<>();
+
+    public PromotionRuleSet() {
+    }
+
+    public PromotionRuleSet(OverTotalPolicy overTotalPolicy, List<PromotionRuleDefinition> rules) {
+        this.overTotalPolicy = overTotalPolicy;
+        this.rules = rules;
+    }
+
+    public OverTotalPolicy getOverTotalPolicy() {
+        return overTotalPolicy;
+    }
+
+    public void setOverTotalPolicy(OverTotalPolicy overTotalPolicy) {
+        this.overTotalPolicy = overTotalPolicy;
+    }
+
+    public List<PromotionRuleDefinition> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<PromotionRuleDefinition> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,20 @@
+package com.trendyol.checkout.promotion.rule;
+
+public enum PromotionRuleType {
+    /**
+     * Cart has more than one line and every non VAS item comes from the same seller, applies to the cart total
+     */
+    SAME_SELLER,
+    /**
+     * Applies to the subtotal of the non VAS items of the given seller
+     */
+    SELLER,
+    /**
+     * Applies to the subtotal of the items of the given category
+     */
+    CATEGORY,
+    /**
+     * Applies to the cart total, the tier with the highest threshold not above the cart total is used
+     */
+    TOTAL_PRICE
+}
@@ -0,0 +1,114 @@
+package com.trendyol.checkout.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+
+/**
+ * Values kept for the most recently used carts, at most {@code capacity} of them however many carts
+ * are stored, so its heap does not grow with the cart population. Carts are spread over segments,
+ * each a map in access order under its own lock that drops its least recently used cart when full.
+ * A cart dropped from the cache is looked up as if it never had a value.
+ */
+class CartCache<V> {
+    private static final int MAX_SEGMENT_COUNT = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+
+    @SuppressWarnings("unchecked")
+    CartCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+
+        // A small cache is a single segment, so its least recently used cart is dropped first
+        int segmentCount = Math.min(MAX_SEGMENT_COUNT, Integer.highestOneBit(Math.max(1, capacity / MIN_SEGMENT_CAPACITY)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment<>(capacity / segmentCount);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    V get(int cartId) {
+        Segment<V> segment = segmentOf(cartId);
+        segment.lock.lock();
+        try {
+            return segment.values.get(cartId);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    V computeIfAbsent(int cartId, IntFunction<V> factory) {
+        Segment<V> segment = segmentOf(cartId);
+        segment.lock.lock();
+        try {
+            V value = segment.values.get(cartId);
+            if (value == null) {
+                value = factory.apply(cartId);
+                segment.values.put(cartId, value);
+            }
+            return value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void merge(int cartId, V value, BinaryOperator<V> remapping) {
+        Segment<V> segment = segmentOf(cartId);
+        segment.lock.lock();
+        try {
+            segment.values.merge(cartId, value, remapping);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void remove(int cartId) {
+        Segment<V> segment = segmentOf(cartId);
+        segment.lock.lock();
+        try {
+            segment.values.remove(cartId);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.values.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Segment<V> segmentOf(int cartId) {
+        // Spread the bits first, sequential ids would otherwise fill the segments in order
+        int hash = cartId * 0x9E3779B9;
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private static final class Segment<V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Integer, V> values;
+
+        private Segment(int capacity) {
+            this.values = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
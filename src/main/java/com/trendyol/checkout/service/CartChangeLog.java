@@ -0,0 +1,103 @@
+package com.trendyol.checkout.service;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.ItemType;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The ids of the items, as listed in the cart response, changed by each of the last
+ * {@link #CAPACITY} versions of a cart. A version is kept in the slot of its number modulo the
+ * capacity, so commits recording out of order need no lock, and a reader finds a version that was
+ * overwritten or is not recorded yet by its slot holding another version.
+ */
+class CartChangeLog {
+    static final int CAPACITY = 64;
+
+    private final AtomicReferenceArray<Change> changes = new AtomicReferenceArray<>(CAPACITY);
+
+    void record(long version, int[] changedItemIds) {
+        // A recorder that stalled for a full round must not replace the newer version of its slot
+        changes.accumulateAndGet(slot(version), new Change(version, changedItemIds),
+                (existing, candidate) -> existing == null || candidate.version() >= existing.version() ? candidate : existing);
+    }
+
+    /**
+     * @return ids of the items changed after {@code sinceVersion} up to and including
+     * {@code version}, or null when a version in between is not in the log
+     */
+    Set<Integer> changedItemIdsBetween(long sinceVersion, long version) {
+        if (sinceVersion < 0 || sinceVersion > version || version - sinceVersion > CAPACITY) {
+            return null;
+        }
+
+        Set<Integer> changedItemIds = new LinkedHashSet<>();
+        for (long v = sinceVersion + 1; v <= version; v++) {
+            Change change = changes.get(slot(v));
+            if (change == null || change.version() != v) {
+                return null;
+            }
+            for (int itemId : change.changedItemIds()) {
+                changedItemIds.add(itemId);
+            }
+        }
+        return changedItemIds;
+    }
+
+    /**
+     * @return ids of the items, VAS items excluded, that were added, changed or removed between
+     * the two versions of a cart, an item changes with the VAS items attached to it
+     */
+    static int[] diff(CompactCart before, CompactCart after) {
+        int[] changedItemIds = new int[before.lineCount() + after.lineCount()];
+        int count = 0;
+        for (int line = 0; line < after.lineCount(); line++) {
+            if (isNonVasCartLine(after, line) && !sameLine(before, before.findLine(after.itemId(line)), after, line)) {
+                changedItemIds[count++] = after.itemId(line);
+            }
+        }
+        for (int line = 0; line < before.lineCount(); line++) {
+            if (isNonVasCartLine(before, line) && after.findLine(before.itemId(line)) < 0) {
+                changedItemIds[count++] = before.itemId(line);
+            }
+        }
+        return Arrays.copyOf(changedItemIds, count);
+    }
+
+    private static boolean isNonVasCartLine(CompactCart cart, int line) {
+        return cart.parent(line) == CompactCart.NO_PARENT && cart.type(line) != ItemType.VAS_ITEM;
+    }
+
+    /**
+     * Compares the quantities of the lines and of the VAS items attached to them, which follow their line.
+     */
+    private static boolean sameLine(CompactCart before, int beforeLine, CompactCart after, int afterLine) {
+        if (beforeLine < 0) {
+            return false;
+        }
+        int offset = 0;
+        while (true) {
+            int b = beforeLine + offset;
+            int a = afterLine + offset;
+            boolean beforeHasLine = b < before.lineCount() && (offset == 0 || before.parent(b) == beforeLine);
+            boolean afterHasLine = a < after.lineCount() && (offset == 0 || after.parent(a) == afterLine);
+            if (!beforeHasLine || !afterHasLine) {
+                return beforeHasLine == afterHasLine;
+            }
+            if (before.itemId(b) != after.itemId(a) || before.quantity(b) != after.quantity(a)) {
+                return false;
+            }
+            offset++;
+        }
+    }
+
+    private static int slot(long version) {
+        return (int) (version % CAPACITY);
+    }
+
+    private record Change(long version, int[] changedItemIds) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.trendyol.checkout.service;
+
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.VasItem;
+
+/**
+ * A validated change to a cart. Requests are validated into operations and a cart only changes by
+ * having operations applied, so the operations of a committed version can be logged and applied
+ * again to rebuild it.
+ */
+public sealed interface CartOperation {
+
+    /**
+     * Adds a default or digital item, or increases its quantity when the cart already holds it.
+     */
+    record AddItem(Item item) implements CartOperation {
+    }
+
+    /**
+     * Adds a VAS item to the cart and attaches it to the default item with the given id.
+     */
+    record AddVasItem(int defaultItemId, VasItem vasItem) implements CartOperation {
+    }
+
+    /**
+     * Removes an item, a default item together with its VAS items.
+     */
+    record RemoveItem(int itemId) implements CartOperation {
+    }
+
+    record Reset() implements CartOperation {
+    }
+}
@@ -1,14 +1,18 @@
 package com.trendyol.checkout.service;
 
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
 import com.trendyol.checkout.models.dto.request.ItemRequest;
 import com.trendyol.checkout.models.dto.request.VasItemRequest;
 import com.trendyol.checkout.models.dto.response.BasicResponse;
 import org.springframework.http.ResponseEntity;
 
 public interface CartService {
-    ResponseEntity<BasicResponse> addNonVasItemToCart(ItemRequest request);
-    ResponseEntity<BasicResponse> addVasItemToCart(VasItemRequest request);
-    ResponseEntity<BasicResponse> removeItem(int itemId);
-    ResponseEntity<BasicResponse> resetCart();
-    ResponseEntity<BasicResponse> displayCart();
+    ResponseEntity<BasicResponse> addNonVasItemToCart(int cartId, ItemRequest request);
+    ResponseEntity<BasicResponse> addVasItemToCart(int cartId, VasItemRequest request);
+    ResponseEntity<BasicResponse> addItemsToCart(int cartId, BatchItemRequest request);
+    ResponseEntity<BasicResponse> removeItem(int cartId, int itemId);
+    ResponseEntity<BasicResponse> resetCart(int cartId);
+    ResponseEntity<BasicResponse> displayCart(int cartId);
+    ResponseEntity<byte[]> displayCart(int cartId, String ifNoneMatch);
+    ResponseEntity<BasicResponse> displayCartChanges(int cartId, long sinceVersion);
 }
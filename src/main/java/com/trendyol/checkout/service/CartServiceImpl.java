@@ -1,172 +1,537 @@
 package com.trendyol.checkout.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trendyol.checkout.CartConstants;
+import com.trendyol.checkout.exception.InvalidCartItemException;
+import com.trendyol.checkout.exception.InvalidCartStateException;
 import com.trendyol.checkout.exception.ItemNotFoundException;
 import com.trendyol.checkout.validation.ItemValidator;
 import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.promotion.PromotionResult;
 import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CartView;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
 import com.trendyol.checkout.models.dto.request.ItemRequest;
 import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.dto.response.CartDeltaResponse;
 import com.trendyol.checkout.models.dto.response.CartResponse;
 import com.trendyol.checkout.models.dto.response.BasicResponse;
+import com.trendyol.checkout.models.dto.response.BatchItemResponse;
+import com.trendyol.checkout.models.dto.response.BatchLineResult;
 import com.trendyol.checkout.models.entity.item.*;
+import com.trendyol.checkout.money.Money;
+import com.trendyol.checkout.snapshot.CartSnapshotStore;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.timing.ServerTiming;
+import com.trendyol.checkout.wal.CartLogRecord;
+import com.trendyol.checkout.wal.CartMutationLog;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class CartServiceImpl implements CartService {
+    private static final Logger logger = LoggerFactory.getLogger(CartServiceImpl.class);
+    static final int DEFAULT_CACHED_CART_COUNT = 16384;
+
     private ItemValidator validator;
     private PromotionCalculator promotionCalculator;
-    private Cart cart;
+    private CartStore cartStore;
+    private ObjectMapper objectMapper;
+    private CartMutationLog mutationLog;
+    private CartSnapshotStore snapshotStore;
+    // Bounded, so the heap kept for carts does not grow with the carts stored off-heap or spilled
+    private final CartCache<RenderedCart> renderedCarts;
+    private final CartCache<CartChangeLog> changeLogs;
+    // Versions start over with the process, so tags of an earlier process never match
+    private final String etagPrefix = "\"" + Long.toHexString(System.currentTimeMillis()) + "-";
+
+    public CartServiceImpl(CartStore cartStore, ItemValidator validator, PromotionCalculator promotionCalculator) {
+        this(cartStore, validator, promotionCalculator, new ObjectMapper(), CartMutationLog.DISABLED, CartSnapshotStore.DISABLED);
+    }
+
+    public CartServiceImpl(CartStore cartStore, ItemValidator validator, PromotionCalculator promotionCalculator, ObjectMapper objectMapper,
+                           CartMutationLog mutationLog, CartSnapshotStore snapshotStore) {
+        this(cartStore, validator, promotionCalculator, objectMapper, mutationLog, snapshotStore, DEFAULT_CACHED_CART_COUNT, DEFAULT_CACHED_CART_COUNT);
+    }
 
     @Autowired
-    public CartServiceImpl(Cart cart, ItemValidator validator, PromotionCalculator promotionCalculator) {
+    public CartServiceImpl(CartStore cartStore, ItemValidator validator, PromotionCalculator promotionCalculator, ObjectMapper objectMapper,
+                           CartMutationLog mutationLog, CartSnapshotStore snapshotStore,
+                           @Value("${checkout.cart-cache.rendered-carts:16384}") int renderedCartCapacity,
+                           @Value("${checkout.cart-cache.change-logs:16384}") int changeLogCapacity) {
         this.validator = validator;
-        this.cart = cart;
+        this.cartStore = cartStore;
         this.promotionCalculator = promotionCalculator;
+        this.objectMapper = objectMapper;
+        this.mutationLog = mutationLog;
+        this.snapshotStore = snapshotStore;
+        this.renderedCarts = new CartCache<>(renderedCartCapacity);
+        this.changeLogs = new CartCache<>(changeLogCapacity);
+    }
+
+    /**
+     * Drops the change log and the rendered body of carts moved out of memory, a delta request for
+     * an evicted cart gets the full cart.
+     */
+    @PostConstruct
+    public void listenForEvictions() {
+        cartStore.addEvictionListener(cartId -> {
+            changeLogs.remove(cartId);
+            renderedCarts.remove(cartId);
+        });
     }
 
-    public ResponseEntity<BasicResponse> addNonVasItemToCart(ItemRequest request) {
-        validator.validateNonVasItemRequest(request);
-        Item item = itemConverter(request);
-        addItemToCart(item);
+    public ResponseEntity<BasicResponse> addNonVasItemToCart(int cartId, ItemRequest request) {
+        mutateCart(cartId, (cart, operations) -> addNonVasItem(cart, request, operations));
 
         String message = "Item with id: " + request.getItemId() + " successfully added to cart";
         BasicResponse response = new BasicResponse(message, true);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
-    public ResponseEntity<BasicResponse> addVasItemToCart(VasItemRequest request) {
-        validator.validateVasItemRequest(request);
-        Item item = itemConverter(request);
-        addItemToCart(item);
-        addVasItemToDefaultItem((VasItem) item, request.getItemId());
+    public ResponseEntity<BasicResponse> addVasItemToCart(int cartId, VasItemRequest request) {
+        mutateCart(cartId, (cart, operations) -> addVasItem(cart, request, operations));
 
         String message = "Item with id: " + request.getVasItemId() + " successfully added to cart";
         BasicResponse response = new BasicResponse(message, true);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
-    public ResponseEntity<BasicResponse> removeItem(int itemId) {
-        Optional<Item> item = cart.findItemById(itemId);
-        if (item.isEmpty()) {
-            throw new ItemNotFoundException("There is no item with id: " + itemId + " in your cart");
+    /**
+     * Validates and applies the lines in order against one copy of the cart, every line sees the
+     * lines accepted before it. Rejected lines leave the cart untouched and the accepted ones are
+     * committed together as a single new version.
+     */
+    public ResponseEntity<BasicResponse> addItemsToCart(int cartId, BatchItemRequest request) {
+        if (request.size() == 0) {
+            throw new IllegalArgumentException("Batch should contain at least one item");
+        }
+        if (request.size() > CartConstants.MAX_BATCH_LINE_COUNT) {
+            throw new IllegalArgumentException("Batch can contain maximum " + CartConstants.MAX_BATCH_LINE_COUNT + " items");
         }
 
-        decreaseCartProperties(item.get());
+        List<BatchLineResult> lines = new ArrayList<>(request.size());
+        CompactCart committed = mutateCart(cartId, (cart, operations) -> {
+            // A retry starts over against the newer cart
+            lines.clear();
 
-        if (item.get().getType() == ItemType.DEFAULT_ITEM && !((DefaultItem) item.get()).getVasItems().isEmpty()) {
-            for (VasItem vasItem : ((DefaultItem) item.get()).getVasItems()) {
-                decreaseCartProperties(vasItem);
+            if (request.getItems() != null) {
+                for (ItemRequest itemRequest : request.getItems()) {
+                    lines.add(applyBatchLine(cart, itemRequest, operations));
+                }
             }
-        }
+            if (request.getVasItems() != null) {
+                for (VasItemRequest vasItemRequest : request.getVasItems()) {
+                    lines.add(applyBatchLine(cart, vasItemRequest, operations));
+                }
+            }
+        });
 
-        cart.getItems().removeIf(i -> i.getItemId() == itemId);
-        if (cart.getItems().isEmpty()) {
-            cart.setDigitalItemCart(null);
-        }
+        BatchItemResponse batchResponse = new BatchItemResponse(committed.getVersion(), lines);
+        BasicResponse response = new BasicResponse(batchResponse, batchResponse.getRejectedCount() == 0);
+        HttpStatus status = batchResponse.getAddedCount() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+        return new ResponseEntity<>(response, status);
+    }
+
+    public ResponseEntity<BasicResponse> removeItem(int cartId, int itemId) {
+        mutateCart(cartId, (cart, operations) -> {
+            if (cart.findItem(itemId) == null) {
+                throw new ItemNotFoundException("There is no item with id: " + itemId + " in your cart");
+            }
+            apply(cart, new CartOperation.RemoveItem(itemId), operations);
+        });
 
         String message = "Item with id " + itemId + " is successfully removed from cart";
         BasicResponse response = new BasicResponse(message, true);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    public ResponseEntity<BasicResponse> resetCart() {
-        cart.reset();
+    public ResponseEntity<BasicResponse> resetCart(int cartId) {
+        mutateCart(cartId, (cart, operations) -> apply(cart, new CartOperation.Reset(), operations));
 
         BasicResponse response = new BasicResponse("The cart has been successfully reset", true);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    public ResponseEntity<BasicResponse> displayCart() {
-        HashMap<String, Number> bestPromotion = promotionCalculator.calculateMaxPromotion(cart.getItems(), cart.getTotalPrice());
-        cart.setAppliedPromotionId((Integer) bestPromotion.get("promotionId"));
-        cart.setTotalDiscount((Double) bestPromotion.get("discount"));
+    public ResponseEntity<BasicResponse> displayCart(int cartId) {
+        return displayCart(cartId, readCart(cartId));
+    }
+
+    /**
+     * Serves the cart as JSON tagged with its version. A client sending the tag of the current
+     * version gets a 304 without the promotion being evaluated, otherwise the body rendered for
+     * the current version is reused until the cart changes.
+     */
+    public ResponseEntity<byte[]> displayCart(int cartId, String ifNoneMatch) {
+        Optional<CompactCart> stored = cartStore.find(cartId);
+        CompactCart cart = stored.orElseGet(() -> CompactCart.empty(cartId));
+        String etag = etagPrefix + cart.getVersion() + "\"";
+        if (matchesETag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+
+        RenderedCart rendered = renderedCarts.get(cartId);
+        if (rendered == null || rendered.version() != cart.getVersion()) {
+            rendered = render(cart);
+            // Nothing is kept for a cart that was never stored
+            if (stored.isPresent()) {
+                // A slower reader of an older version must not replace a newer body
+                renderedCarts.merge(cartId, rendered, (existing, candidate) ->
+                        candidate.version() >= existing.version() ? candidate : existing);
+            }
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rendered.body());
+    }
+
+    /**
+     * Returns the items added or changed and the ids of the items removed after the given version,
+     * taken from the change log of the cart. A version older than the log, or one the cart never
+     * had, gets the full cart instead.
+     */
+    public ResponseEntity<BasicResponse> displayCartChanges(int cartId, long sinceVersion) {
+        CompactCart cart = readCart(cartId);
+        Set<Integer> changedItemIds = changedItemIdsSince(cartId, sinceVersion, cart.getVersion());
+        if (changedItemIds == null) {
+            return displayCart(cartId, cart);
+        }
+
+        List<Item> items = new ArrayList<>(changedItemIds.size());
+        List<Integer> removedItemIds = new ArrayList<>();
+        for (int itemId : changedItemIds) {
+            Item item = cart.findItem(itemId);
+            if (item != null) {
+                items.add(item);
+            } else {
+                removedItemIds.add(itemId);
+            }
+        }
 
-        CartResponse cartResponse = new CartResponse(cart);
-        BasicResponse response = new BasicResponse(cartResponse, true);
+        CartDeltaResponse deltaResponse = new CartDeltaResponse(sinceVersion, cart, items, removedItemIds, bestPromotion(cart));
+        BasicResponse response = new BasicResponse(deltaResponse, true);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    private void decreaseCartProperties(Item item) {
+    /**
+     * Rebuilds the carts from the latest snapshot and the mutation log written after it before
+     * any request is served. Records are applied to a cart in version order, skipping the versions
+     * the snapshot already contains; a record that was appended ahead of an earlier version waits
+     * for it, records whose earlier version never made it to the log are dropped.
+     */
+    @PostConstruct
+    public void recoverCarts() {
+        snapshotStore.restore(cartStore);
+
+        Map<Integer, Cart> recoveredCarts = new HashMap<>();
+        Map<Integer, TreeMap<Long, CartLogRecord>> pendingRecords = new HashMap<>();
+        mutationLog.replay(record -> {
+            Cart cart = recoveredCarts.computeIfAbsent(record.cartId(),
+                    cartId -> cartStore.find(cartId).map(CompactCart::toCart).orElseGet(() -> new Cart(cartId)));
+            if (record.version() <= cart.getVersion()) {
+                return;
+            }
+            TreeMap<Long, CartLogRecord> pending = pendingRecords.computeIfAbsent(record.cartId(), id -> new TreeMap<>());
+            pending.put(record.version(), record);
+            while (!pending.isEmpty() && pending.firstKey() == cart.getVersion() + 1) {
+                CartLogRecord next = pending.pollFirstEntry().getValue();
+                for (CartOperation operation : next.operations()) {
+                    applyOperation(cart, operation);
+                }
+                cart.setVersion(next.version());
+            }
+        });
+
+        int droppedRecordCount = 0;
+        for (TreeMap<Long, CartLogRecord> pending : pendingRecords.values()) {
+            droppedRecordCount += pending.size();
+        }
+        for (Cart cart : recoveredCarts.values()) {
+            cartStore.restore(CompactCart.of(cart));
+        }
+        if (!recoveredCarts.isEmpty()) {
+            logger.info("Recovered {} carts from the mutation log, dropped {} records following a missing version", recoveredCarts.size(), droppedRecordCount);
+        }
+    }
+
+    /**
+     * Applies the mutation to a private copy of the cart and commits the copy, compacted, as the
+     * next version. When another request commits first, the mutation is retried against the newer
+     * version. Exceptions thrown by the mutation leave the committed cart untouched. The operations
+     * of the committed version are appended to the mutation log before returning. An unknown cart
+     * is only stored once a mutation leaves an item in it.
+     *
+     * @return the committed cart
+     */
+    private CompactCart mutateCart(int cartId, Mutation mutation) {
+        while (true) {
+            Optional<CompactCart> stored = cartStore.find(cartId);
+            CompactCart current = stored.orElseGet(() -> CompactCart.empty(cartId));
+            Cart working = current.toCart();
+            List<CartOperation> operations = new ArrayList<>(1);
+
+            mutation.apply(working, operations);
+            if (operations.isEmpty() || (stored.isEmpty() && working.getItems().isEmpty())) {
+                // Nothing was applied, the committed cart stays as it is
+                return current;
+            }
+            working.setVersion(current.getVersion() + 1);
+            CompactCart updated = CompactCart.of(working);
+
+            if (stored.isPresent() ? cartStore.replace(current, updated) : create(updated)) {
+                renderedCarts.remove(cartId);
+                changeLogs.computeIfAbsent(cartId, id -> new CartChangeLog()).record(updated.getVersion(), CartChangeLog.diff(current, updated));
+                mutationLog.append(cartId, updated.getVersion(), operations);
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Reads the committed cart without storing it, an unknown cart reads as an empty one.
+     */
+    private CompactCart readCart(int cartId) {
+        return cartStore.find(cartId).orElseGet(() -> CompactCart.empty(cartId));
+    }
+
+    /**
+     * Commits the first version of a cart that was unknown when the mutation read it.
+     *
+     * @return false when the cart has been created and changed in the meantime
+     */
+    private boolean create(CompactCart updated) {
+        CompactCart created = cartStore.getOrCreate(updated.getId());
+        return created.getVersion() == 0 && cartStore.replace(created, updated);
+    }
+
+    /**
+     * @return carts with a rendered body or a change log kept on the heap
+     */
+    int cachedCartCount() {
+        return renderedCarts.size() + changeLogs.size();
+    }
+
+    private ResponseEntity<BasicResponse> displayCart(int cartId, CartView cart) {
+        BasicResponse response = new BasicResponse(toCartResponse(cart), true);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    private CartResponse toCartResponse(CartView cart) {
+        // The cart is shared with concurrent readers, so the promotion goes to the response only
+        return new CartResponse(cart, bestPromotion(cart));
+    }
+
+    private PromotionResult bestPromotion(CartView cart) {
+        // Allocated per call, a per thread instance would be created per request on virtual threads anyway
+        PromotionResult bestPromotion = new PromotionResult();
+        long start = System.nanoTime();
+        promotionCalculator.calculateMaxPromotion(cart, bestPromotion);
+        ServerTiming.record(ServerTiming.Phase.PROMOTION, start);
+        return bestPromotion;
+    }
+
+    private Set<Integer> changedItemIdsSince(int cartId, long sinceVersion, long version) {
+        if (sinceVersion == version) {
+            return Set.of();
+        }
+        CartChangeLog changeLog = changeLogs.get(cartId);
+        return changeLog != null ? changeLog.changedItemIdsBetween(sinceVersion, version) : null;
+    }
+
+    private RenderedCart render(CompactCart cart) {
+        BasicResponse response = new BasicResponse(toCartResponse(cart), true);
+        long start = System.nanoTime();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            ServerTiming.record(ServerTiming.Phase.SERIALIZATION, start);
+            return new RenderedCart(cart.getVersion(), body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cart " + cart.getId() + " could not be serialized", e);
+        }
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNonVasItem(Cart cart, ItemRequest request, List<CartOperation> operations) {
+        long start = System.nanoTime();
+        Item item = validator.validateNonVasItemRequest(cart, request);
+        ServerTiming.record(ServerTiming.Phase.VALIDATION, start);
+
+        start = System.nanoTime();
+        apply(cart, new CartOperation.AddItem(item), operations);
+        ServerTiming.record(ServerTiming.Phase.MUTATION, start);
+    }
+
+    private void addVasItem(Cart cart, VasItemRequest request, List<CartOperation> operations) {
+        long start = System.nanoTime();
+        VasItem vasItem = validator.validateVasItemRequest(cart, request);
+        ServerTiming.record(ServerTiming.Phase.VALIDATION, start);
+
+        start = System.nanoTime();
+        apply(cart, new CartOperation.AddVasItem(request.getItemId(), vasItem), operations);
+        ServerTiming.record(ServerTiming.Phase.MUTATION, start);
+    }
+
+    private void apply(Cart cart, CartOperation operation, List<CartOperation> operations) {
+        applyOperation(cart, operation);
+        operations.add(operation);
+    }
+
+    /**
+     * Applies an already validated operation, the same way for a request and for a replayed record.
+     */
+    private void applyOperation(Cart cart, CartOperation operation) {
+        if (operation instanceof CartOperation.AddItem addItem) {
+            addItemToCart(cart, addItem.item());
+        } else if (operation instanceof CartOperation.AddVasItem addVasItem) {
+            addItemToCart(cart, addVasItem.vasItem());
+            addVasItemToDefaultItem(cart, addVasItem.vasItem(), addVasItem.defaultItemId());
+        } else if (operation instanceof CartOperation.RemoveItem removeItem) {
+            removeItemFromCart(cart, removeItem.itemId());
+        } else {
+            cart.reset();
+        }
+    }
+
+    /**
+     * Validation runs before anything is changed, so a rejected line leaves the cart as it was.
+     */
+    private BatchLineResult applyBatchLine(Cart cart, ItemRequest request, List<CartOperation> operations) {
+        if (request == null) {
+            return new BatchLineResult(null, null, false, "Item request is required");
+        }
+
+        boolean isVasItem = request instanceof VasItemRequest;
+        Integer vasItemId = isVasItem ? ((VasItemRequest) request).getVasItemId() : null;
+        try {
+            if (isVasItem) {
+                addVasItem(cart, (VasItemRequest) request, operations);
+            } else {
+                addNonVasItem(cart, request, operations);
+            }
+            return new BatchLineResult(request.getItemId(), vasItemId, true, "Item successfully added to cart");
+        } catch (InvalidCartItemException | InvalidCartStateException | IllegalArgumentException | ArithmeticException e) {
+            // Lines are validated before they change the cart, so a rejected line leaves nothing behind
+            return new BatchLineResult(request.getItemId(), vasItemId, false, e.getMessage());
+        }
+    }
+
+    private void removeItemFromCart(Cart cart, int itemId) {
+        Item item = cart.findItem(itemId);
+        if (item == null) {
+            return;
+        }
+
+        decreaseCartProperties(cart, item);
+
+        if (item.getType() == ItemType.DEFAULT_ITEM && !((DefaultItem) item).getVasItems().isEmpty()) {
+            for (VasItem vasItem : ((DefaultItem) item).getVasItems()) {
+                decreaseCartProperties(cart, vasItem);
+            }
+        }
+
+        if (cart.getItems().isEmpty()) {
+            cart.setDigitalItemCart(null);
+        }
+    }
+
+    private void decreaseCartProperties(Cart cart, Item item) {
         cart.setItemCount(cart.getItemCount() - item.getQuantity());
-        cart.setTotalPrice(cart.getTotalPrice() - item.getQuantity() * item.getPrice());
-        cart.getItems().removeIf(i -> i.getItemId() == item.getItemId());
+        cart.setTotalPriceInCents(cart.getTotalPriceInCents() - Money.times(item.getPriceInCents(), item.getQuantity()));
+        cart.removeItem(item.getItemId());
 
         if (item.getType() != ItemType.VAS_ITEM) {
             cart.setUniqueItemCount(cart.getUniqueItemCount() - 1);
         }
     }
 
-    private void addItemToCart(Item item) {
-        Optional<Item> optionalExistingItem = cart.findItemById(item.getItemId());
+    private void addItemToCart(Cart cart, Item item) {
+        Item existingItem = cart.findItem(item.getItemId());
 
-        cart.setTotalPrice(cart.getTotalPrice() + item.getPrice() * item.getQuantity());
+        cart.setTotalPriceInCents(cart.getTotalPriceInCents() + Money.times(item.getPriceInCents(), item.getQuantity()));
         cart.setItemCount(cart.getItemCount() + item.getQuantity());
 
-        if (optionalExistingItem.isPresent()) {
-            Item existingItem = optionalExistingItem.get();
-            existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
+        if (existingItem != null) {
+            cart.increaseQuantity(existingItem, item.getQuantity());
         } else {
-            cart.getItems().add(item);
-            updateCartUniqueItemCount(item);
+            cart.addItem(item);
+            updateCartUniqueItemCount(cart, item);
         }
 
         cart.setDigitalItemCart(item.getType() == ItemType.DIGITAL_ITEM);
     }
 
-    private void addVasItemToDefaultItem(VasItem vasItem, int defaultItemId) {
-        Optional<DefaultItem> defaultItemOptional = cart.getItems().stream()
-                .filter(i -> i.getClass() == DefaultItem.class)
-                .filter(i -> i.getItemId() == defaultItemId)
-                .findFirst()
-                .map(i -> (DefaultItem) i);
+    private void addVasItemToDefaultItem(Cart cart, VasItem vasItem, int defaultItemId) {
+        Item defaultItem = cart.findItem(defaultItemId);
 
-        defaultItemOptional.ifPresent(defaultItem -> {
-            updateOrAddVasItemToDefaultItem(defaultItem, vasItem);
-        });
+        if (defaultItem != null && defaultItem.getClass() == DefaultItem.class) {
+            updateOrAddVasItemToDefaultItem((DefaultItem) defaultItem, vasItem);
+        }
     }
 
     private void updateOrAddVasItemToDefaultItem(DefaultItem defaultItem, VasItem vasItem) {
-        defaultItem.getVasItems().stream()
-                .filter(i -> i.getItemId() == vasItem.getItemId())
-                .findFirst()
-                .ifPresentOrElse(
-                        existingVasItem -> existingVasItem.setQuantity(existingVasItem.getQuantity() + vasItem.getQuantity()),
-                        () -> defaultItem.getVasItems().add(new VasItem(vasItem))
-                );
+        for (VasItem existingVasItem : defaultItem.getVasItems()) {
+            if (existingVasItem.getItemId() == vasItem.getItemId()) {
+                existingVasItem.setQuantity(existingVasItem.getQuantity() + vasItem.getQuantity());
+                return;
+            }
+        }
+        defaultItem.getVasItems().add(new VasItem(vasItem));
     }
 
-    private void updateCartUniqueItemCount(Item item) {
+    private void updateCartUniqueItemCount(Cart cart, Item item) {
         if (!(item instanceof VasItem)) {
             cart.setUniqueItemCount(cart.getUniqueItemCount() + 1);
         }
     }
 
-    private Item itemConverter(ItemRequest request) {
-        if (request.getCategoryId() == CartConstants.DIGITAL_ITEM_CATEGORY_ID) {
-            return new DigitalItem(request.getItemId(),
-                    request.getCategoryId(),
-                    request.getSellerId(),
-                    request.getPrice(),
-                    request.getQuantity());
-        } else if (request.getCategoryId() == CartConstants.VAS_ITEM_CATEGORY_ID) {
-            return new VasItem(((VasItemRequest) request).getVasItemId(),
-                    request.getCategoryId(),
-                    request.getSellerId(),
-                    request.getPrice(),
-                    request.getQuantity());
-        } else {
-            return new DefaultItem(request.getItemId(),
-                    request.getCategoryId(),
-                    request.getSellerId(),
-                    request.getPrice(),
-                    request.getQuantity());
-        }
+    /**
+     * Changes a copy of the cart, reporting every operation it applied.
+     */
+    @FunctionalInterface
+    private interface Mutation {
+        void apply(Cart cart, List<CartOperation> operations);
+    }
+
+    /**
+     * The display body of one committed cart version. Only the version is kept, a cart store may
+     * hand out a new instance of the same version on every read.
+     */
+    private record RenderedCart(long version, byte[] body) {
     }
 }
@@ -0,0 +1,17 @@
+package com.trendyol.checkout.service;
+
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.dto.response.BasicResponse;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartService {
+    Mono<ResponseEntity<BasicResponse>> addNonVasItemToCart(int cartId, ItemRequest request);
+    Mono<ResponseEntity<BasicResponse>> addVasItemToCart(int cartId, VasItemRequest request);
+    Mono<ResponseEntity<BasicResponse>> addItemsToCart(int cartId, BatchItemRequest request);
+    Mono<ResponseEntity<BasicResponse>> removeItem(int cartId, int itemId);
+    Mono<ResponseEntity<BasicResponse>> resetCart(int cartId);
+    Mono<ResponseEntity<BasicResponse>> displayCart(int cartId);
+}
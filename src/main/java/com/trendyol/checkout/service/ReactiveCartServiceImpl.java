@@ -0,0 +1,58 @@
+package com.trendyol.checkout.service;
+
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.request.VasItemRequest;
+import com.trendyol.checkout.models.dto.response.BasicResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs the cart operations when the returned {@link Mono} is subscribed, on the bounded elastic
+ * scheduler. This is a thread hand-off around the blocking {@link CartService}, not a non-blocking
+ * implementation: a mutation may wait for the write-ahead log to be forced and for a shard or
+ * stripe lock, and any access may fault a spilled cart in from disk, so every operation holds a
+ * bounded elastic thread until it completes. Failures are signalled as errors of the {@link Mono}.
+ */
+@Service
+public class ReactiveCartServiceImpl implements ReactiveCartService {
+    private CartService cartService;
+
+    @Autowired
+    public ReactiveCartServiceImpl(CartService cartService) {
+        this.cartService = cartService;
+    }
+
+    public Mono<ResponseEntity<BasicResponse>> addNonVasItemToCart(int cartId, ItemRequest request) {
+        return blocking(() -> cartService.addNonVasItemToCart(cartId, request));
+    }
+
+    public Mono<ResponseEntity<BasicResponse>> addVasItemToCart(int cartId, VasItemRequest request) {
+        return blocking(() -> cartService.addVasItemToCart(cartId, request));
+    }
+
+    public Mono<ResponseEntity<BasicResponse>> addItemsToCart(int cartId, BatchItemRequest request) {
+        return blocking(() -> cartService.addItemsToCart(cartId, request));
+    }
+
+    public Mono<ResponseEntity<BasicResponse>> removeItem(int cartId, int itemId) {
+        return blocking(() -> cartService.removeItem(cartId, itemId));
+    }
+
+    public Mono<ResponseEntity<BasicResponse>> resetCart(int cartId) {
+        return blocking(() -> cartService.resetCart(cartId));
+    }
+
+    public Mono<ResponseEntity<BasicResponse>> displayCart(int cartId) {
+        return blocking(() -> cartService.displayCart(cartId));
+    }
+
+    private static <T> Mono<T> blocking(Supplier<T> operation) {
+        return Mono.fromSupplier(operation).subscribeOn(Schedulers.boundedElastic());
+    }
+}
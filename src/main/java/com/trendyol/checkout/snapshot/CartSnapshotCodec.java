@@ -0,0 +1,158 @@
+package com.trendyol.checkout.snapshot;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.ItemType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary layout of a cart in a snapshot chunk:
+ * <pre>
+ * int id, long version, byte digital cart (-1 unknown, 0, 1), int item count, int unique item count,
+ * long total price in cents, long total discount in cents, int applied promotion id (-1 none),
+ * short line count, lines
+ * </pre>
+ * A line is its type ordinal followed by the item fields; a default item is followed by the
+ * number of VAS items attached to it and their fields.
+ */
+final class CartSnapshotCodec {
+    private static final int CART_HEADER_SIZE = 4 + 8 + 1 + 4 + 4 + 8 + 8 + 4 + 2;
+    private static final int ITEM_SIZE = 4 * Integer.BYTES + Long.BYTES;
+    private static final int NO_PROMOTION = -1;
+
+    private CartSnapshotCodec() {
+    }
+
+    static int size(CompactCart cart) {
+        int size = CART_HEADER_SIZE;
+        for (int line = 0; line < cart.lineCount(); line++) {
+            if (cart.parent(line) == CompactCart.NO_PARENT) {
+                size += 1 + ITEM_SIZE + (cart.type(line) == ItemType.DEFAULT_ITEM ? Short.BYTES : 0);
+            } else {
+                size += ITEM_SIZE;
+            }
+        }
+        return size;
+    }
+
+    static void encode(ByteBuffer buffer, CompactCart cart) {
+        buffer.putInt(cart.getId());
+        buffer.putLong(cart.getVersion());
+        buffer.put(cart.isDigitalItemCart() == null ? -1 : (byte) (cart.isDigitalItemCart() ? 1 : 0));
+        buffer.putInt(cart.getItemCount());
+        buffer.putInt(cart.getUniqueItemCount());
+        buffer.putLong(cart.getTotalPriceInCents());
+        buffer.putLong(cart.getTotalDiscountInCents());
+        buffer.putInt(cart.getAppliedPromotionId() != null ? cart.getAppliedPromotionId() : NO_PROMOTION);
+        buffer.putShort((short) cart.getLineCount());
+        for (int line = 0; line < cart.lineCount(); line++) {
+            if (cart.parent(line) != CompactCart.NO_PARENT) {
+                // Written with the default item they are attached to
+                continue;
+            }
+            buffer.put((byte) cart.type(line).ordinal());
+            putLine(buffer, cart, line);
+            if (cart.type(line) == ItemType.DEFAULT_ITEM) {
+                int vasItemCount = 0;
+                while (line + vasItemCount + 1 < cart.lineCount() && cart.parent(line + vasItemCount + 1) == line) {
+                    vasItemCount++;
+                }
+                buffer.putShort((short) vasItemCount);
+                for (int attached = line + 1; attached <= line + vasItemCount; attached++) {
+                    putLine(buffer, cart, attached);
+                }
+            }
+        }
+    }
+
+    static CompactCart decode(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        long version = buffer.getLong();
+        byte digitalItemCart = buffer.get();
+        int itemCount = buffer.getInt();
+        int uniqueItemCount = buffer.getInt();
+        long totalPriceInCents = buffer.getLong();
+        long totalDiscountInCents = buffer.getLong();
+        int appliedPromotionId = buffer.getInt();
+        int cartLineCount = buffer.getShort();
+
+        // Sized for the cart lines, grown by the VAS items attached to default items
+        Lines lines = new Lines(cartLineCount);
+        for (int i = 0; i < cartLineCount; i++) {
+            byte type = buffer.get();
+            int parent = lines.count;
+            lines.add(buffer, type, CompactCart.NO_PARENT);
+            if (type == ItemType.DEFAULT_ITEM.ordinal()) {
+                int vasItemCount = buffer.getShort();
+                for (int j = 0; j < vasItemCount; j++) {
+                    lines.add(buffer, (byte) ItemType.VAS_ITEM.ordinal(), parent);
+                }
+            }
+        }
+
+        return new CompactCart(id, version, itemCount, uniqueItemCount, totalPriceInCents, totalDiscountInCents,
+                appliedPromotionId != NO_PROMOTION ? appliedPromotionId : null,
+                digitalItemCart == -1 ? null : digitalItemCart == 1,
+                lines.trimmed(lines.itemIds), lines.trimmed(lines.categoryIds), lines.trimmed(lines.sellerIds),
+                Arrays.copyOf(lines.pricesInCents, lines.count), lines.trimmed(lines.quantities),
+                Arrays.copyOf(lines.types, lines.count), Arrays.copyOf(lines.parents, lines.count));
+    }
+
+    private static void putLine(ByteBuffer buffer, CompactCart cart, int line) {
+        buffer.putInt(cart.itemId(line));
+        buffer.putInt(cart.categoryId(line));
+        buffer.putInt(cart.sellerId(line));
+        buffer.putLong(cart.priceInCents(line));
+        buffer.putInt(cart.quantity(line));
+    }
+
+    /**
+     * Line arrays of a cart being decoded.
+     */
+    private static final class Lines {
+        private int[] itemIds;
+        private int[] categoryIds;
+        private int[] sellerIds;
+        private long[] pricesInCents;
+        private int[] quantities;
+        private byte[] types;
+        private byte[] parents;
+        private int count;
+
+        Lines(int capacity) {
+            itemIds = new int[capacity];
+            categoryIds = new int[capacity];
+            sellerIds = new int[capacity];
+            pricesInCents = new long[capacity];
+            quantities = new int[capacity];
+            types = new byte[capacity];
+            parents = new byte[capacity];
+        }
+
+        void add(ByteBuffer buffer, byte type, int parent) {
+            if (count == itemIds.length) {
+                int capacity = Math.max(4, count * 2);
+                itemIds = Arrays.copyOf(itemIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                sellerIds = Arrays.copyOf(sellerIds, capacity);
+                pricesInCents = Arrays.copyOf(pricesInCents, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                types = Arrays.copyOf(types, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+            }
+            itemIds[count] = buffer.getInt();
+            categoryIds[count] = buffer.getInt();
+            sellerIds[count] = buffer.getInt();
+            pricesInCents[count] = buffer.getLong();
+            quantities[count] = buffer.getInt();
+            types[count] = type;
+            parents[count] = (byte) parent;
+            count++;
+        }
+
+        int[] trimmed(int[] values) {
+            return values.length == count ? values : Arrays.copyOf(values, count);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.trendyol.checkout.snapshot;
+
+import com.trendyol.checkout.store.CartStore;
+
+/**
+ * Point in time copies of all carts, so a restart only replays the mutation log written after
+ * the latest one.
+ */
+public interface CartSnapshotStore {
+    CartSnapshotStore DISABLED = cartStore -> 0;
+
+    /**
+     * Loads the carts of the latest snapshot into the store.
+     *
+     * @return number of carts loaded
+     */
+    int restore(CartStore cartStore);
+}
@@ -0,0 +1,327 @@
+package com.trendyol.checkout.snapshot;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.wal.CartMutationLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link CartSnapshotStore} writing every committed cart to {@code snapshot-<checkpoint>.bin} files,
+ * where the checkpoint is the one of the {@link CartMutationLog} taken right before the carts are
+ * read. Carts are never changed once committed, so a snapshot is taken while requests keep
+ * mutating carts and every cart is written in one of its committed versions, at least the one
+ * of its last record before the checkpoint. The log before the checkpoint is truncated once the
+ * snapshot is on disk, records after it that the snapshot already contains are skipped by
+ * their version when replayed.
+ * <p>
+ * A snapshot file is laid out as
+ * <pre>
+ * int magic, int format version, long checkpoint, chunks, chunk index, long index offset, int chunk count, int magic
+ * </pre>
+ * where every chunk holds whole carts and the index keeps the offset, length, cart count and
+ * CRC32C of each chunk, so the chunks of a snapshot are mapped and decoded in parallel on restore.
+ */
+public class FileCartSnapshotStore implements CartSnapshotStore, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FileCartSnapshotStore.class);
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x43534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + 3 * Integer.BYTES;
+    private static final int TRAILER_SIZE = Long.BYTES + 2 * Integer.BYTES;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final CartStore cartStore;
+    private final CartMutationLog mutationLog;
+    private final Path directory;
+    private final int loadParallelism;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    public FileCartSnapshotStore(CartStore cartStore, CartMutationLog mutationLog, Path directory, int loadParallelism) {
+        this.cartStore = cartStore;
+        this.mutationLog = mutationLog;
+        this.directory = directory;
+        this.loadParallelism = loadParallelism;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(directory);
+            // Left behind by a snapshot interrupted before it was published
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.filter(path -> path.getFileName().toString().endsWith(TEMPORARY_SUFFIX)).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart snapshot directory " + directory + " could not be created", e);
+        }
+    }
+
+    /**
+     * Starts taking a snapshot every interval. Must only be called once the carts have been
+     * recovered, a snapshot of a store still being recovered would truncate records not yet replayed.
+     */
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (RuntimeException e) {
+                logger.error("Cart snapshot could not be taken", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes every committed cart to a new snapshot, then deletes the older snapshots and the
+     * mutation log it makes obsolete and lets the cart store drop its other copies of the carts.
+     *
+     * @return path of the new snapshot
+     */
+    public Path takeSnapshot() {
+        // A lock rather than a monitor, the snapshot blocks on file I/O while holding it
+        snapshotLock.lock();
+        try {
+            long startNanos = System.nanoTime();
+            long checkpoint = mutationLog.checkpoint();
+            long mark = cartStore.beginSnapshot();
+            Path temporaryPath = directory.resolve(fileName(checkpoint) + TEMPORARY_SUFFIX);
+            Path path = directory.resolve(fileName(checkpoint));
+
+            int cartCount;
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ChunkWriter writer = new ChunkWriter(channel, checkpoint);
+                cartStore.forEach(writer::write);
+                writer.finish();
+                channel.force(true);
+                cartCount = writer.cartCount;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cart snapshot " + temporaryPath + " could not be written", e);
+            }
+
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+                for (Path snapshot : listSnapshots()) {
+                    if (checkpointOf(snapshot) < checkpoint) {
+                        Files.deleteIfExists(snapshot);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cart snapshot " + path + " could not be published", e);
+            }
+            mutationLog.truncateBefore(checkpoint);
+            cartStore.snapshotDurable(mark);
+
+            logger.info("Wrote {} carts to {} in {} ms", cartCount, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return path;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public int restore(CartStore cartStore) {
+        Optional<Path> latest;
+        try {
+            latest = listSnapshots().stream().max(Comparator.comparingLong(FileCartSnapshotStore::checkpointOf));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart snapshots could not be listed in " + directory, e);
+        }
+        if (latest.isEmpty()) {
+            return 0;
+        }
+
+        long startNanos = System.nanoTime();
+        Path path = latest.get();
+        int cartCount;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Chunk> chunks = readIndex(channel, path);
+            ForkJoinPool pool = new ForkJoinPool(loadParallelism);
+            try {
+                cartCount = pool.submit(() -> IntStream.range(0, chunks.size()).parallel()
+                        .map(i -> restoreChunk(channel, path, chunks.get(i), cartStore))
+                        .sum()).join();
+            } finally {
+                pool.shutdown();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart snapshot " + path + " could not be read", e);
+        }
+
+        logger.info("Restored {} carts from {} in {} ms", cartCount, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return cartCount;
+    }
+
+    /**
+     * Stops the periodic snapshots.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static List<Chunk> readIndex(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + TRAILER_SIZE) {
+            throw new IllegalStateException("Cart snapshot " + path + " is truncated");
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            throw new IllegalStateException("Cart snapshot " + path + " has an unknown format");
+        }
+        long indexOffset = trailer.getLong();
+        int chunkCount = trailer.getInt();
+        if (trailer.getInt() != MAGIC || indexOffset + (long) chunkCount * INDEX_ENTRY_SIZE != size - TRAILER_SIZE) {
+            throw new IllegalStateException("Cart snapshot " + path + " has a corrupt index");
+        }
+
+        ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) chunkCount * INDEX_ENTRY_SIZE);
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.add(new Chunk(index.getLong(), index.getInt(), index.getInt(), index.getInt()));
+        }
+        return chunks;
+    }
+
+    private static int restoreChunk(FileChannel channel, Path path, Chunk chunk, CartStore cartStore) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset(), chunk.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart snapshot " + path + " could not be mapped", e);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != chunk.crc()) {
+            throw new IllegalStateException("Cart snapshot " + path + " has a corrupt chunk at offset " + chunk.offset());
+        }
+        for (int i = 0; i < chunk.cartCount(); i++) {
+            cartStore.restore(CartSnapshotCodec.decode(buffer));
+        }
+        return chunk.cartCount();
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(FileCartSnapshotStore::isSnapshot).toList();
+        }
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static long checkpointOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private static String fileName(long checkpoint) {
+        return String.format("%s%020d%s", SNAPSHOT_PREFIX, checkpoint, SNAPSHOT_SUFFIX);
+    }
+
+    private record Chunk(long offset, int length, int cartCount, int crc) {
+    }
+
+    /**
+     * Gathers carts into a chunk buffer and writes it out with its index entry once the next cart
+     * does not fit.
+     */
+    private static class ChunkWriter {
+        private final FileChannel channel;
+        private final List<Chunk> chunks = new ArrayList<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        private long position;
+        private int chunkCartCount;
+        private int cartCount;
+
+        ChunkWriter(FileChannel channel, long checkpoint) throws IOException {
+            this.channel = channel;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(checkpoint).flip();
+            writeFully(header);
+        }
+
+        void write(CompactCart cart) {
+            // Carts that were only looked up have nothing to restore
+            if (cart.getVersion() == 0) {
+                return;
+            }
+            int size = CartSnapshotCodec.size(cart);
+            if (buffer.remaining() < size) {
+                flushChunk();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size);
+                }
+            }
+            CartSnapshotCodec.encode(buffer, cart);
+            chunkCartCount++;
+            cartCount++;
+        }
+
+        void finish() throws IOException {
+            flushChunk();
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(chunks.size() * INDEX_ENTRY_SIZE + TRAILER_SIZE);
+            for (Chunk chunk : chunks) {
+                index.putLong(chunk.offset()).putInt(chunk.length()).putInt(chunk.cartCount()).putInt(chunk.crc());
+            }
+            index.putLong(indexOffset).putInt(chunks.size()).putInt(MAGIC).flip();
+            writeFully(index);
+        }
+
+        private void flushChunk() {
+            if (chunkCartCount == 0) {
+                return;
+            }
+            buffer.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate());
+            chunks.add(new Chunk(position, buffer.remaining(), chunkCartCount, (int) crc.getValue()));
+            try {
+                writeFully(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+            chunkCartCount = 0;
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                position += channel.write(source);
+            }
+        }
+    }
+}
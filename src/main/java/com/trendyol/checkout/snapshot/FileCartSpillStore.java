@@ -0,0 +1,184 @@
+package com.trendyol.checkout.snapshot;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Disk tier of the carts moved out of memory, one {@code <id>.cart} file per cart spread over 256
+ * directories by the low byte of the id. A cart is written to a temporary file and forced by
+ * {@link #prepare}, then moved in place by {@link #publish}, so a spilled cart is durable before it
+ * leaves memory and a file is never seen half written. The caller can do the slow write without
+ * holding a lock and take it for the move only. A file is laid out as
+ * <pre>
+ * int magic, int CRC32C of the cart, cart
+ * </pre>
+ * with the cart in the layout of {@link CartSnapshotCodec}.
+ */
+public class FileCartSpillStore {
+    private static final String CART_SUFFIX = ".cart";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x43535043;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final Path directory;
+
+    public FileCartSpillStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            // Left behind by a spill interrupted before it was published
+            try (Stream<Path> files = Files.walk(directory, 2)) {
+                for (Path path : files.filter(path -> path.getFileName().toString().endsWith(TEMPORARY_SUFFIX)).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart spill store could not be opened in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes the cart to a temporary file and forces it to disk, the cart's spill file is unchanged
+     * until the returned spill is published.
+     */
+    public Spill prepare(CompactCart cart) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + CartSnapshotCodec.size(cart));
+        buffer.position(HEADER_SIZE);
+        CartSnapshotCodec.encode(buffer, cart);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_SIZE, buffer.position() - HEADER_SIZE);
+        buffer.putInt(0, MAGIC).putInt(Integer.BYTES, (int) crc.getValue()).flip();
+
+        Path path = pathOf(cart.getId());
+        Path temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        try {
+            Files.createDirectories(path.getParent());
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart " + cart.getId() + " could not be spilled to " + temporaryPath, e);
+        }
+        return new Spill(cart.getId(), temporaryPath);
+    }
+
+    /**
+     * Makes the prepared cart the spill file of the cart, replacing the previous one.
+     */
+    public void publish(Spill spill) {
+        Path path = pathOf(spill.cartId());
+        try {
+            Files.move(spill.temporaryPath(), path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart " + spill.cartId() + " could not be spilled to " + path, e);
+        }
+    }
+
+    public void discard(Spill spill) {
+        try {
+            Files.deleteIfExists(spill.temporaryPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unpublished spill of cart " + spill.cartId() + " could not be deleted", e);
+        }
+    }
+
+    public Optional<CompactCart> read(int cartId) {
+        Path path = pathOf(cartId);
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spilled cart " + cartId + " could not be read from " + path, e);
+        }
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("File " + path + " of cart " + cartId + " is not a spilled cart");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_SIZE, buffer.limit() - HEADER_SIZE);
+        if (buffer.getInt(Integer.BYTES) != (int) crc.getValue()) {
+            throw new IllegalStateException("Spilled cart " + cartId + " in " + path + " is corrupt");
+        }
+        return Optional.of(CartSnapshotCodec.decode(buffer.position(HEADER_SIZE)));
+    }
+
+    /**
+     * @return when the spill file of the cart was written, empty when the cart has none
+     */
+    public Optional<Instant> spilledAt(int cartId) {
+        Path path = pathOf(cartId);
+        try {
+            return Optional.of(Files.getLastModifiedTime(path).toInstant());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spilled cart " + cartId + " could not be read from " + path, e);
+        }
+    }
+
+    /**
+     * Visits the id of every spilled cart with the time its spill file was written, taken from the
+     * directory walk without opening the files.
+     */
+    public void forEachSpilled(BiConsumer<Integer, Instant> action) {
+        try {
+            Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 2, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                    String name = path.getFileName().toString();
+                    if (attributes.isRegularFile() && name.endsWith(CART_SUFFIX)) {
+                        action.accept(Integer.parseInt(name.substring(0, name.length() - CART_SUFFIX.length())),
+                                attributes.lastModifiedTime().toInstant());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spilled carts could not be listed in " + directory, e);
+        }
+    }
+
+    public void delete(int cartId) {
+        Path path = pathOf(cartId);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spilled cart " + cartId + " could not be deleted from " + path, e);
+        }
+    }
+
+    private Path pathOf(int cartId) {
+        return directory.resolve(String.format("%02x", cartId & 0xFF)).resolve(cartId + CART_SUFFIX);
+    }
+
+    /**
+     * A cart written to disk but not yet published as its spill file.
+     */
+    public record Spill(int cartId, Path temporaryPath) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.trendyol.checkout.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open addressing hash table from cart id to the long address of the cart's slot, kept in
+ * off-heap memory so it costs the heap nothing per cart. Collisions are probed linearly and a
+ * removal shifts the entries of its probe sequence back instead of leaving a tombstone. The table
+ * doubles when it is three quarters full. Not thread safe, the owner of the index guards it.
+ */
+final class CartSlotIndex {
+    private static final int ENTRY_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int ADDRESS_OFFSET = Integer.BYTES;
+    // Addresses are stored plus one, so the zeroed memory of a new table reads as empty
+    private static final long EMPTY = 0;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    CartSlotIndex(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1);
+    }
+
+    /**
+     * @return address of the cart's slot, {@link SlabAllocator#NO_ADDRESS} when the cart is not indexed
+     */
+    long get(int cartId) {
+        for (int entry = home(cartId); ; entry = (entry + 1) & mask) {
+            long storedAddress = storedAddress(entry);
+            if (storedAddress == EMPTY) {
+                return SlabAllocator.NO_ADDRESS;
+            }
+            if (cartId(entry) == cartId) {
+                return storedAddress - 1;
+            }
+        }
+    }
+
+    void put(int cartId, long address) {
+        if ((size + 1) * 4L > (mask + 1) * 3L) {
+            grow();
+        }
+        int entry = home(cartId);
+        while (storedAddress(entry) != EMPTY && cartId(entry) != cartId) {
+            entry = (entry + 1) & mask;
+        }
+        if (storedAddress(entry) == EMPTY) {
+            size++;
+        }
+        write(entry, cartId, address + 1);
+    }
+
+    /**
+     * @return address the cart was indexed with, {@link SlabAllocator#NO_ADDRESS} when it was not
+     */
+    long remove(int cartId) {
+        int entry = home(cartId);
+        while (storedAddress(entry) != EMPTY && cartId(entry) != cartId) {
+            entry = (entry + 1) & mask;
+        }
+        long storedAddress = storedAddress(entry);
+        if (storedAddress == EMPTY) {
+            return SlabAllocator.NO_ADDRESS;
+        }
+
+        // Move back every later entry of the probe sequence whose home is not between the hole and itself
+        int hole = entry;
+        for (int next = (hole + 1) & mask; storedAddress(next) != EMPTY; next = (next + 1) & mask) {
+            int home = home(cartId(next));
+            boolean reachableFromHole = hole <= next ? home <= hole || home > next : home <= hole && home > next;
+            if (reachableFromHole) {
+                write(hole, cartId(next), storedAddress(next));
+                hole = next;
+            }
+        }
+        write(hole, 0, EMPTY);
+        size--;
+        return storedAddress - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long reservedBytes() {
+        return table.capacity();
+    }
+
+    private void grow() {
+        ByteBuffer previous = table;
+        int previousCapacity = mask + 1;
+        allocate(previousCapacity << 1);
+        for (int entry = 0; entry < previousCapacity; entry++) {
+            long storedAddress = previous.getLong(entry * ENTRY_SIZE + ADDRESS_OFFSET);
+            if (storedAddress != EMPTY) {
+                int cartId = previous.getInt(entry * ENTRY_SIZE);
+                int target = home(cartId);
+                while (storedAddress(target) != EMPTY) {
+                    target = (target + 1) & mask;
+                }
+                write(target, cartId, storedAddress);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (capacity <= 0 || (long) capacity * ENTRY_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Cart slot index cannot grow beyond " + (mask + 1) + " entries");
+        }
+        table = ByteBuffer.allocateDirect(capacity * ENTRY_SIZE);
+        mask = capacity - 1;
+    }
+
+    private int home(int cartId) {
+        // Murmur3 finalizer, the shards of the store already split the ids on the golden ratio hash
+        int hash = cartId;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash & mask;
+    }
+
+    private int cartId(int entry) {
+        return table.getInt(entry * ENTRY_SIZE);
+    }
+
+    private long storedAddress(int entry) {
+        return table.getLong(entry * ENTRY_SIZE + ADDRESS_OFFSET);
+    }
+
+    private void write(int entry, int cartId, long storedAddress) {
+        table.putInt(entry * ENTRY_SIZE, cartId);
+        table.putLong(entry * ENTRY_SIZE + ADDRESS_OFFSET, storedAddress);
+    }
+}
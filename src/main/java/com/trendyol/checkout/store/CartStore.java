@@ -0,0 +1,68 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+public interface CartStore {
+    /**
+     * Qualifier of the store keeping the carts in memory, which {@link ExpiringCartStore} wraps.
+     */
+    String RESIDENT = "residentCartStore";
+
+    CompactCart getOrCreate(int cartId);
+    Optional<CompactCart> find(int cartId);
+
+    /**
+     * Commits {@code updated} only if {@code current} is still the committed version of the cart.
+     *
+     * @return false when another mutation has been committed in the meantime
+     */
+    boolean replace(CompactCart current, CompactCart updated);
+    void remove(int cartId);
+
+    /**
+     * Removes the cart only if {@code current} is still its committed version.
+     *
+     * @return false when another mutation has been committed in the meantime
+     */
+    boolean remove(CompactCart current);
+    int size();
+
+    /**
+     * Visits every committed cart without blocking writers, a cart committed during the visit is
+     * seen in one of its versions.
+     */
+    void forEach(Consumer<CompactCart> action);
+
+    /**
+     * Stores the cart as the committed version whatever was committed before, only for loading
+     * carts no request can see yet: before requests are served or when faulting a cart back in.
+     */
+    void restore(CompactCart cart);
+
+    /**
+     * Registers a listener called with the id of every cart the store moves out of memory, stores
+     * keeping every cart in memory never call it.
+     */
+    default void addEvictionListener(IntConsumer listener) {
+    }
+
+    /**
+     * Called by a snapshot right before it visits the carts with {@link #forEach}.
+     *
+     * @return mark to pass to {@link #snapshotDurable} once the snapshot is on disk
+     */
+    default long beginSnapshot() {
+        return 0;
+    }
+
+    /**
+     * Called once the snapshot begun with {@code mark} is on disk. Every cart resident since the
+     * snapshot began is in it, so the store can drop other copies it keeps of those carts.
+     */
+    default void snapshotDurable(long mark) {
+    }
+}
@@ -0,0 +1,480 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.snapshot.FileCartSpillStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link CartStore} moving the carts idle for longer than their TTL out of the wrapped resident
+ * store into a {@link FileCartSpillStore}, and back in on their next access, so memory holds the
+ * carts of the active users only. Digital carts have a TTL of their own.
+ * <p>
+ * Every resident cart has an idle timer in a {@link HashedTimerWheel}, an access only records its
+ * time. When a timer expires, a cart accessed since is scheduled again for the rest of its TTL and
+ * an idle one is spilled, then removed unless a mutation committed meanwhile. A mutation of a cart
+ * evicted after it was read fails its replace and is retried on the cart faulted back in.
+ * <p>
+ * Carts are faulted in and evicted under a {@link ReentrantLock} per stripe of ids, never both at
+ * once, and the lock is not held across the slow file work: an eviction writes and forces the
+ * spill file before taking the lock and only moves it in place under it, once the cart is known
+ * to be unchanged. A fault in reads the spill file first and reads it again under the lock only
+ * when a spill file of the stripe was published or deleted meanwhile, so the first access to a new
+ * cart does no I/O under the lock.
+ * <p>
+ * The spill file of a cart is kept when it is faulted back in: snapshots only contain resident
+ * carts and the log before them is truncated, so the file stays the base of the cart's recovery
+ * until a snapshot contains the cart. It is deleted once a snapshot begun while the cart was
+ * resident is on disk, unless the cart was evicted in between. Spilled carts are dropped for good
+ * once their file is older than the spill TTL, an hourly sweep of the spill directory finds them.
+ */
+public class ExpiringCartStore implements CartStore, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ExpiringCartStore.class);
+    private static final int STRIPE_COUNT = 64;
+    private static final Duration SPILL_SWEEP_INTERVAL = Duration.ofHours(1);
+
+    private final CartStore residentCartStore;
+    private final FileCartSpillStore spillStore;
+    private final long defaultCartTtlNanos;
+    private final long digitalCartTtlNanos;
+    private final Duration spillTtl;
+    private final Duration tick;
+    private final LongSupplier nanoTime;
+    private final HashedTimerWheel<IdleTimer> wheel;
+    private final Map<Integer, IdleTimer> idleTimers = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+    // Incremented under the stripe lock whenever a spill file of the stripe is published or deleted
+    private final AtomicLongArray spillGenerations = new AtomicLongArray(STRIPE_COUNT);
+    // Resident carts whose spill file is still on disk, by the sequence number of when they were found so
+    private final Map<Integer, Long> residentSpilledCarts = new ConcurrentHashMap<>();
+    private final AtomicLong residentSpilledSequence = new AtomicLong();
+    private final List<IntConsumer> evictionListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong evictedCartCount = new AtomicLong();
+    private final AtomicLong faultedInCartCount = new AtomicLong();
+    private final AtomicLong expiredSpilledCartCount = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+
+    public ExpiringCartStore(CartStore residentCartStore, FileCartSpillStore spillStore, Duration defaultCartTtl, Duration digitalCartTtl,
+                             Duration spillTtl, Duration tick, int wheelSize) {
+        this(residentCartStore, spillStore, defaultCartTtl, digitalCartTtl, spillTtl, tick, wheelSize, System::nanoTime);
+    }
+
+    ExpiringCartStore(CartStore residentCartStore, FileCartSpillStore spillStore, Duration defaultCartTtl, Duration digitalCartTtl,
+                      Duration spillTtl, Duration tick, int wheelSize, LongSupplier nanoTime) {
+        this.residentCartStore = residentCartStore;
+        this.spillStore = spillStore;
+        this.defaultCartTtlNanos = defaultCartTtl.toNanos();
+        this.digitalCartTtlNanos = digitalCartTtl.toNanos();
+        this.spillTtl = spillTtl;
+        this.tick = tick;
+        this.nanoTime = nanoTime;
+        this.wheel = new HashedTimerWheel<>(tick, wheelSize, nanoTime.getAsLong());
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        // One thread advances the wheel, the other sweeps the spill directory without delaying the ticks
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "cart-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts expiring idle carts every tick and sweeping the spill directory every hour, the first
+     * sweep right away. Must only be called once the carts have been recovered, until then every
+     * recovered cart is as fresh as the process.
+     */
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::expireIdleCarts, tick.toNanos(), tick.toNanos(), TimeUnit.NANOSECONDS);
+        scheduler.scheduleWithFixedDelay(this::sweepSpilledCarts, 0, SPILL_SWEEP_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public CompactCart getOrCreate(int cartId) {
+        Optional<CompactCart> resident = residentCartStore.find(cartId);
+        CompactCart cart = resident.isPresent() ? resident.get() : faultIn(cartId, true);
+        touch(cart);
+        return cart;
+    }
+
+    public Optional<CompactCart> find(int cartId) {
+        Optional<CompactCart> cart = residentCartStore.find(cartId);
+        if (cart.isEmpty()) {
+            cart = Optional.ofNullable(faultIn(cartId, false));
+        }
+        cart.ifPresent(this::touch);
+        return cart;
+    }
+
+    public boolean replace(CompactCart current, CompactCart updated) {
+        if (!residentCartStore.replace(current, updated)) {
+            return false;
+        }
+        touch(updated);
+        return true;
+    }
+
+    public void remove(int cartId) {
+        int stripe = stripeOf(cartId);
+        stripes[stripe].lock();
+        try {
+            residentCartStore.remove(cartId);
+            deleteSpilled(stripe, cartId);
+            residentSpilledCarts.remove(cartId);
+            idleTimers.remove(cartId);
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    public boolean remove(CompactCart current) {
+        int stripe = stripeOf(current.getId());
+        stripes[stripe].lock();
+        try {
+            if (!residentCartStore.remove(current)) {
+                return false;
+            }
+            deleteSpilled(stripe, current.getId());
+            residentSpilledCarts.remove(current.getId());
+            idleTimers.remove(current.getId());
+            return true;
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    /**
+     * @return number of resident carts
+     */
+    public int size() {
+        return residentCartStore.size();
+    }
+
+    /**
+     * Visits the resident carts, spilled carts are durable in their spill files.
+     */
+    public void forEach(Consumer<CompactCart> action) {
+        residentCartStore.forEach(action);
+    }
+
+    public void restore(CompactCart cart) {
+        residentCartStore.restore(cart);
+        touch(cart);
+    }
+
+    public void addEvictionListener(IntConsumer listener) {
+        evictionListeners.add(listener);
+    }
+
+    public long getEvictedCartCount() {
+        return evictedCartCount.get();
+    }
+
+    public long getFaultedInCartCount() {
+        return faultedInCartCount.get();
+    }
+
+    public long getExpiredSpilledCartCount() {
+        return expiredSpilledCartCount.get();
+    }
+
+    @Override
+    public long beginSnapshot() {
+        return residentSpilledSequence.get();
+    }
+
+    /**
+     * Deletes the spill files of the carts resident since the snapshot began, the snapshot and the
+     * log after it now recover them.
+     */
+    @Override
+    public void snapshotDurable(long mark) {
+        for (Map.Entry<Integer, Long> entry : residentSpilledCarts.entrySet()) {
+            if (entry.getValue() > mark) {
+                // Faulted in after the snapshot began, the snapshot may have missed it
+                continue;
+            }
+            int cartId = entry.getKey();
+            int stripe = stripeOf(cartId);
+            stripes[stripe].lock();
+            try {
+                // An eviction since removed the entry, a fault in after it added a newer one
+                if (residentSpilledCarts.remove(cartId, entry.getValue())) {
+                    deleteSpilled(stripe, cartId);
+                }
+            } catch (RuntimeException e) {
+                residentSpilledCarts.putIfAbsent(cartId, entry.getValue());
+                logger.warn("Spill file of cart {} could not be deleted after the snapshot", cartId, e);
+            } finally {
+                stripes[stripe].unlock();
+            }
+        }
+    }
+
+    /**
+     * Stops expiring carts, the resident carts stay where they are.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    void expireIdleCarts() {
+        try {
+            wheel.advance(nanoTime.getAsLong(), this::expire);
+        } catch (RuntimeException e) {
+            logger.error("Idle carts could not be expired", e);
+        }
+    }
+
+    /**
+     * Drops the spilled carts whose file is older than the spill TTL and records the resident carts
+     * that still have a spill file, such as carts recovered at startup, for the next snapshot to
+     * delete.
+     */
+    void sweepSpilledCarts() {
+        try {
+            Instant expiredBefore = Instant.now().minus(spillTtl);
+            spillStore.forEachSpilled((cartId, spilledAt) -> {
+                boolean unrecorded = residentSpilledCarts.get(cartId) == null && residentCartStore.find(cartId).isPresent();
+                if (spilledAt.isBefore(expiredBefore) || unrecorded) {
+                    sweep(cartId, expiredBefore);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Spilled carts could not be swept", e);
+        }
+    }
+
+    private void sweep(int cartId, Instant expiredBefore) {
+        int stripe = stripeOf(cartId);
+        stripes[stripe].lock();
+        try {
+            if (residentCartStore.find(cartId).isPresent()) {
+                residentSpilledCarts.putIfAbsent(cartId, residentSpilledSequence.incrementAndGet());
+                return;
+            }
+            // Spilled again since the directory was read, the file is the new one
+            Optional<Instant> spilledAt = spillStore.spilledAt(cartId);
+            if (spilledAt.isPresent() && spilledAt.get().isBefore(expiredBefore)) {
+                deleteSpilled(stripe, cartId);
+                expiredSpilledCartCount.incrementAndGet();
+            }
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    private CompactCart faultIn(int cartId, boolean create) {
+        int stripe = stripeOf(cartId);
+        long spillGeneration = spillGenerations.get(stripe);
+        Optional<CompactCart> spilled = spillStore.read(cartId);
+
+        stripes[stripe].lock();
+        try {
+            Optional<CompactCart> resident = residentCartStore.find(cartId);
+            if (resident.isPresent()) {
+                return resident.get();
+            }
+            if (spillGenerations.get(stripe) != spillGeneration) {
+                // The file read may be stale, a cart of the stripe was spilled or removed since
+                spilled = spillStore.read(cartId);
+            }
+            if (spilled.isPresent()) {
+                // No request can see the cart while it is not resident, so it is restored as is
+                residentCartStore.restore(spilled.get());
+                residentSpilledCarts.put(cartId, residentSpilledSequence.incrementAndGet());
+                faultedInCartCount.incrementAndGet();
+                return spilled.get();
+            }
+            return create ? residentCartStore.getOrCreate(cartId) : null;
+        } finally {
+            stripes[stripe].unlock();
+        }
+    }
+
+    private void touch(CompactCart cart) {
+        long now = nanoTime.getAsLong();
+        IdleTimer timer = idleTimers.get(cart.getId());
+        if (timer != null) {
+            timer.lastAccessNanos = now;
+            return;
+        }
+        idleTimers.computeIfAbsent(cart.getId(), cartId -> {
+            // The cart type may change until the timer expires, the expiry takes the TTL of the cart by then
+            IdleTimer created = new IdleTimer(cartId, now);
+            created.deadlineNanos = now + Math.min(defaultCartTtlNanos, digitalCartTtlNanos);
+            wheel.schedule(created);
+            return created;
+        }).lastAccessNanos = now;
+    }
+
+    private void expire(IdleTimer timer) {
+        long now = nanoTime.getAsLong();
+        int stripe = stripeOf(timer.cartId);
+        CompactCart cart;
+        stripes[stripe].lock();
+        try {
+            cart = idleCart(timer, now);
+        } finally {
+            stripes[stripe].unlock();
+        }
+        if (cart == null) {
+            return;
+        }
+
+        FileCartSpillStore.Spill spill = null;
+        try {
+            // A cart never changed is created again on its next access
+            if (cart.getVersion() > 0) {
+                spill = spillStore.prepare(cart);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Idle cart {} could not be spilled, it stays in memory", timer.cartId, e);
+            reschedule(timer, now + ttlOf(cart));
+            return;
+        }
+
+        stripes[stripe].lock();
+        try {
+            if (!evict(stripe, timer, cart, spill, now)) {
+                return;
+            }
+        } finally {
+            stripes[stripe].unlock();
+        }
+
+        evictedCartCount.incrementAndGet();
+        for (IntConsumer listener : evictionListeners) {
+            listener.accept(timer.cartId);
+        }
+    }
+
+    /**
+     * @return the resident cart when it has been idle for its TTL, null when the timer was removed,
+     * the cart is gone or the timer is scheduled again
+     */
+    private CompactCart idleCart(IdleTimer timer, long now) {
+        if (idleTimers.get(timer.cartId) != timer) {
+            // Removed since it was scheduled
+            return null;
+        }
+        Optional<CompactCart> cart = residentCartStore.find(timer.cartId);
+        if (cart.isEmpty()) {
+            idleTimers.remove(timer.cartId, timer);
+            return null;
+        }
+
+        long deadline = timer.lastAccessNanos + ttlOf(cart.get());
+        if (deadline - now > 0) {
+            reschedule(timer, deadline);
+            return null;
+        }
+        return cart.get();
+    }
+
+    /**
+     * Publishes the spilled cart and removes it from memory if it is still the committed, idle
+     * version, otherwise the spill is dropped.
+     *
+     * @return true when the cart was evicted
+     */
+    private boolean evict(int stripe, IdleTimer timer, CompactCart cart, FileCartSpillStore.Spill spill, long now) {
+        if (idleTimers.get(timer.cartId) != timer) {
+            // Removed while it was being spilled
+            discard(spill);
+            return false;
+        }
+        Optional<CompactCart> resident = residentCartStore.find(timer.cartId);
+        boolean unchanged = resident.isPresent() && resident.get().getVersion() == cart.getVersion();
+        if (!unchanged || timer.lastAccessNanos + ttlOf(cart) - now > 0) {
+            // Committed or read while it was being spilled, so it is not idle
+            discard(spill);
+            reschedule(timer, Math.max(now, timer.lastAccessNanos) + ttlOf(cart));
+            return false;
+        }
+
+        if (spill != null) {
+            try {
+                spillStore.publish(spill);
+            } catch (RuntimeException e) {
+                logger.error("Idle cart {} could not be spilled, it stays in memory", timer.cartId, e);
+                discard(spill);
+                reschedule(timer, now + ttlOf(cart));
+                return false;
+            }
+            spillGenerations.incrementAndGet(stripe);
+        }
+
+        if (!residentCartStore.remove(cart)) {
+            // Committed after it was read, so it is not idle, the published file is an older copy
+            if (spill != null) {
+                residentSpilledCarts.putIfAbsent(timer.cartId, residentSpilledSequence.incrementAndGet());
+            }
+            reschedule(timer, now + ttlOf(cart));
+            return false;
+        }
+        // The spill file is the cart now
+        residentSpilledCarts.remove(timer.cartId);
+        idleTimers.remove(timer.cartId, timer);
+        return true;
+    }
+
+    private void discard(FileCartSpillStore.Spill spill) {
+        if (spill == null) {
+            return;
+        }
+        try {
+            spillStore.discard(spill);
+        } catch (RuntimeException e) {
+            // Overwritten by the next spill of the cart or removed on the next start
+            logger.warn("Unpublished spill of cart {} could not be deleted", spill.cartId(), e);
+        }
+    }
+
+    private void deleteSpilled(int stripe, int cartId) {
+        spillStore.delete(cartId);
+        spillGenerations.incrementAndGet(stripe);
+    }
+
+    private void reschedule(IdleTimer timer, long deadlineNanos) {
+        timer.deadlineNanos = deadlineNanos;
+        wheel.schedule(timer);
+    }
+
+    private long ttlOf(CompactCart cart) {
+        return Boolean.TRUE.equals(cart.isDigitalItemCart()) ? digitalCartTtlNanos : defaultCartTtlNanos;
+    }
+
+    private static int stripeOf(int cartId) {
+        int hash = cartId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1);
+    }
+
+    private static final class IdleTimer extends HashedTimerWheel.Timer {
+        private final int cartId;
+        private volatile long lastAccessNanos;
+
+        private IdleTimer(int cartId, long lastAccessNanos) {
+            this.cartId = cartId;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+}
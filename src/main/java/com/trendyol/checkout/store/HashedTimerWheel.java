@@ -0,0 +1,101 @@
+package com.trendyol.checkout.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: a ring of buckets, one per tick, a timer hashed into the bucket of its
+ * deadline tick with the number of full turns of the wheel still to wait. Scheduling and expiring
+ * a timer are constant time whatever the number of timers, and an advance only walks the buckets
+ * of the ticks that passed instead of every timer.
+ * <p>
+ * Timers may be scheduled from any thread, they are queued and hashed into their bucket by the
+ * next {@link #advance}. Advancing is left to a single thread.
+ */
+final class HashedTimerWheel<T extends HashedTimerWheel.Timer> {
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timer[] buckets;
+    private final int mask;
+    private final Queue<T> scheduled = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    HashedTimerWheel(Duration tick, int wheelSize, long startNanos) {
+        if (tick.isNegative() || tick.isZero() || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Timer wheel needs a positive tick and a power of two size: " + tick + ", " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        this.startNanos = startNanos;
+        this.buckets = new Timer[wheelSize];
+        this.mask = wheelSize - 1;
+    }
+
+    /**
+     * Schedules the timer to expire at its {@link Timer#deadlineNanos}, a timer must not be
+     * scheduled again before it expired.
+     */
+    void schedule(T timer) {
+        scheduled.add(timer);
+    }
+
+    /**
+     * Moves the wheel to the tick of {@code nowNanos} and hands the timers expired on the way to
+     * {@code expired}. Timers scheduled by {@code expired} are hashed in on the next tick.
+     */
+    void advance(long nowNanos, Consumer<T> expired) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        List<T> expiredTimers = new ArrayList<>();
+        while (currentTick <= targetTick) {
+            hashScheduledTimers();
+            expireBucket(expiredTimers);
+            currentTick++;
+            expiredTimers.forEach(expired);
+            expiredTimers.clear();
+        }
+    }
+
+    private void hashScheduledTimers() {
+        T timer;
+        while ((timer = scheduled.poll()) != null) {
+            // A deadline in the past expires on the current tick
+            long deadlineTick = Math.max((timer.deadlineNanos - startNanos + tickNanos - 1) / tickNanos, currentTick);
+            int bucket = (int) (deadlineTick & mask);
+            timer.remainingRounds = (deadlineTick - currentTick) / buckets.length;
+            timer.next = buckets[bucket];
+            buckets[bucket] = timer;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expireBucket(List<T> expiredTimers) {
+        int bucket = (int) (currentTick & mask);
+        Timer previous = null;
+        Timer timer = buckets[bucket];
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.remainingRounds > 0) {
+                timer.remainingRounds--;
+                previous = timer;
+            } else {
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+                timer.next = null;
+                expiredTimers.add((T) timer);
+            }
+            timer = next;
+        }
+    }
+
+    static class Timer {
+        long deadlineNanos;
+        long remainingRounds;
+        Timer next;
+    }
+}
@@ -0,0 +1,489 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.CartConstants;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.ItemType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps every cart of the node in off-heap memory, so the heap and the collector's work do not
+ * grow with the number of carts. Each shard has its own lock, an off-heap {@link CartSlotIndex}
+ * from cart id to slot address and two {@link SlabAllocator}s: one for the fixed size cart slots,
+ * which hold the cart and its non VAS lines, at most
+ * {@link CartConstants#MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART}, and one for the overflow blocks every
+ * VAS line is chained into, whether the VAS item is a line of the cart or attached to a default item.
+ * <p>
+ * A cart keeps its slot until it is removed and a new version is written over the old one. The
+ * overflow blocks are given back to the free list on every write, so a reset cart frees them and
+ * the next cart needing them takes them back. Reads decode a {@link CompactCart}, so
+ * {@link #replace} compares the committed version instead of the instance.
+ * <p>
+ * Readers do not take the shard lock. A read decodes the cart under an optimistic stamp of the
+ * shard's {@link StampedLock} and validates the stamp afterwards; only a read that raced a writer
+ * is repeated under the read lock. Memory a writer is changing can decode to anything, so a
+ * racing read may also fail with an exception, which is dropped when the stamp does not validate.
+ * <p>
+ * Slab layout of a cart slot:
+ * <pre>
+ * byte allocated, int id, long version, int item count, int unique item count,
+ * long total price in cents, long total discount in cents, int applied promotion id,
+ * byte digital cart (-1 unknown, 0, 1), byte line count, byte VAS line count,
+ * long overflow address, non VAS lines
+ * </pre>
+ * A line is int item id, int category id, int seller id, int quantity, long price in cents and
+ * byte type; an overflow block is byte allocated, long next block address and VAS lines in cart
+ * order. A VAS line also carries a byte: the position among the cart lines of the default item it
+ * is attached to, or below {@link CompactCart#NO_PARENT} its own position when it is a cart line.
+ */
+@Component
+@Qualifier(CartStore.RESIDENT)
+@ConditionalOnProperty(name = "checkout.cart-store.type", havingValue = "off-heap")
+public class OffHeapCartStore implements CartStore {
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+    private static final int NO_PROMOTION = Integer.MIN_VALUE;
+
+    private static final int ID_OFFSET = SlabAllocator.HEADER_SIZE;
+    private static final int VERSION_OFFSET = ID_OFFSET + Integer.BYTES;
+    private static final int ITEM_COUNT_OFFSET = VERSION_OFFSET + Long.BYTES;
+    private static final int UNIQUE_ITEM_COUNT_OFFSET = ITEM_COUNT_OFFSET + Integer.BYTES;
+    private static final int TOTAL_PRICE_OFFSET = UNIQUE_ITEM_COUNT_OFFSET + Integer.BYTES;
+    private static final int TOTAL_DISCOUNT_OFFSET = TOTAL_PRICE_OFFSET + Long.BYTES;
+    private static final int APPLIED_PROMOTION_OFFSET = TOTAL_DISCOUNT_OFFSET + Long.BYTES;
+    private static final int DIGITAL_CART_OFFSET = APPLIED_PROMOTION_OFFSET + Integer.BYTES;
+    private static final int LINE_COUNT_OFFSET = DIGITAL_CART_OFFSET + 1;
+    private static final int VAS_LINE_COUNT_OFFSET = LINE_COUNT_OFFSET + 1;
+    private static final int OVERFLOW_OFFSET = VAS_LINE_COUNT_OFFSET + 1;
+    private static final int LINES_OFFSET = OVERFLOW_OFFSET + Long.BYTES;
+
+    private static final int LINE_ITEM_ID = 0;
+    private static final int LINE_CATEGORY_ID = LINE_ITEM_ID + Integer.BYTES;
+    private static final int LINE_SELLER_ID = LINE_CATEGORY_ID + Integer.BYTES;
+    private static final int LINE_QUANTITY = LINE_SELLER_ID + Integer.BYTES;
+    private static final int LINE_PRICE = LINE_QUANTITY + Integer.BYTES;
+    private static final int LINE_TYPE = LINE_PRICE + Long.BYTES;
+    private static final int LINE_SIZE = LINE_TYPE + 1;
+    private static final int LINE_PARENT = LINE_SIZE;
+    private static final int VAS_LINE_SIZE = LINE_PARENT + 1;
+
+    // VAS items are not counted against the unique item limit, they all go to the overflow blocks
+    private static final int SLOT_LINES = CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART;
+    private static final int SLOT_SIZE = LINES_OFFSET + SLOT_LINES * LINE_SIZE;
+
+    private static final int NEXT_BLOCK_OFFSET = SlabAllocator.HEADER_SIZE;
+    private static final int BLOCK_LINES_OFFSET = NEXT_BLOCK_OFFSET + Long.BYTES;
+    private static final int BLOCK_LINES = 4;
+    private static final int BLOCK_SIZE = BLOCK_LINES_OFFSET + BLOCK_LINES * VAS_LINE_SIZE;
+
+    private final Shard[] shards;
+    private final int shardMask;
+
+    @Autowired
+    public OffHeapCartStore(@Value("${checkout.cart-store.shard-count:64}") int shardCount,
+                            @Value("${checkout.cart-store.off-heap.slab-size:1MB}") DataSize slabSize) {
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Shard count must be a positive power of two: " + shardCount);
+        }
+        if (slabSize.toBytes() < SLOT_SIZE || slabSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slab size must be between " + SLOT_SIZE + " and " + Integer.MAX_VALUE + " bytes: " + slabSize);
+        }
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard((int) slabSize.toBytes());
+        }
+        this.shardMask = shardCount - 1;
+    }
+
+    public CompactCart getOrCreate(int cartId) {
+        Optional<CompactCart> cart = find(cartId);
+        if (cart.isPresent()) {
+            return cart.get();
+        }
+
+        Shard shard = shardOf(cartId);
+        long stamp = shard.lock.writeLock();
+        try {
+            long slot = shard.index.get(cartId);
+            if (slot != SlabAllocator.NO_ADDRESS) {
+                return shard.read(slot);
+            }
+            CompactCart created = CompactCart.empty(cartId);
+            shard.write(shard.allocateSlot(cartId), created);
+            return created;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    public Optional<CompactCart> find(int cartId) {
+        return Optional.ofNullable(shardOf(cartId).find(cartId));
+    }
+
+    public boolean replace(CompactCart current, CompactCart updated) {
+        Shard shard = shardOf(current.getId());
+        long stamp = shard.lock.writeLock();
+        try {
+            long slot = shard.index.get(current.getId());
+            if (slot == SlabAllocator.NO_ADDRESS || shard.version(slot) != current.getVersion()) {
+                return false;
+            }
+            shard.write(slot, updated);
+            return true;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(int cartId) {
+        Shard shard = shardOf(cartId);
+        long stamp = shard.lock.writeLock();
+        try {
+            shard.free(cartId);
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(CompactCart current) {
+        Shard shard = shardOf(current.getId());
+        long stamp = shard.lock.writeLock();
+        try {
+            long slot = shard.index.get(current.getId());
+            if (slot == SlabAllocator.NO_ADDRESS || shard.version(slot) != current.getVersion()) {
+                return false;
+            }
+            shard.free(current.getId());
+            return true;
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                size += shard.index.size();
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Walks the slabs of each shard one at a time, decoding the carts of a slab like {@link #find}
+     * does and visiting them once the slab is decoded. A cart keeps its slot for its lifetime, so
+     * every cart present during the whole walk is visited once.
+     */
+    public void forEach(Consumer<CompactCart> action) {
+        for (Shard shard : shards) {
+            List<CompactCart> carts = new ArrayList<>();
+            for (int slabIndex = 0; shard.readSlab(slabIndex, carts); slabIndex++) {
+                carts.forEach(action);
+                carts.clear();
+            }
+        }
+    }
+
+    public void restore(CompactCart cart) {
+        Shard shard = shardOf(cart.getId());
+        long stamp = shard.lock.writeLock();
+        try {
+            long slot = shard.index.get(cart.getId());
+            shard.write(slot != SlabAllocator.NO_ADDRESS ? slot : shard.allocateSlot(cart.getId()), cart);
+        } finally {
+            shard.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return off-heap bytes taken by the slabs and indexes of all shards
+     */
+    public long reservedBytes() {
+        long reservedBytes = 0;
+        for (Shard shard : shards) {
+            long stamp = shard.lock.readLock();
+            try {
+                reservedBytes += shard.cartSlots.reservedBytes() + shard.overflowBlocks.reservedBytes() + shard.index.reservedBytes();
+            } finally {
+                shard.lock.unlockRead(stamp);
+            }
+        }
+        return reservedBytes;
+    }
+
+    private Shard shardOf(int cartId) {
+        // Spread the bits first, sequential ids would otherwise fill the shards in order
+        int hash = cartId * 0x9E3779B9;
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+
+    private static final class Shard {
+        private final StampedLock lock = new StampedLock();
+        private final CartSlotIndex index = new CartSlotIndex(INITIAL_INDEX_CAPACITY);
+        private final SlabAllocator cartSlots;
+        private final SlabAllocator overflowBlocks;
+
+        private Shard(int slabSize) {
+            this.cartSlots = new SlabAllocator(SLOT_SIZE, slabSize);
+            this.overflowBlocks = new SlabAllocator(BLOCK_SIZE, slabSize);
+        }
+
+        /**
+         * @return the committed cart, or null when the shard does not hold it
+         */
+        private CompactCart find(int cartId) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    CompactCart cart = decode(cartId);
+                    if (lock.validate(stamp)) {
+                        return cart;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+
+            stamp = lock.readLock();
+            try {
+                return decode(cartId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Adds the carts of a slab to {@code carts}, which it leaves empty when a racing read fails.
+         *
+         * @return false when the shard has no slab with the index
+         */
+        private boolean readSlab(int slabIndex, List<CompactCart> carts) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    boolean exists = decodeSlab(slabIndex, carts);
+                    if (lock.validate(stamp)) {
+                        return exists;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+                carts.clear();
+            }
+
+            stamp = lock.readLock();
+            try {
+                return decodeSlab(slabIndex, carts);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private CompactCart decode(int cartId) {
+            long slot = index.get(cartId);
+            return slot == SlabAllocator.NO_ADDRESS ? null : read(slot);
+        }
+
+        private boolean decodeSlab(int slabIndex, List<CompactCart> carts) {
+            if (slabIndex >= cartSlots.slabCount()) {
+                return false;
+            }
+            for (int block = 0; block < cartSlots.blocksPerSlab(); block++) {
+                long slot = cartSlots.address(slabIndex, block);
+                if (cartSlots.isAllocated(slot)) {
+                    carts.add(read(slot));
+                }
+            }
+            return true;
+        }
+
+        private long allocateSlot(int cartId) {
+            long slot = cartSlots.allocate();
+            cartSlots.slab(slot).putLong(SlabAllocator.offset(slot) + OVERFLOW_OFFSET, SlabAllocator.NO_ADDRESS);
+            index.put(cartId, slot);
+            return slot;
+        }
+
+        private long version(long slot) {
+            return cartSlots.slab(slot).getLong(SlabAllocator.offset(slot) + VERSION_OFFSET);
+        }
+
+        private void write(long slot, CompactCart cart) {
+            if (cart.getNonVasItemCount() > SLOT_LINES) {
+                throw new IllegalStateException("Cart " + cart.getId() + " has " + cart.getNonVasItemCount() + " items, more than a cart slot holds");
+            }
+
+            ByteBuffer slab = cartSlots.slab(slot);
+            int offset = SlabAllocator.offset(slot);
+            freeOverflow(slot);
+            slab.putInt(offset + ID_OFFSET, cart.getId());
+            slab.putLong(offset + VERSION_OFFSET, cart.getVersion());
+            slab.putInt(offset + ITEM_COUNT_OFFSET, cart.getItemCount());
+            slab.putInt(offset + UNIQUE_ITEM_COUNT_OFFSET, cart.getUniqueItemCount());
+            slab.putLong(offset + TOTAL_PRICE_OFFSET, cart.getTotalPriceInCents());
+            slab.putLong(offset + TOTAL_DISCOUNT_OFFSET, cart.getTotalDiscountInCents());
+            slab.putInt(offset + APPLIED_PROMOTION_OFFSET, cart.getAppliedPromotionId() != null ? cart.getAppliedPromotionId() : NO_PROMOTION);
+            slab.put(offset + DIGITAL_CART_OFFSET, cart.isDigitalItemCart() == null ? -1 : (byte) (cart.isDigitalItemCart() ? 1 : 0));
+            slab.put(offset + LINE_COUNT_OFFSET, (byte) cart.lineCount());
+            slab.put(offset + VAS_LINE_COUNT_OFFSET, (byte) (cart.lineCount() - cart.getNonVasItemCount()));
+
+            long block = SlabAllocator.NO_ADDRESS;
+            int position = -1;
+            int slotLine = 0;
+            int vasLine = 0;
+            for (int line = 0; line < cart.lineCount(); line++) {
+                boolean cartLine = cart.parent(line) == CompactCart.NO_PARENT;
+                if (cartLine) {
+                    position++;
+                    if (cart.type(line) != ItemType.VAS_ITEM) {
+                        putLine(slab, offset + LINES_OFFSET + slotLine++ * LINE_SIZE, cart, line);
+                        continue;
+                    }
+                }
+
+                if (vasLine % BLOCK_LINES == 0) {
+                    long previous = block;
+                    block = overflowBlocks.allocate();
+                    overflowBlocks.slab(block).putLong(SlabAllocator.offset(block) + NEXT_BLOCK_OFFSET, SlabAllocator.NO_ADDRESS);
+                    if (previous == SlabAllocator.NO_ADDRESS) {
+                        slab.putLong(offset + OVERFLOW_OFFSET, block);
+                    } else {
+                        overflowBlocks.slab(previous).putLong(SlabAllocator.offset(previous) + NEXT_BLOCK_OFFSET, block);
+                    }
+                }
+                int lineOffset = overflowLineOffset(block, vasLine++);
+                putLine(overflowBlocks.slab(block), lineOffset, cart, line);
+                // Attached VAS items follow their default item, which is the last cart line written
+                overflowBlocks.slab(block).put(lineOffset + LINE_PARENT, cartLine ? ownPosition(position) : (byte) position);
+            }
+        }
+
+        private CompactCart read(long slot) {
+            ByteBuffer slab = cartSlots.slab(slot);
+            int offset = SlabAllocator.offset(slot);
+            int lineCount = slab.get(offset + LINE_COUNT_OFFSET);
+            int vasLineCount = slab.get(offset + VAS_LINE_COUNT_OFFSET);
+
+            int[] itemIds = new int[lineCount];
+            int[] categoryIds = new int[lineCount];
+            int[] sellerIds = new int[lineCount];
+            long[] pricesInCents = new long[lineCount];
+            int[] quantities = new int[lineCount];
+            byte[] types = new byte[lineCount];
+            byte[] parents = new byte[lineCount];
+
+            long block = slab.getLong(offset + OVERFLOW_OFFSET);
+            int vasLine = 0;
+            int slotLine = 0;
+            int line = 0;
+            for (int position = 0; line < lineCount; position++) {
+                int parent = line;
+                if (vasLine < vasLineCount && overflowParent(block, vasLine) == ownPosition(position)) {
+                    getLine(overflowBlocks.slab(block), overflowLineOffset(block, vasLine), line, itemIds, categoryIds, sellerIds, pricesInCents, quantities, types);
+                    block = blockOfNextLine(block, ++vasLine);
+                } else {
+                    getLine(slab, offset + LINES_OFFSET + slotLine++ * LINE_SIZE, line, itemIds, categoryIds, sellerIds, pricesInCents, quantities, types);
+                }
+                parents[line++] = CompactCart.NO_PARENT;
+
+                while (vasLine < vasLineCount && overflowParent(block, vasLine) == position) {
+                    getLine(overflowBlocks.slab(block), overflowLineOffset(block, vasLine), line, itemIds, categoryIds, sellerIds, pricesInCents, quantities, types);
+                    parents[line++] = (byte) parent;
+                    block = blockOfNextLine(block, ++vasLine);
+                }
+            }
+
+            int appliedPromotionId = slab.getInt(offset + APPLIED_PROMOTION_OFFSET);
+            byte digitalItemCart = slab.get(offset + DIGITAL_CART_OFFSET);
+            return new CompactCart(slab.getInt(offset + ID_OFFSET), slab.getLong(offset + VERSION_OFFSET),
+                    slab.getInt(offset + ITEM_COUNT_OFFSET), slab.getInt(offset + UNIQUE_ITEM_COUNT_OFFSET),
+                    slab.getLong(offset + TOTAL_PRICE_OFFSET), slab.getLong(offset + TOTAL_DISCOUNT_OFFSET),
+                    appliedPromotionId != NO_PROMOTION ? appliedPromotionId : null,
+                    digitalItemCart == -1 ? null : digitalItemCart == 1,
+                    itemIds, categoryIds, sellerIds, pricesInCents, quantities, types, parents);
+        }
+
+        private byte overflowParent(long block, int vasLine) {
+            return overflowBlocks.slab(block).get(overflowLineOffset(block, vasLine) + LINE_PARENT);
+        }
+
+        /**
+         * @return the block holding the next VAS line once {@code readVasLines} lines are read
+         */
+        private long blockOfNextLine(long block, int readVasLines) {
+            if (readVasLines % BLOCK_LINES != 0) {
+                return block;
+            }
+            return overflowBlocks.slab(block).getLong(SlabAllocator.offset(block) + NEXT_BLOCK_OFFSET);
+        }
+
+        private void free(int cartId) {
+            long slot = index.remove(cartId);
+            if (slot != SlabAllocator.NO_ADDRESS) {
+                freeOverflow(slot);
+                cartSlots.free(slot);
+            }
+        }
+
+        private void freeOverflow(long slot) {
+            ByteBuffer slab = cartSlots.slab(slot);
+            int offset = SlabAllocator.offset(slot);
+            long block = slab.getLong(offset + OVERFLOW_OFFSET);
+            while (block != SlabAllocator.NO_ADDRESS) {
+                long next = overflowBlocks.slab(block).getLong(SlabAllocator.offset(block) + NEXT_BLOCK_OFFSET);
+                overflowBlocks.free(block);
+                block = next;
+            }
+            slab.putLong(offset + OVERFLOW_OFFSET, SlabAllocator.NO_ADDRESS);
+        }
+
+        private static int overflowLineOffset(long block, int vasLine) {
+            return SlabAllocator.offset(block) + BLOCK_LINES_OFFSET + vasLine % BLOCK_LINES * VAS_LINE_SIZE;
+        }
+
+        /**
+         * @return parent byte of a VAS line that is a cart line itself, kept apart from the positions of default items
+         */
+        private static byte ownPosition(int position) {
+            return (byte) (CompactCart.NO_PARENT - 1 - position);
+        }
+
+        private static void putLine(ByteBuffer slab, int lineOffset, CompactCart cart, int line) {
+            slab.putInt(lineOffset + LINE_ITEM_ID, cart.itemId(line));
+            slab.putInt(lineOffset + LINE_CATEGORY_ID, cart.categoryId(line));
+            slab.putInt(lineOffset + LINE_SELLER_ID, cart.sellerId(line));
+            slab.putInt(lineOffset + LINE_QUANTITY, cart.quantity(line));
+            slab.putLong(lineOffset + LINE_PRICE, cart.priceInCents(line));
+            slab.put(lineOffset + LINE_TYPE, (byte) cart.type(line).ordinal());
+        }
+
+        private static void getLine(ByteBuffer slab, int lineOffset, int line, int[] itemIds, int[] categoryIds, int[] sellerIds,
+                                    long[] pricesInCents, int[] quantities, byte[] types) {
+            itemIds[line] = slab.getInt(lineOffset + LINE_ITEM_ID);
+            categoryIds[line] = slab.getInt(lineOffset + LINE_CATEGORY_ID);
+            sellerIds[line] = slab.getInt(lineOffset + LINE_SELLER_ID);
+            quantities[line] = slab.getInt(lineOffset + LINE_QUANTITY);
+            pricesInCents[line] = slab.getLong(lineOffset + LINE_PRICE);
+            types[line] = slab.get(lineOffset + LINE_TYPE);
+        }
+    }
+}
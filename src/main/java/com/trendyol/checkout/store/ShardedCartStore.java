@@ -0,0 +1,88 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps every cart of the node in memory. Carts are spread over a fixed number of
+ * independent maps so that resizing and contention stay local to a shard. Carts are stored
+ * compact and never mutated, a new version replaces the old one as a whole.
+ */
+@Component
+@Qualifier(CartStore.RESIDENT)
+@ConditionalOnProperty(name = "checkout.cart-store.type", havingValue = "heap", matchIfMissing = true)
+public class ShardedCartStore implements CartStore {
+    private static final int SHARD_INITIAL_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<Integer, CompactCart>[] shards;
+    private final int shardMask;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public ShardedCartStore(@Value("${checkout.cart-store.shard-count:64}") int shardCount) {
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Shard count must be a positive power of two: " + shardCount);
+        }
+
+        this.shards = new ConcurrentHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new ConcurrentHashMap<>(SHARD_INITIAL_CAPACITY);
+        }
+        this.shardMask = shardCount - 1;
+    }
+
+    public CompactCart getOrCreate(int cartId) {
+        ConcurrentHashMap<Integer, CompactCart> shard = shardOf(cartId);
+        CompactCart cart = shard.get(cartId);
+        return cart != null ? cart : shard.computeIfAbsent(cartId, CompactCart::empty);
+    }
+
+    public Optional<CompactCart> find(int cartId) {
+        return Optional.ofNullable(shardOf(cartId).get(cartId));
+    }
+
+    public boolean replace(CompactCart current, CompactCart updated) {
+        // Carts do not override equals, so this is a compare-and-swap on the instance
+        return shardOf(current.getId()).replace(current.getId(), current, updated);
+    }
+
+    public void remove(int cartId) {
+        shardOf(cartId).remove(cartId);
+    }
+
+    public boolean remove(CompactCart current) {
+        return shardOf(current.getId()).remove(current.getId(), current);
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<Integer, CompactCart> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public void forEach(Consumer<CompactCart> action) {
+        for (ConcurrentHashMap<Integer, CompactCart> shard : shards) {
+            shard.values().forEach(action);
+        }
+    }
+
+    public void restore(CompactCart cart) {
+        shardOf(cart.getId()).put(cart.getId(), cart);
+    }
+
+    private ConcurrentHashMap<Integer, CompactCart> shardOf(int cartId) {
+        // Spread the bits first, sequential ids would otherwise fill the shards in order
+        int hash = cartId * 0x9E3779B9;
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+}
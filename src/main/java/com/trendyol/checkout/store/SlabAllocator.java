@@ -0,0 +1,100 @@
+package com.trendyol.checkout.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out blocks of one fixed size from slabs of off-heap memory. A slab is allocated when no
+ * free block is left and is never given back; freed blocks are linked into a free list through
+ * their own memory and are reused before a new block is carved. A block is addressed by a long
+ * holding the index of its slab in the high and its offset in the slab in the low half.
+ * <p>
+ * The first byte of a block is set while it is allocated, the caller lays out its data behind
+ * {@link #HEADER_SIZE}. Not thread safe, the owner of the allocator guards it.
+ */
+final class SlabAllocator {
+    static final long NO_ADDRESS = -1;
+    static final int HEADER_SIZE = 1;
+
+    private static final int ALLOCATED_OFFSET = 0;
+    private static final int NEXT_FREE_OFFSET = 1;
+    private static final byte ALLOCATED = 1;
+    private static final byte FREE = 0;
+
+    private final int blockSize;
+    private final int blocksPerSlab;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int carvedBlocksInLastSlab;
+    private long freeList = NO_ADDRESS;
+    private long allocatedBlockCount;
+
+    SlabAllocator(int blockSize, int slabSize) {
+        if (blockSize < HEADER_SIZE + Long.BYTES || slabSize < blockSize) {
+            throw new IllegalArgumentException("Slab of " + slabSize + " bytes cannot hold blocks of " + blockSize + " bytes");
+        }
+        this.blockSize = blockSize;
+        this.blocksPerSlab = slabSize / blockSize;
+    }
+
+    long allocate() {
+        long address;
+        if (freeList != NO_ADDRESS) {
+            address = freeList;
+            freeList = slab(address).getLong(offset(address) + NEXT_FREE_OFFSET);
+        } else {
+            if (slabs.isEmpty() || carvedBlocksInLastSlab == blocksPerSlab) {
+                slabs.add(ByteBuffer.allocateDirect(blocksPerSlab * blockSize));
+                carvedBlocksInLastSlab = 0;
+            }
+            address = address(slabs.size() - 1, carvedBlocksInLastSlab++);
+        }
+        slab(address).put(offset(address) + ALLOCATED_OFFSET, ALLOCATED);
+        allocatedBlockCount++;
+        return address;
+    }
+
+    void free(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        slab.put(offset + ALLOCATED_OFFSET, FREE);
+        slab.putLong(offset + NEXT_FREE_OFFSET, freeList);
+        freeList = address;
+        allocatedBlockCount--;
+    }
+
+    boolean isAllocated(long address) {
+        return slab(address).get(offset(address) + ALLOCATED_OFFSET) == ALLOCATED;
+    }
+
+    ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * @return address of a block, whether it is allocated or not
+     */
+    long address(int slabIndex, int block) {
+        return ((long) slabIndex << 32) | ((long) block * blockSize);
+    }
+
+    int slabCount() {
+        return slabs.size();
+    }
+
+    int blocksPerSlab() {
+        return blocksPerSlab;
+    }
+
+    long allocatedBlockCount() {
+        return allocatedBlockCount;
+    }
+
+    long reservedBytes() {
+        return (long) slabs.size() * blocksPerSlab * blockSize;
+    }
+}
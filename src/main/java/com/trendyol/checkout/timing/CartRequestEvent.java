@@ -0,0 +1,45 @@
+package com.trendyol.checkout.timing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One served cart request with the same phase breakdown as its {@code Server-Timing} header, so a
+ * flight recording attributes slow requests without a profiler attached.
+ */
+@Name("com.trendyol.checkout.CartRequest")
+@Label("Cart Request")
+@Category({"Checkout", "HTTP"})
+@Description("A cart API request and the time spent in each of its phases")
+@StackTrace(false)
+class CartRequestEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    int status;
+
+    @Label("Validation")
+    @Timespan(Timespan.NANOSECONDS)
+    long validation;
+
+    @Label("Mutation")
+    @Timespan(Timespan.NANOSECONDS)
+    long mutation;
+
+    @Label("Promotion")
+    @Timespan(Timespan.NANOSECONDS)
+    long promotion;
+
+    @Label("Serialization")
+    @Timespan(Timespan.NANOSECONDS)
+    long serialization;
+}
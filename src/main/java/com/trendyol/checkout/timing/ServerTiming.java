@@ -0,0 +1,97 @@
+package com.trendyol.checkout.timing;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of the cart request being served on the current thread. A request is
+ * timed between {@link #begin()} and {@link #end()}; outside of that {@link #record} does nothing,
+ * so the service can be called from tests and benchmarks without a request around it. A phase
+ * entered more than once, like validation in a batch or a retried mutation, adds up.
+ */
+public final class ServerTiming {
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    public enum Phase {
+        VALIDATION,
+        MUTATION,
+        PROMOTION,
+        SERIALIZATION;
+
+        private final String metricName = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final long[] durationNanos = new long[Phase.values().length];
+    private final boolean[] recorded = new boolean[Phase.values().length];
+
+    private ServerTiming() {
+    }
+
+    public static ServerTiming begin() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds the time passed since {@code startNanos}, a {@link System#nanoTime()} reading, to the
+     * phase of the request being timed on this thread.
+     */
+    public static void record(Phase phase, long startNanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    public void add(Phase phase, long nanos) {
+        durationNanos[phase.ordinal()] += nanos;
+        recorded[phase.ordinal()] = true;
+    }
+
+    public boolean hasRecords() {
+        for (boolean phaseRecorded : recorded) {
+            if (phaseRecorded) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getDurationNanos(Phase phase) {
+        return durationNanos[phase.ordinal()];
+    }
+
+    /**
+     * Renders the recorded phases as a {@code Server-Timing} header value with millisecond
+     * durations, e.g. {@code validation;dur=0.012, mutation;dur=0.004}.
+     */
+    public String toHeaderValue() {
+        StringBuilder value = new StringBuilder(96);
+        for (Phase phase : Phase.values()) {
+            if (!recorded[phase.ordinal()]) {
+                continue;
+            }
+            if (!value.isEmpty()) {
+                value.append(", ");
+            }
+            long micros = durationNanos[phase.ordinal()] / 1_000;
+            long fraction = micros % 1_000;
+            value.append(phase.metricName).append(";dur=").append(micros / 1_000).append('.');
+            if (fraction < 100) {
+                value.append(fraction < 10 ? "00" : "0");
+            }
+            value.append(fraction);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.trendyol.checkout.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Times the cart request on the current thread and commits it as a {@link CartRequestEvent}.
+ * The header is normally written by {@link ServerTimingMessageConverter} together with the
+ * serialization phase or by {@link ServerTimingResponseBodyAdvice}, the filter only adds it for
+ * responses that had no body to write.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        CartRequestEvent event = new CartRequestEvent();
+        event.begin();
+        ServerTiming timing = ServerTiming.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ServerTiming.end();
+            if (timing.hasRecords() && !response.isCommitted() && !response.containsHeader(ServerTiming.HEADER)) {
+                response.setHeader(ServerTiming.HEADER, timing.toHeaderValue());
+            }
+            commit(event, timing, request, response);
+        }
+    }
+
+    private static void commit(CartRequestEvent event, ServerTiming timing, HttpServletRequest request, HttpServletResponse response) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.method = request.getMethod();
+        event.path = request.getRequestURI();
+        event.status = response.getStatus();
+        event.validation = timing.getDurationNanos(ServerTiming.Phase.VALIDATION);
+        event.mutation = timing.getDurationNanos(ServerTiming.Phase.MUTATION);
+        event.promotion = timing.getDurationNanos(ServerTiming.Phase.PROMOTION);
+        event.serialization = timing.getDurationNanos(ServerTiming.Phase.SERIALIZATION);
+        event.commit();
+    }
+}
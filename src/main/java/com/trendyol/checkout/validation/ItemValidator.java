@@ -1,54 +1,82 @@
 package com.trendyol.checkout.validation;
 
 import com.trendyol.checkout.CartConstants;
-import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CartView;
 import com.trendyol.checkout.exception.InvalidCartStateException;
 import com.trendyol.checkout.exception.InvalidCartItemException;
 import com.trendyol.checkout.models.dto.request.ItemRequest;
 import com.trendyol.checkout.models.dto.request.VasItemRequest;
 import com.trendyol.checkout.models.entity.item.*;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.trendyol.checkout.money.Money;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 
+/**
+ * Validates add requests against the cart. The checks run in a fixed order, the first failing one
+ * is reported. Per type limits and their messages are computed once, a request looks up each
+ * cart line it depends on a single time and the item built from the request is returned, so the
+ * valid path allocates nothing besides that item. Rules that do not depend on the request reject
+ * with a precomputed message.
+ */
 @Component
 public class ItemValidator {
-
-    private Cart cart;
-
-    @Autowired
-    public ItemValidator(Cart cart) {
-        this.cart = cart;
+    private static final int[] MAX_COUNT_BY_TYPE = new int[ItemType.values().length];
+    private static final String[] MAX_COUNT_MESSAGE_BY_TYPE = new String[ItemType.values().length];
+    private static final String MAX_TOTAL_ITEM_COUNT_MESSAGE = "There can be maximum " + CartConstants.MAX_TOTAL_ITEM_COUNT_IN_CART + " items in the cart";
+    private static final String MAX_CART_TOTAL_PRICE_MESSAGE = "Cart total can be maximum " + CartConstants.MAX_CART_TOTAL_PRICE;
+    private static final String MAX_UNIQUE_ITEM_COUNT_MESSAGE = "There can be maximum " + CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART + " unique items in the cart";
+    private static final String DIGITAL_CART_TYPE_MISMATCH_MESSAGE = cartTypeMismatchMessage("digital");
+    private static final String DEFAULT_CART_TYPE_MISMATCH_MESSAGE = cartTypeMismatchMessage("default");
+    private static final String VAS_ITEM_PARENT_CATEGORY_MESSAGE = "You can only add vasItem to default items with category ids: " + CartConstants.CATEGORY_IDS_FOR_DEFAULT_ITEMS_THAT_CAN_HAVE_VAS_ITEM;
+    private static final String MAX_VAS_ITEM_COUNT_MESSAGE = "You cannot add more than " + CartConstants.MAX_VAS_ITEM_COUNT_FOR_A_DEFAULT_ITEM + " VasItem to default items";
+
+    static {
+        MAX_COUNT_BY_TYPE[ItemType.DIGITAL_ITEM.ordinal()] = CartConstants.DIGITAL_ITEM_MAX_COUNT_IN_CART;
+        MAX_COUNT_BY_TYPE[ItemType.DEFAULT_ITEM.ordinal()] = CartConstants.DEFAULT_ITEM_MAX_COUNT_IN_CART;
+        MAX_COUNT_BY_TYPE[ItemType.VAS_ITEM.ordinal()] = CartConstants.VAS_ITEM_MAX_COUNT_IN_CART;
+
+        for (ItemType itemType : ItemType.values()) {
+            MAX_COUNT_MESSAGE_BY_TYPE[itemType.ordinal()] = "Each " + itemType.toString().toLowerCase() + " can be added maximum of " + MAX_COUNT_BY_TYPE[itemType.ordinal()] + " times to the cart.";
+        }
     }
 
-    public void validateNonVasItemRequest(ItemRequest request) {
+    /**
+     * @return the item to add to the cart
+     */
+    public Item validateNonVasItemRequest(CartView cart, ItemRequest request) {
         validateRequestParametersNotEmpty(request);
         validateNonVasItemCategoryAndSeller(request.getCategoryId(), request.getSellerId());
-        validateCartTotalItemCountAndPrice(request);
+        validateCartTotalItemCountAndPrice(cart, request);
 
-        Item item = itemConverter(request);
-        validateIndividualItemCount(item);
-        validateAddedItemTypeMatchesCartType(item);
+        ItemType itemType = resolveType(request.getCategoryId());
+        Item existingItem = cart.findItem(request.getItemId());
+        validateIndividualItemCount(existingItem, itemType, request.getQuantity());
+        validateAddedItemTypeMatchesCartType(cart, itemType);
 
-        validateTotalUniqueItemCountInCart(request);
+        validateTotalUniqueItemCountInCart(cart, existingItem);
+
+        return itemConverter(request, itemType);
     }
 
-    public void validateVasItemRequest(VasItemRequest request) {
+    /**
+     * @return the VasItem to add to the cart and to the default item of the request
+     */
+    public VasItem validateVasItemRequest(CartView cart, VasItemRequest request) {
         validateRequestParametersNotEmpty(request);
         validateVasItemCategoryAndSeller(request.getCategoryId(), request.getSellerId());
-        validateCartTotalItemCountAndPrice(request);
+        validateCartTotalItemCountAndPrice(cart, request);
 
-        Item item = itemConverter(request);
-        validateIndividualItemCount(item);
+        Item existingVasItem = cart.findItem(request.getVasItemId());
+        validateIndividualItemCount(existingVasItem, ItemType.VAS_ITEM, request.getQuantity());
 
-        Optional<Item> relatedDefaultItem = cart.getItems().stream()
-                .filter(i -> i.getItemId() == request.getItemId())
-                .filter(i -> i.getClass() == DefaultItem.class)
-                .findFirst();
-        validateDefaultItemOfVasItem(request, relatedDefaultItem);
+        Item relatedDefaultItem = cart.findItem(request.getItemId());
+        if (relatedDefaultItem != null && relatedDefaultItem.getClass() != DefaultItem.class) {
+            relatedDefaultItem = null;
+        }
+        validateDefaultItemOfVasItem(request, relatedDefaultItem, existingVasItem);
+
+        return (VasItem) itemConverter(request, ItemType.VAS_ITEM);
     }
 
     private void validateRequestParametersNotEmpty(ItemRequest request) {
@@ -58,51 +86,44 @@ public class ItemValidator {
         }
     }
 
-    private void validateCartTotalItemCountAndPrice(ItemRequest request) {
+    private void validateCartTotalItemCountAndPrice(CartView cart, ItemRequest request) {
         int newTotalItemCount = cart.getItemCount() + request.getQuantity();
-        double newCartTotalPrice = cart.getTotalPrice() + (request.getPrice() * request.getQuantity());
-
         if (newTotalItemCount > CartConstants.MAX_TOTAL_ITEM_COUNT_IN_CART) {
-            throw new InvalidCartStateException("There can be maximum " + CartConstants.MAX_TOTAL_ITEM_COUNT_IN_CART + " items in the cart");
+            throw new InvalidCartStateException(MAX_TOTAL_ITEM_COUNT_MESSAGE);
         }
 
-        if (newCartTotalPrice > CartConstants.MAX_CART_TOTAL_PRICE) {
-            throw new InvalidCartStateException("Cart total can be maximum " + CartConstants.MAX_CART_TOTAL_PRICE);
+        // Checked in units first, the cents of a larger amount may not fit in a long
+        if (request.getPrice() * request.getQuantity() > CartConstants.MAX_CART_TOTAL_PRICE) {
+            throw new InvalidCartStateException(MAX_CART_TOTAL_PRICE_MESSAGE);
         }
-    }
-
-    private void validateIndividualItemCount(Item item) {
-        Optional<Item> oldItem = cart.findItemById(item.getItemId());
-        int oldItemCount = oldItem.map(Item::getQuantity).orElse(0);
-        int newItemCount = oldItemCount + item.getQuantity();
 
-        Map<ItemType, Integer> maxCounts = Map.of(
-                ItemType.DIGITAL_ITEM, CartConstants.DIGITAL_ITEM_MAX_COUNT_IN_CART,
-                ItemType.DEFAULT_ITEM, CartConstants.DEFAULT_ITEM_MAX_COUNT_IN_CART,
-                ItemType.VAS_ITEM, CartConstants.VAS_ITEM_MAX_COUNT_IN_CART
-        );
+        long newCartTotalPriceInCents = cart.getTotalPriceInCents() + Money.times(Money.ofUnits(request.getPrice()), request.getQuantity());
+        if (newCartTotalPriceInCents > CartConstants.MAX_CART_TOTAL_PRICE_IN_CENTS) {
+            throw new InvalidCartStateException(MAX_CART_TOTAL_PRICE_MESSAGE);
+        }
+    }
 
-        ItemType itemType = item.getType();
+    private void validateIndividualItemCount(Item existingItem, ItemType itemType, int quantity) {
+        int oldItemCount = existingItem != null ? existingItem.getQuantity() : 0;
+        int newItemCount = oldItemCount + quantity;
 
-        if (newItemCount > maxCounts.get(itemType)) {
-            throw new InvalidCartStateException("Each " + itemType.toString().toLowerCase() + " can be added maximum of " + maxCounts.get(itemType) + " times to the cart.");
+        if (newItemCount > MAX_COUNT_BY_TYPE[itemType.ordinal()]) {
+            throw new InvalidCartStateException(MAX_COUNT_MESSAGE_BY_TYPE[itemType.ordinal()]);
         }
     }
 
-    private void validateTotalUniqueItemCountInCart(ItemRequest request) {
-        Optional<Item> alreadyExistingItem = cart.findItemById(request.getItemId());
-        if ((alreadyExistingItem.isEmpty()) && cart.getUniqueItemCount() >= CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART) {
-            throw new InvalidCartStateException("There can be maximum " + CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART + " unique items in the cart");
+    private void validateTotalUniqueItemCountInCart(CartView cart, Item existingItem) {
+        if (existingItem == null && cart.getUniqueItemCount() >= CartConstants.MAX_UNIQUE_ITEM_TYPE_COUNT_IN_CART) {
+            throw new InvalidCartStateException(MAX_UNIQUE_ITEM_COUNT_MESSAGE);
         }
     }
 
-    private void validateAddedItemTypeMatchesCartType(Item item) {
+    private void validateAddedItemTypeMatchesCartType(CartView cart, ItemType itemType) {
         if (cart.isDigitalItemCart() != null &&
-                ((cart.isDigitalItemCart() && item.getType() != ItemType.DIGITAL_ITEM)
-                        || (!cart.isDigitalItemCart() && item.getType() == ItemType.DIGITAL_ITEM))
+                ((cart.isDigitalItemCart() && itemType != ItemType.DIGITAL_ITEM)
+                        || (!cart.isDigitalItemCart() && itemType == ItemType.DIGITAL_ITEM))
         ) {
-            String cartItemType = cart.isDigitalItemCart() ? "digital" : "default";
-            throw new InvalidCartStateException("Cart cannot hold both digital and default items. Current cart is holding " + cartItemType + " items.");  // TODO name of this error might change
+            throw new InvalidCartStateException(cart.isDigitalItemCart() ? DIGITAL_CART_TYPE_MISMATCH_MESSAGE : DEFAULT_CART_TYPE_MISMATCH_MESSAGE);
         }
     }
 
@@ -128,42 +149,56 @@ public class ItemValidator {
         }
     }
 
-    private void validateDefaultItemOfVasItem(VasItemRequest request, Optional<Item> relatedDefaultItem) {
-        Optional<Item> existing = cart.getItems().stream().filter(i -> i.getItemId() == request.getVasItemId()).findFirst();
-        int newUpdatedVasItemQuantity = existing.map(item -> item.getQuantity() + request.getQuantity()).orElseGet(request::getQuantity);
+    private void validateDefaultItemOfVasItem(VasItemRequest request, Item relatedDefaultItem, Item existingVasItem) {
+        int newUpdatedVasItemQuantity = existingVasItem != null ? existingVasItem.getQuantity() + request.getQuantity() : request.getQuantity();
 
-
-        if (relatedDefaultItem.isEmpty()) {
+        if (relatedDefaultItem == null) {
             throw new InvalidCartItemException("There is no default item in your cart with the given id: " + request.getItemId());
-        } else if (!CartConstants.CATEGORY_IDS_FOR_DEFAULT_ITEMS_THAT_CAN_HAVE_VAS_ITEM.contains(relatedDefaultItem.get().getCategoryId())) {
-            throw new InvalidCartItemException("You can only add vasItem to default items with category ids: " + CartConstants.CATEGORY_IDS_FOR_DEFAULT_ITEMS_THAT_CAN_HAVE_VAS_ITEM);
+        } else if (!CartConstants.CATEGORY_IDS_FOR_DEFAULT_ITEMS_THAT_CAN_HAVE_VAS_ITEM.contains(relatedDefaultItem.getCategoryId())) {
+            throw new InvalidCartItemException(VAS_ITEM_PARENT_CATEGORY_MESSAGE);
         } else if (newUpdatedVasItemQuantity > CartConstants.MAX_VAS_ITEM_COUNT_FOR_A_DEFAULT_ITEM) {
-            throw new InvalidCartStateException("You cannot add more than " + CartConstants.MAX_VAS_ITEM_COUNT_FOR_A_DEFAULT_ITEM + " VasItem to default items");
-        } else if (relatedDefaultItem.get().getPrice() < request.getPrice()) {
+            throw new InvalidCartStateException(MAX_VAS_ITEM_COUNT_MESSAGE);
+        } else if (relatedDefaultItem.getPriceInCents() < Money.ofUnits(request.getPrice())) {
             throw new InvalidCartItemException("VasItem price cannot be more than default item price. " +
-                    "VasItem price: " + request.getPrice() + ", Default item price: " + relatedDefaultItem.get().getPrice());
+                    "VasItem price: " + request.getPrice() + ", Default item price: " + relatedDefaultItem.getPrice());
         }
     }
 
-    private Item itemConverter(ItemRequest request) {
-        if (request.getCategoryId() == CartConstants.DIGITAL_ITEM_CATEGORY_ID) {
-            return new DigitalItem(request.getItemId(),
-                    request.getCategoryId(),
-                    request.getSellerId(),
-                    request.getPrice(),
-                    request.getQuantity());
-        } else if (request.getCategoryId() == CartConstants.VAS_ITEM_CATEGORY_ID) {
-            return new VasItem(((VasItemRequest) request).getVasItemId(),
-                    request.getCategoryId(),
-                    request.getSellerId(),
-                    request.getPrice(),
-                    request.getQuantity());
+    // TODO name of this error might change
+    private static String cartTypeMismatchMessage(String cartItemType) {
+        return "Cart cannot hold both digital and default items. Current cart is holding " + cartItemType + " items.";
+    }
+
+    private static ItemType resolveType(int categoryId) {
+        if (categoryId == CartConstants.DIGITAL_ITEM_CATEGORY_ID) {
+            return ItemType.DIGITAL_ITEM;
+        } else if (categoryId == CartConstants.VAS_ITEM_CATEGORY_ID) {
+            return ItemType.VAS_ITEM;
         } else {
-            return new DefaultItem(request.getItemId(),
-                    request.getCategoryId(),
-                    request.getSellerId(),
-                    request.getPrice(),
-                    request.getQuantity());
+            return ItemType.DEFAULT_ITEM;
+        }
+    }
+
+    private Item itemConverter(ItemRequest request, ItemType itemType) {
+        switch (itemType) {
+            case DIGITAL_ITEM:
+                return new DigitalItem(request.getItemId(),
+                        request.getCategoryId(),
+                        request.getSellerId(),
+                        request.getPrice(),
+                        request.getQuantity());
+            case VAS_ITEM:
+                return new VasItem(((VasItemRequest) request).getVasItemId(),
+                        request.getCategoryId(),
+                        request.getSellerId(),
+                        request.getPrice(),
+                        request.getQuantity());
+            default:
+                return new DefaultItem(request.getItemId(),
+                        request.getCategoryId(),
+                        request.getSellerId(),
+                        request.getPrice(),
+                        request.getQuantity());
         }
     }
 }
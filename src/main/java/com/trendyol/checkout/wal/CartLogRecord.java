@@ -0,0 +1,11 @@
+package com.trendyol.checkout.wal;
+
+import com.trendyol.checkout.service.CartOperation;
+
+import java.util.List;
+
+/**
+ * The operations that turned the previous version of a cart into {@code version}.
+ */
+public record CartLogRecord(int cartId, long version, List<CartOperation> operations) {
+}
@@ -0,0 +1,157 @@
+package com.trendyol.checkout.wal;
+
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.DigitalItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.ItemType;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import com.trendyol.checkout.service.CartOperation;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary layout of a {@link CartLogRecord}:
+ * <pre>
+ * int  body length (0 marks the end of the segment)
+ * int  CRC32C of the body
+ * body: int cartId, long version, short operation count, operations
+ * </pre>
+ * Every operation starts with its tag byte, items are written field by field with the price in
+ * cents. A record is at most a few hundred bytes, a full batch under two kilobytes.
+ */
+final class CartLogRecordCodec {
+    static final int HEADER_SIZE = 8;
+    private static final int BODY_HEADER_SIZE = 14;
+
+    private static final byte ADD_ITEM = 1;
+    private static final byte ADD_VAS_ITEM = 2;
+    private static final byte REMOVE_ITEM = 3;
+    private static final byte RESET = 4;
+
+    private static final int ITEM_SIZE = 4 * Integer.BYTES + Long.BYTES;
+
+    private CartLogRecordCodec() {
+    }
+
+    static int size(List<CartOperation> operations) {
+        int size = HEADER_SIZE + BODY_HEADER_SIZE;
+        for (CartOperation operation : operations) {
+            if (operation instanceof CartOperation.AddItem) {
+                size += 2 + ITEM_SIZE;
+            } else if (operation instanceof CartOperation.AddVasItem) {
+                size += 1 + Integer.BYTES + ITEM_SIZE;
+            } else if (operation instanceof CartOperation.RemoveItem) {
+                size += 1 + Integer.BYTES;
+            } else {
+                size += 1;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the record at the position of the buffer, which must have {@link #size} bytes left.
+     */
+    static void encode(ByteBuffer buffer, int cartId, long version, List<CartOperation> operations) {
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putInt(cartId);
+        buffer.putLong(version);
+        buffer.putShort((short) operations.size());
+        for (CartOperation operation : operations) {
+            if (operation instanceof CartOperation.AddItem addItem) {
+                buffer.put(ADD_ITEM);
+                buffer.put((byte) addItem.item().getType().ordinal());
+                putItem(buffer, addItem.item());
+            } else if (operation instanceof CartOperation.AddVasItem addVasItem) {
+                buffer.put(ADD_VAS_ITEM);
+                buffer.putInt(addVasItem.defaultItemId());
+                putItem(buffer, addVasItem.vasItem());
+            } else if (operation instanceof CartOperation.RemoveItem removeItem) {
+                buffer.put(REMOVE_ITEM);
+                buffer.putInt(removeItem.itemId());
+            } else {
+                buffer.put(RESET);
+            }
+        }
+
+        int end = buffer.position();
+        int bodyLength = end - start - HEADER_SIZE;
+        buffer.putInt(start, bodyLength);
+        buffer.putInt(start + Integer.BYTES, crc(buffer, start + HEADER_SIZE, bodyLength));
+    }
+
+    /**
+     * Reads the record at the position of the buffer and moves past it.
+     *
+     * @return the record, or null at the end of the segment or at a torn or corrupt record
+     */
+    static CartLogRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int bodyLength = buffer.getInt(start);
+        int checksum = buffer.getInt(start + Integer.BYTES);
+        if (bodyLength < BODY_HEADER_SIZE || bodyLength > buffer.remaining() - HEADER_SIZE
+                || crc(buffer, start + HEADER_SIZE, bodyLength) != checksum) {
+            return null;
+        }
+
+        buffer.position(start + HEADER_SIZE);
+        int cartId = buffer.getInt();
+        long version = buffer.getLong();
+        int operationCount = buffer.getShort();
+        List<CartOperation> operations = new ArrayList<>(operationCount);
+        for (int i = 0; i < operationCount; i++) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case ADD_ITEM -> {
+                    ItemType type = ItemType.values()[buffer.get()];
+                    operations.add(new CartOperation.AddItem(getItem(buffer, type)));
+                }
+                case ADD_VAS_ITEM -> {
+                    int defaultItemId = buffer.getInt();
+                    operations.add(new CartOperation.AddVasItem(defaultItemId, (VasItem) getItem(buffer, ItemType.VAS_ITEM)));
+                }
+                case REMOVE_ITEM -> operations.add(new CartOperation.RemoveItem(buffer.getInt()));
+                case RESET -> operations.add(new CartOperation.Reset());
+                default -> throw new IllegalStateException("Unknown cart operation " + tag + " in record of cart " + cartId);
+            }
+        }
+        return new CartLogRecord(cartId, version, operations);
+    }
+
+    private static void putItem(ByteBuffer buffer, Item item) {
+        buffer.putInt(item.getItemId());
+        buffer.putInt(item.getCategoryId());
+        buffer.putInt(item.getSellerId());
+        buffer.putLong(item.getPriceInCents());
+        buffer.putInt(item.getQuantity());
+    }
+
+    private static Item getItem(ByteBuffer buffer, ItemType type) {
+        int itemId = buffer.getInt();
+        int categoryId = buffer.getInt();
+        int sellerId = buffer.getInt();
+        long priceInCents = buffer.getLong();
+        int quantity = buffer.getInt();
+
+        Item item = switch (type) {
+            case DIGITAL_ITEM -> new DigitalItem(itemId, categoryId, sellerId, 0, quantity);
+            case VAS_ITEM -> new VasItem(itemId, categoryId, sellerId, 0, quantity);
+            case DEFAULT_ITEM -> new DefaultItem(itemId, categoryId, sellerId, 0, quantity);
+        };
+        item.setPriceInCents(priceInCents);
+        return item;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
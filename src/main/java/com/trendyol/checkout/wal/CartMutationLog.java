@@ -0,0 +1,54 @@
+package com.trendyol.checkout.wal;
+
+import com.trendyol.checkout.service.CartOperation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable record of the committed cart versions, appended to after every commit and replayed at
+ * startup to rebuild the carts.
+ */
+public interface CartMutationLog {
+    CartMutationLog DISABLED = new CartMutationLog() {
+        @Override
+        public void append(int cartId, long version, List<CartOperation> operations) {
+        }
+
+        @Override
+        public void replay(Consumer<CartLogRecord> handler) {
+        }
+
+        @Override
+        public long checkpoint() {
+            return 0;
+        }
+
+        @Override
+        public void truncateBefore(long checkpoint) {
+        }
+    };
+
+    /**
+     * Records the operations of a committed version. Returns once the record is as durable as the
+     * configured {@link FsyncPolicy} promises.
+     */
+    void append(int cartId, long version, List<CartOperation> operations);
+
+    /**
+     * Hands every intact record written before this log was opened to the handler, in the order
+     * they were appended.
+     */
+    void replay(Consumer<CartLogRecord> handler);
+
+    /**
+     * Marks the current end of the log. Every record appended before the call is positioned before
+     * the returned checkpoint, so a snapshot taken after it contains their versions.
+     */
+    long checkpoint();
+
+    /**
+     * Drops the records positioned before the checkpoint.
+     */
+    void truncateBefore(long checkpoint);
+}
@@ -0,0 +1,26 @@
+package com.trendyol.checkout.wal;
+
+/**
+ * When appended records are forced from the mapped segment to the disk. Records are in the page
+ * cache as soon as they are appended, so all policies survive a crash of the process, they differ
+ * in what survives a crash of the machine.
+ */
+public enum FsyncPolicy {
+    /**
+     * Appends wait until their record is forced. Appends arriving while a force is running are
+     * forced together by the next one.
+     */
+    ALWAYS,
+
+    /**
+     * A background thread forces the appended records every {@code checkout.wal.fsync-interval},
+     * appends do not wait.
+     */
+    INTERVAL,
+
+    /**
+     * Records are forced only when a segment is full and at shutdown, the OS writes them back
+     * whenever it chooses.
+     */
+    NEVER
+}
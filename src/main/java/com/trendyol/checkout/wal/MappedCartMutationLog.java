@@ -0,0 +1,332 @@
+package com.trendyol.checkout.wal;
+
+import com.trendyol.checkout.service.CartOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link CartMutationLog} written to memory mapped segment files of a fixed size
+ * ({@code wal-<sequence>.log}). An append copies its record into the mapped segment under a short
+ * lock, rolling over to a new segment when the record does not fit. Forcing the segment to disk
+ * is left to a single flusher thread as the {@link FsyncPolicy} asks, so appends waiting for
+ * durability share the forces of each other.
+ * <p>
+ * Every opened log starts a new segment, the segments found in the directory are only read by
+ * {@link #replay}. A record torn by a crash ends the replay of its segment, the segments after it
+ * were started by later runs and are replayed as usual.
+ */
+public class MappedCartMutationLog implements CartMutationLog, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedCartMutationLog.class);
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final List<Path> replayedSegments;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentSequence;
+    private long writtenPosition;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = syncLock.newCondition();
+    private final Condition synced = syncLock.newCondition();
+    private long requestedPosition;
+    private long durablePosition;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public MappedCartMutationLog(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        try {
+            Files.createDirectories(directory);
+            this.replayedSegments = listSegments(directory);
+            long lastSequence = replayedSegments.isEmpty() ? -1 : sequenceOf(replayedSegments.get(replayedSegments.size() - 1));
+            openSegment(lastSequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart mutation log could not be opened in " + directory, e);
+        }
+
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            this.flusher = new Thread(this::flush, "cart-wal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    @Override
+    public void append(int cartId, long version, List<CartOperation> operations) {
+        int size = CartLogRecordCodec.size(operations);
+        // The end of segment marker is an empty header, it must always fit behind the last record
+        if (size + CartLogRecordCodec.HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Record of " + size + " bytes does not fit in a segment of " + segmentSize + " bytes");
+        }
+
+        long position;
+        appendLock.lock();
+        try {
+            if (!channel.isOpen()) {
+                throw new IllegalStateException("Cart mutation log in " + directory + " is closed");
+            }
+            if (segment.remaining() < size + CartLogRecordCodec.HEADER_SIZE) {
+                rollSegment();
+            }
+            CartLogRecordCodec.encode(segment, cartId, version, operations);
+            writtenPosition = segmentSequence * segmentSize + segment.position();
+            position = writtenPosition;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            awaitDurable(position);
+        }
+    }
+
+    @Override
+    public void replay(Consumer<CartLogRecord> handler) {
+        for (Path path : replayedSegments) {
+            int recordCount = 0;
+            try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                CartLogRecord record;
+                while ((record = CartLogRecordCodec.decode(buffer)) != null) {
+                    handler.accept(record);
+                    recordCount++;
+                }
+                if (buffer.remaining() >= Integer.BYTES && buffer.getInt(buffer.position()) != 0) {
+                    logger.warn("Replay of {} stopped at a torn or corrupt record at offset {}", path, buffer.position());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cart mutation log segment " + path + " could not be read", e);
+            }
+            logger.info("Replayed {} cart mutation records from {}", recordCount, path);
+        }
+    }
+
+    /**
+     * Rolls over to a new segment, the checkpoint is its sequence number.
+     */
+    @Override
+    public long checkpoint() {
+        appendLock.lock();
+        try {
+            rollSegment();
+            return segmentSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments with a sequence number below the checkpoint.
+     */
+    @Override
+    public void truncateBefore(long checkpoint) {
+        try {
+            int deletedCount = 0;
+            for (Path path : listSegments(directory)) {
+                if (sequenceOf(path) < checkpoint) {
+                    Files.deleteIfExists(path);
+                    deletedCount++;
+                }
+            }
+            logger.info("Truncated {} cart mutation log segments before segment {}", deletedCount, checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart mutation log could not be truncated in " + directory, e);
+        }
+    }
+
+    /**
+     * Stops the flusher and forces everything appended so far.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            syncLock.lock();
+            try {
+                syncRequested.signal();
+                // Appends still waiting for the flusher force their records themselves
+                synced.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        appendLock.lock();
+        try {
+            segment.force();
+            channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void awaitDurable(long position) {
+        syncLock.lock();
+        try {
+            if (requestedPosition < position) {
+                requestedPosition = position;
+                syncRequested.signal();
+            }
+            while (durablePosition < position && running) {
+                synced.awaitUninterruptibly();
+            }
+            if (durablePosition >= position) {
+                return;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+        forceClosing(position);
+    }
+
+    /**
+     * Forces an append that raced with {@link #close} and was left behind by the stopped flusher.
+     * A closed channel was forced by {@code close} after the record was written, otherwise the
+     * record is in the current segment or in one forced when it was rolled over.
+     */
+    private void forceClosing(long position) {
+        appendLock.lock();
+        try {
+            if (channel.isOpen()) {
+                segment.force();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        syncLock.lock();
+        try {
+            durablePosition = Math.max(durablePosition, position);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void flush() {
+        while (running) {
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                awaitSyncRequest();
+            } else {
+                LockSupport.parkNanos(fsyncIntervalNanos);
+            }
+            if (running) {
+                sync();
+            }
+        }
+    }
+
+    private void awaitSyncRequest() {
+        syncLock.lock();
+        try {
+            while (running && requestedPosition <= durablePosition) {
+                syncRequested.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the current segment up to what has been appended by now. Earlier segments were forced
+     * when they were rolled over, so every position up to that point is durable afterwards.
+     */
+    private void sync() {
+        MappedByteBuffer syncedSegment;
+        long position;
+        appendLock.lock();
+        try {
+            syncedSegment = segment;
+            position = writtenPosition;
+        } finally {
+            appendLock.unlock();
+        }
+        if (position <= durablePosition) {
+            return;
+        }
+
+        syncedSegment.force();
+
+        syncLock.lock();
+        try {
+            durablePosition = Math.max(durablePosition, position);
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void rollSegment() {
+        try {
+            // Zero filled, the rest of the segment already reads as the end marker
+            segment.force();
+            channel.close();
+            openSegment(segmentSequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart mutation log could not roll over to a new segment in " + directory, e);
+        }
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentSequence = sequence;
+        writtenPosition = sequence * segmentSize;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(MappedCartMutationLog::isSegment).sorted().forEach(segments::add);
+            return segments;
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
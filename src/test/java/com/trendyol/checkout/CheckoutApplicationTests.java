@@ -3,7 +3,8 @@ package com.trendyol.checkout;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"checkout.wal.directory=target/wal-test", "checkout.snapshot.directory=target/snapshot-test",
+        "checkout.cart-expiry.spill-directory=target/spill-test"})
 class CheckoutApplicationTests {
 
 	@Test
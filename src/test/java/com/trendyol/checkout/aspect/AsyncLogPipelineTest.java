@@ -0,0 +1,52 @@
+package com.trendyol.checkout.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogPipelineTest {
+
+    @Test
+    void it_should_drop_and_count_events_when_queue_is_full() {
+        // given
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(2);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            pipeline.publish(new LogEvent(LogEvent.Phase.START, "displayCart", 1, null, null));
+        }
+
+        // then
+        assertEquals(3, pipeline.getDroppedEventCount());
+    }
+
+    @Test
+    void it_should_render_request_on_writer_thread_only_after_event_is_published() throws InterruptedException {
+        // given
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(16);
+        RenderCountingRequest request = new RenderCountingRequest();
+
+        // when
+        pipeline.publish(new LogEvent(LogEvent.Phase.START, "addNonVasItemToCart", 1, request, null));
+        int renderCountBeforeWriterStarts = request.renderCount.get();
+        pipeline.start();
+        pipeline.close();
+
+        // then
+        assertEquals(0, renderCountBeforeWriterStarts);
+        assertEquals(1, request.renderCount.get());
+        assertEquals(0, pipeline.getDroppedEventCount());
+    }
+
+    private static class RenderCountingRequest {
+        private final AtomicInteger renderCount = new AtomicInteger();
+
+        @Override
+        public String toString() {
+            renderCount.incrementAndGet();
+            return "request";
+        }
+    }
+}
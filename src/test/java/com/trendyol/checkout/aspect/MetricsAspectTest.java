@@ -0,0 +1,60 @@
+package com.trendyol.checkout.aspect;
+
+import com.trendyol.checkout.exception.ItemNotFoundException;
+import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.service.CartService;
+import com.trendyol.checkout.service.CartServiceImpl;
+import com.trendyol.checkout.store.ShardedCartStore;
+import com.trendyol.checkout.validation.ItemValidator;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new CartServiceImpl(new ShardedCartStore(1), new ItemValidator(), new PromotionCalculator()));
+        proxyFactory.addAspect(new MetricsAspect(meterRegistry));
+        cartService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void it_should_time_successful_operations_by_operation_name() {
+        // given
+        // when
+        cartService.displayCart(1);
+        cartService.displayCart(2);
+        cartService.resetCart(1);
+
+        // then
+        assertEquals(2, timer("displayCart", "success", "none").count());
+        assertEquals(1, timer("resetCart", "success", "none").count());
+    }
+
+    @Test
+    void it_should_time_failed_operations_by_exception_type() {
+        // given
+        // when
+        assertThrows(ItemNotFoundException.class, () -> cartService.removeItem(1, 125));
+
+        // then
+        assertEquals(1, timer("removeItem", "failure", "ItemNotFoundException").count());
+        assertEquals(0, timer("removeItem", "success", "none").count());
+    }
+
+    private Timer timer(String operation, String outcome, String exception) {
+        return meterRegistry.get(MetricsAspect.OPERATION_TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .timer();
+    }
+}
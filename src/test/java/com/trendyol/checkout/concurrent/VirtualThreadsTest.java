@@ -0,0 +1,36 @@
+package com.trendyol.checkout.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+
+    @Test
+    void it_should_support_virtual_threads_only_on_java_21_or_newer() {
+        // given
+        boolean java21OrNewer = Runtime.version().feature() >= 21;
+
+        // when
+        boolean supported = VirtualThreads.isSupported();
+
+        // then
+        assertEquals(java21OrNewer, supported);
+    }
+
+    @Test
+    void it_should_create_executor_or_throw_illegal_state_exception_depending_on_runtime() throws Exception {
+        // given
+        // when
+        // then
+        if (VirtualThreads.isSupported()) {
+            ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor();
+            assertEquals(42, executor.submit(() -> 42).get());
+            executor.shutdown();
+        } else {
+            assertThrows(IllegalStateException.class, VirtualThreads::newThreadPerTaskExecutor);
+        }
+    }
+}
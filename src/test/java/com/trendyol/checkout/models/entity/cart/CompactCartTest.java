@@ -0,0 +1,101 @@
+package com.trendyol.checkout.models.entity.cart;
+
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCartTest {
+
+    @Test
+    void it_should_keep_items_and_attached_vas_items_in_cart_order() {
+        // given
+        Cart cart = cart();
+
+        // when
+        Cart copy = CompactCart.of(cart).toCart();
+
+        // then
+        assertEquals(cart.getItems().toString(), copy.getItems().toString());
+        assertEquals(List.of(20, 21), ((DefaultItem) copy.findItem(10)).getVasItems().stream().map(Item::getItemId).toList());
+        assertTrue(((DefaultItem) copy.findItem(11)).getVasItems().isEmpty());
+        assertEquals(cart.getVersion(), copy.getVersion());
+        assertEquals(cart.getItemCount(), copy.getItemCount());
+        assertEquals(cart.getUniqueItemCount(), copy.getUniqueItemCount());
+        assertEquals(cart.getTotalPriceInCents(), copy.getTotalPriceInCents());
+        assertEquals(cart.getTotalDiscountInCents(), copy.getTotalDiscountInCents());
+        assertEquals(cart.getAppliedPromotionId(), copy.getAppliedPromotionId());
+        assertEquals(cart.isDigitalItemCart(), copy.isDigitalItemCart());
+    }
+
+    @Test
+    void it_should_compute_same_promotion_aggregates_as_cart() {
+        // given
+        Cart cart = cart();
+
+        // when
+        CompactCart compactCart = CompactCart.of(cart);
+
+        // then
+        assertEquals(cart.getLineCount(), compactCart.getLineCount());
+        assertEquals(cart.getNonVasItemCount(), compactCart.getNonVasItemCount());
+        assertEquals(cart.getDistinctSellerCount(), compactCart.getDistinctSellerCount());
+        for (int sellerId : new int[]{100, 200, 5003, 999}) {
+            assertEquals(cart.getSellerSubtotalInCents(sellerId), compactCart.getSellerSubtotalInCents(sellerId));
+        }
+        for (int categoryId : new int[]{1001, 3004, 3242, 999}) {
+            assertEquals(cart.getCategorySubtotalInCents(categoryId), compactCart.getCategorySubtotalInCents(categoryId));
+        }
+    }
+
+    @Test
+    void it_should_find_cart_lines_but_not_vas_items_attached_to_default_items() {
+        // given
+        Cart cart = new Cart(1);
+        DefaultItem defaultItem = new DefaultItem(10, 1001, 100, 100.0, 1);
+        defaultItem.getVasItems().add(new VasItem(20, 3242, 5003, 10.0, 1));
+        cart.addItem(defaultItem);
+
+        // when
+        CompactCart compactCart = CompactCart.of(cart);
+
+        // then
+        assertEquals(0, compactCart.findLine(10));
+        assertEquals(-1, compactCart.findLine(20));
+        assertNull(compactCart.findItem(20));
+        assertEquals(1, compactCart.getItems().size());
+    }
+
+    @Test
+    void it_should_have_no_lines_promotion_or_cart_type_when_empty() {
+        // given
+        // when
+        CompactCart compactCart = CompactCart.empty(7);
+
+        // then
+        assertEquals(7, compactCart.getId());
+        assertEquals(0, compactCart.getItemCount());
+        assertTrue(compactCart.getItems().isEmpty());
+        assertNull(compactCart.getAppliedPromotionId());
+        assertNull(compactCart.isDigitalItemCart());
+        assertEquals(0, compactCart.toCart().getLineCount());
+    }
+
+    private static Cart cart() {
+        DefaultItem withVasItems = new DefaultItem(10, 1001, 100, 100.0, 2);
+        withVasItems.getVasItems().add(new VasItem(20, 3242, 5003, 10.0, 1));
+        withVasItems.getVasItems().add(new VasItem(21, 3242, 5003, 5.0, 2));
+        DefaultItem withoutVasItems = new DefaultItem(11, 3004, 200, 50.0, 1);
+
+        Cart cart = new Cart(1);
+        cart.setItems(List.of(withVasItems, new VasItem(20, 3242, 5003, 10.0, 1), new VasItem(21, 3242, 5003, 5.0, 2), withoutVasItems));
+        cart.setAppliedPromotionId(5232);
+        cart.setTotalDiscountInCents(1000);
+        cart.setVersion(4);
+        return cart;
+    }
+}
@@ -0,0 +1,93 @@
+package com.trendyol.checkout.models.entity.cart;
+
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemIndexTest {
+
+    private ItemIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemIndex();
+    }
+
+    @Test
+    void it_should_return_null_when_item_id_is_not_indexed() {
+        // given
+        index.put(1, new DefaultItem(1, 1, 1, 10, 1));
+
+        // when
+        // then
+        assertNull(index.get(2));
+    }
+
+    @Test
+    void it_should_find_items_with_zero_and_negative_ids() {
+        // given
+        Item zero = new DefaultItem(0, 1, 1, 10, 1);
+        Item negative = new DefaultItem(-5, 1, 1, 10, 1);
+
+        // when
+        index.put(0, zero);
+        index.put(-5, negative);
+
+        // then
+        assertSame(zero, index.get(0));
+        assertSame(negative, index.get(-5));
+    }
+
+    @Test
+    void it_should_keep_remaining_items_reachable_after_removals() {
+        // given
+        for (int itemId = 0; itemId < 40; itemId++) {
+            index.put(itemId, new DefaultItem(itemId, 1, 1, 10, 1));
+        }
+
+        // when
+        for (int itemId = 0; itemId < 40; itemId += 3) {
+            index.remove(itemId);
+        }
+
+        // then
+        for (int itemId = 0; itemId < 40; itemId++) {
+            if (itemId % 3 == 0) {
+                assertNull(index.get(itemId));
+            } else {
+                assertEquals(itemId, index.get(itemId).getItemId());
+            }
+        }
+        assertEquals(26, index.size());
+    }
+
+    @Test
+    void it_should_behave_like_a_map_for_random_operations() {
+        // given
+        Random random = new Random(42);
+        Map<Integer, Item> expected = new HashMap<>();
+
+        // when
+        for (int i = 0; i < 20_000; i++) {
+            int itemId = random.nextInt(64) * 1024;
+            if (random.nextBoolean()) {
+                Item item = new DefaultItem(itemId, 1, 1, 10, 1);
+                index.put(itemId, item);
+                expected.put(itemId, item);
+            } else {
+                assertSame(expected.remove(itemId), index.remove(itemId));
+            }
+        }
+
+        // then
+        assertEquals(expected.size(), index.size());
+        expected.forEach((itemId, item) -> assertSame(item, index.get(itemId)));
+    }
+}
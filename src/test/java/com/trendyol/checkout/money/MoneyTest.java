@@ -0,0 +1,45 @@
+package com.trendyol.checkout.money;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void it_should_convert_units_to_nearest_cent() {
+        // given
+        // when
+        // then
+        assertEquals(10, Money.ofUnits(0.1));
+        assertEquals(1999, Money.ofUnits(19.99));
+        assertEquals(100_000, Money.ofUnits(1000));
+    }
+
+    @Test
+    void it_should_convert_cents_back_to_units() {
+        // given
+        // when
+        // then
+        assertEquals(19.99, Money.toUnits(1999));
+        assertEquals(0.3, Money.toUnits(Money.ofUnits(0.1) + Money.ofUnits(0.2)));
+    }
+
+    @Test
+    void it_should_round_percentage_half_up_to_nearest_cent() {
+        // given
+        // when
+        // then
+        assertEquals(150_000, Money.percentage(1_500_000, 10));
+        assertEquals(1, Money.percentage(10, 5));
+        assertEquals(0, Money.percentage(9, 5));
+    }
+
+    @Test
+    void it_should_throw_arithmetic_exception_when_amount_overflows() {
+        // given
+        // when
+        // then
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+    }
+}
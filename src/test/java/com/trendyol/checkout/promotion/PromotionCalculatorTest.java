@@ -1,13 +1,18 @@
 package com.trendyol.checkout.promotion;
 
+import com.trendyol.checkout.models.entity.cart.Cart;
 import com.trendyol.checkout.models.entity.item.DefaultItem;
 import com.trendyol.checkout.models.entity.item.Item;
 import com.trendyol.checkout.models.entity.item.ItemType;
 import com.trendyol.checkout.models.entity.item.VasItem;
+import com.trendyol.checkout.promotion.rule.DiscountType;
+import com.trendyol.checkout.promotion.rule.OverTotalPolicy;
+import com.trendyol.checkout.promotion.rule.PromotionRuleDefinition;
+import com.trendyol.checkout.promotion.rule.PromotionRuleSet;
+import com.trendyol.checkout.promotion.rule.PromotionRuleType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,10 +37,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 110;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertNull(bestPromotion.get("promotionId"));
+        assertFalse(bestPromotion.hasPromotion());
     }
 
     @Test
@@ -49,10 +54,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 110;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(0.0, bestPromotion.get("discount"));
+        assertEquals(0.0, bestPromotion.getDiscount());
     }
 
     @Test
@@ -66,10 +71,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 15000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(9909, bestPromotion.get("promotionId"));
+        assertEquals(9909, bestPromotion.getPromotionId());
     }
 
     @Test
@@ -83,10 +88,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 15000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(1500.0, bestPromotion.get("discount"));
+        assertEquals(1500.0, bestPromotion.getDiscount());
     }
 
     @Test
@@ -100,10 +105,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 30000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(5676, bestPromotion.get("promotionId"));
+        assertEquals(5676, bestPromotion.getPromotionId());
     }
 
     @Test
@@ -117,10 +122,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 30000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(1500.0, bestPromotion.get("discount"));
+        assertEquals(1500.0, bestPromotion.getDiscount());
     }
 
     @Test
@@ -134,10 +139,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 30000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(1232, bestPromotion.get("promotionId"));
+        assertEquals(1232, bestPromotion.getPromotionId());
     }
 
     @Test
@@ -151,10 +156,10 @@ class PromotionCalculatorTest {
         int totalCartPrice = 30000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertEquals(1000.0, bestPromotion.get("discount"));
+        assertEquals(1000.0, bestPromotion.getDiscount());
     }
 
     @Test
@@ -168,9 +173,135 @@ class PromotionCalculatorTest {
         int totalCartPrice = 30000;
 
         // when
-        HashMap<String, Number> bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
+        PromotionResult bestPromotion = calculator.calculateMaxPromotion(cartItems, totalCartPrice);
 
         // then
-        assertNotEquals(9909, bestPromotion.get("promotionId"));
+        assertNotEquals(9909, bestPromotion.getPromotionId());
     }
-}
\ No newline at end of file
+
+    /*
+     * calculateMaxPromotion from cart aggregates
+     */
+
+    @Test
+    void it_should_return_same_promotion_from_cart_aggregates_as_from_cart_items() {
+        // given
+        List<List<Item>> carts = List.of(
+                List.of(DefaultItem.builder().itemId(2).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                        DefaultItem.builder().itemId(3).categoryId(1001).sellerId(100).price(5000).quantity(2).type(ItemType.DEFAULT_ITEM).build()),
+                List.of(DefaultItem.builder().itemId(2).categoryId(3003).sellerId(100).price(10000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                        DefaultItem.builder().itemId(3).categoryId(3003).sellerId(101).price(10000).quantity(3).type(ItemType.DEFAULT_ITEM).build()),
+                List.of(DefaultItem.builder().itemId(2).categoryId(1000).sellerId(100).price(10000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                        DefaultItem.builder().itemId(3).categoryId(1000).sellerId(101).price(20000).quantity(1).type(ItemType.DEFAULT_ITEM).build()),
+                List.of(VasItem.builder().itemId(1).categoryId(3242).sellerId(5003).price(10).quantity(1).type(ItemType.VAS_ITEM).build(),
+                        DefaultItem.builder().itemId(2).categoryId(1001).sellerId(100).price(50).quantity(1).type(ItemType.DEFAULT_ITEM).build())
+        );
+
+        for (List<Item> cartItems : carts) {
+            Cart cart = new Cart();
+            cart.setItems(cartItems);
+
+            // when
+            PromotionResult fromItems = calculator.calculateMaxPromotion(cartItems, cart.getTotalPrice());
+            PromotionResult fromAggregates = calculator.calculateMaxPromotion(cart);
+
+            // then
+            assertEquals(fromItems.hasPromotion(), fromAggregates.hasPromotion());
+            assertEquals(fromItems.getPromotionId(), fromAggregates.getPromotionId());
+            assertEquals(fromItems.getDiscountInCents(), fromAggregates.getDiscountInCents());
+        }
+    }
+
+    @Test
+    void it_should_not_return_best_promotion_id_as_9909_from_cart_aggregates_after_item_of_other_seller_is_added() {
+        // given
+        Cart cart = new Cart();
+        cart.setItems(List.of(
+                DefaultItem.builder().itemId(2).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                DefaultItem.builder().itemId(3).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build()));
+
+        // when
+        cart.addItem(DefaultItem.builder().itemId(4).categoryId(1001).sellerId(200).price(100).quantity(1).type(ItemType.DEFAULT_ITEM).build());
+
+        // then
+        assertNotEquals(9909, calculator.calculateMaxPromotion(cart).getPromotionId());
+    }
+
+    @Test
+    void it_should_return_best_promotion_id_as_9909_from_cart_aggregates_after_item_of_other_seller_is_removed() {
+        // given
+        Cart cart = new Cart();
+        cart.setItems(List.of(
+                DefaultItem.builder().itemId(2).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                DefaultItem.builder().itemId(3).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                DefaultItem.builder().itemId(4).categoryId(1001).sellerId(200).price(100).quantity(1).type(ItemType.DEFAULT_ITEM).build()));
+
+        // when
+        cart.removeItem(4);
+        cart.setTotalPrice(10000.0);
+
+        // then
+        assertEquals(9909, calculator.calculateMaxPromotion(cart).getPromotionId());
+    }
+
+    @Test
+    void it_should_update_category_subtotal_when_quantity_of_item_in_cart_is_increased() {
+        // given
+        Cart cart = new Cart();
+        Item item = DefaultItem.builder().itemId(2).categoryId(3003).sellerId(100).price(1000).quantity(1).type(ItemType.DEFAULT_ITEM).build();
+        cart.setItems(List.of(item));
+
+        // when
+        cart.increaseQuantity(cart.findItem(2), 2);
+
+        // then
+        assertEquals(300_000, cart.getCategorySubtotalInCents(3003));
+    }
+
+    @Test
+    void it_should_overwrite_previous_outcome_when_promotion_result_is_reused() {
+        // given
+        PromotionResult result = new PromotionResult();
+        Cart cartWithPromotion = new Cart();
+        cartWithPromotion.setItems(List.of(
+                DefaultItem.builder().itemId(2).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build(),
+                DefaultItem.builder().itemId(3).categoryId(1001).sellerId(100).price(5000).quantity(1).type(ItemType.DEFAULT_ITEM).build()));
+        Cart cartWithoutPromotion = new Cart();
+        cartWithoutPromotion.setItems(List.of(
+                DefaultItem.builder().itemId(4).categoryId(1001).sellerId(100).price(50).quantity(1).type(ItemType.DEFAULT_ITEM).build()));
+
+        // when
+        calculator.calculateMaxPromotion(cartWithPromotion, result);
+        calculator.calculateMaxPromotion(cartWithoutPromotion, result);
+
+        // then
+        assertFalse(result.hasPromotion());
+        assertEquals(0, result.getDiscountInCents());
+    }
+
+    @Test
+    void it_should_stack_promotions_of_different_exclusivity_groups_within_cart_total() {
+        // given
+        PromotionCalculator stackingCalculator = new PromotionCalculator(new PromotionRuleSet(OverTotalPolicy.BEST_WITHIN_TOTAL, List.of(
+                fixed(1, "a", 60), fixed(2, "a", 50), fixed(3, "b", 50)
+        )), 4096);
+        Cart cart = new Cart();
+        cart.setItems(List.of(DefaultItem.builder().itemId(1).categoryId(1001).sellerId(100).price(100).quantity(1).type(ItemType.DEFAULT_ITEM).build()));
+
+        // when
+        PromotionResult result = stackingCalculator.calculateMaxPromotion(cart);
+
+        // then
+        assertTrue(result.hasPromotion());
+        assertEquals(2, result.getPromotionCount());
+        assertEquals(2, result.getPromotionId());
+        assertEquals(100.0, result.getDiscount());
+    }
+
+    private static PromotionRuleDefinition fixed(int id, String group, double discount) {
+        PromotionRuleDefinition rule = new PromotionRuleDefinition(id, PromotionRuleType.TOTAL_PRICE, null, null, DiscountType.FIXED, 0,
+                List.of(new PromotionRuleDefinition.Tier(0, discount)));
+        rule.setExclusivityGroup(group);
+        return rule;
+    }
+}
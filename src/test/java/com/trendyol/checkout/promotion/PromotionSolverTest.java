@@ -0,0 +1,131 @@
+package com.trendyol.checkout.promotion;
+
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.ItemType;
+import com.trendyol.checkout.promotion.rule.DiscountType;
+import com.trendyol.checkout.promotion.rule.OverTotalPolicy;
+import com.trendyol.checkout.promotion.rule.PromotionRuleDefinition;
+import com.trendyol.checkout.promotion.rule.PromotionRuleSet;
+import com.trendyol.checkout.promotion.rule.PromotionRuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromotionSolverTest {
+
+    @Test
+    void it_should_choose_same_promotion_as_calculator_with_default_rules() {
+        // given
+        PromotionSolver solver = new PromotionSolver();
+        PromotionCalculator calculator = new PromotionCalculator();
+        List<Cart> carts = List.of(
+                cartOf(item(1, 3003, 100, 50, 1), item(2, 1001, 100, 50, 1)),
+                cartOf(item(1, 3003, 100, 5000, 1), item(2, 1001, 200, 5000, 2)),
+                cartOf(item(1, 3003, 100, 30000, 1)),
+                cartOf(item(1, 1001, 100, 20000, 1), item(2, 1001, 100, 40000, 1)),
+                cartOf(item(1, 1001, 100, 100, 1))
+        );
+
+        for (Cart cart : carts) {
+            // when
+            PromotionResult expected = calculator.calculateMaxPromotion(cart);
+            PromotionCombination combination = solver.solve(cart);
+
+            // then
+            assertEquals(expected.hasPromotion(), combination.hasPromotion(), cart.toString());
+            assertEquals(expected.getDiscountInCents(), combination.getDiscountInCents(), cart.toString());
+            if (expected.hasPromotion()) {
+                assertEquals(1, combination.size());
+                assertEquals(expected.getPromotionId(), combination.getPromotionId(0));
+            }
+        }
+    }
+
+    @Test
+    void it_should_stack_best_promotion_of_every_exclusivity_group() {
+        // given
+        PromotionSolver solver = new PromotionSolver(new PromotionRuleSet(OverTotalPolicy.BEST_WITHIN_TOTAL, List.of(
+                fixed(1, "a", 10), fixed(2, "a", 30), fixed(3, "b", 20), fixed(4, null, 5)
+        )), 4096);
+
+        // when
+        PromotionCombination combination = solver.solve(cartOf(item(1, 1001, 100, 100, 1)));
+
+        // then
+        assertEquals(3, combination.size());
+        assertEquals(2, combination.getPromotionId(0));
+        assertEquals(3, combination.getPromotionId(1));
+        assertEquals(4, combination.getPromotionId(2));
+        assertEquals(55.0, combination.getDiscount());
+        assertTrue(combination.isOptimal());
+    }
+
+    @Test
+    void it_should_find_best_combination_within_cart_total_when_greedy_choice_does_not_fit() {
+        // given
+        PromotionSolver solver = new PromotionSolver(new PromotionRuleSet(OverTotalPolicy.BEST_WITHIN_TOTAL, List.of(
+                fixed(1, "a", 60), fixed(2, "a", 50), fixed(3, "b", 50), fixed(4, "b", 45)
+        )), 4096);
+
+        // when
+        PromotionCombination combination = solver.solve(cartOf(item(1, 1001, 100, 100, 1)));
+
+        // then
+        assertEquals(100.0, combination.getDiscount());
+        assertEquals(2, combination.getPromotionId(0));
+        assertEquals(3, combination.getPromotionId(1));
+        assertTrue(combination.isOptimal());
+    }
+
+    @Test
+    void it_should_return_feasible_combination_and_bound_when_node_budget_runs_out() {
+        // given
+        PromotionSolver solver = new PromotionSolver(new PromotionRuleSet(OverTotalPolicy.BEST_WITHIN_TOTAL, List.of(
+                fixed(1, "a", 60), fixed(2, "a", 50), fixed(3, "b", 50), fixed(4, "b", 45)
+        )), 1);
+
+        // when
+        PromotionCombination combination = solver.solve(cartOf(item(1, 1001, 100, 100, 1)));
+
+        // then
+        assertFalse(combination.isOptimal());
+        assertEquals(60.0, combination.getDiscount());
+        assertEquals(10_000, combination.getUpperBoundInCents());
+    }
+
+    @Test
+    void it_should_apply_no_promotion_when_best_combination_exceeds_total_with_no_promotion_policy() {
+        // given
+        PromotionSolver solver = new PromotionSolver(new PromotionRuleSet(OverTotalPolicy.NO_PROMOTION, List.of(
+                fixed(1, "a", 60), fixed(2, "b", 50)
+        )), 4096);
+
+        // when
+        PromotionCombination combination = solver.solve(cartOf(item(1, 1001, 100, 100, 1)));
+
+        // then
+        assertFalse(combination.hasPromotion());
+        assertEquals(0, combination.getDiscountInCents());
+    }
+
+    private static PromotionRuleDefinition fixed(int id, String group, double discount) {
+        PromotionRuleDefinition rule = new PromotionRuleDefinition(id, PromotionRuleType.TOTAL_PRICE, null, null, DiscountType.FIXED, 0,
+                List.of(new PromotionRuleDefinition.Tier(0, discount)));
+        rule.setExclusivityGroup(group);
+        return rule;
+    }
+
+    private static Item item(int itemId, int categoryId, int sellerId, double price, int quantity) {
+        return DefaultItem.builder().itemId(itemId).categoryId(categoryId).sellerId(sellerId).price(price).quantity(quantity).type(ItemType.DEFAULT_ITEM).build();
+    }
+
+    private static Cart cartOf(Item... items) {
+        Cart cart = new Cart();
+        cart.setItems(List.of(items));
+        return cart;
+    }
+}
@@ -0,0 +1,82 @@
+package com.trendyol.checkout.promotion.rule;
+
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.ItemType;
+import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.promotion.PromotionResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledPromotionPlanTest {
+
+    @Test
+    void it_should_load_default_rules_from_classpath() {
+        // given
+        ClassPathResource resource = new ClassPathResource("promotions.json");
+
+        // when
+        CompiledPromotionPlan plan = CompiledPromotionPlan.compile(PromotionRuleLoader.load(resource).getRules());
+
+        // then
+        assertEquals(3, plan.size());
+        assertEquals(9909, plan.promotionId(0));
+        assertEquals(5676, plan.promotionId(1));
+        assertEquals(1232, plan.promotionId(2));
+    }
+
+    @Test
+    void it_should_pick_tier_with_highest_threshold_not_above_total_when_tiers_are_unordered() {
+        // given
+        PromotionRuleDefinition rule = new PromotionRuleDefinition(1, PromotionRuleType.TOTAL_PRICE, null, null, DiscountType.FIXED, 0,
+                List.of(new PromotionRuleDefinition.Tier(1000, 100), new PromotionRuleDefinition.Tier(100, 10), new PromotionRuleDefinition.Tier(500, 50)));
+        CompiledPromotionPlan plan = CompiledPromotionPlan.compile(List.of(rule));
+
+        // when
+        long belowFirstTier = plan.discountInCents(0, cartWith(99, 1));
+        long onThreshold = plan.discountInCents(0, cartWith(500, 1));
+        long betweenThresholds = plan.discountInCents(0, cartWith(999, 1));
+
+        // then
+        assertEquals(0, belowFirstTier);
+        assertEquals(5000, onThreshold);
+        assertEquals(5000, betweenThresholds);
+    }
+
+    @Test
+    void it_should_apply_seller_promotion_to_seller_subtotal_only() {
+        // given
+        PromotionRuleDefinition rule = new PromotionRuleDefinition(77, PromotionRuleType.SELLER, 100, null, DiscountType.PERCENTAGE, 20, List.of());
+        PromotionCalculator calculator = new PromotionCalculator(List.of(rule));
+        Cart cart = new Cart(List.of(
+                DefaultItem.builder().itemId(1).categoryId(1001).sellerId(100).price(100).quantity(2).type(ItemType.DEFAULT_ITEM).build(),
+                DefaultItem.builder().itemId(2).categoryId(1001).sellerId(200).price(300).quantity(1).type(ItemType.DEFAULT_ITEM).build()
+        ), 3, 2, 500, null, 0, false);
+
+        // when
+        PromotionResult result = calculator.calculateMaxPromotion(cart);
+
+        // then
+        assertEquals(77, result.getPromotionId());
+        assertEquals(40.0, result.getDiscount());
+    }
+
+    @Test
+    void it_should_reject_category_rule_without_category_id() {
+        // given
+        PromotionRuleDefinition rule = new PromotionRuleDefinition(5, PromotionRuleType.CATEGORY, null, null, DiscountType.PERCENTAGE, 5, List.of());
+
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> CompiledPromotionPlan.compile(List.of(rule)));
+    }
+
+    private Cart cartWith(double price, int quantity) {
+        return new Cart(List.of(DefaultItem.builder().itemId(1).categoryId(1001).sellerId(100).price(price).quantity(quantity).type(ItemType.DEFAULT_ITEM).build()),
+                quantity, 1, price * quantity, null, 0, false);
+    }
+}
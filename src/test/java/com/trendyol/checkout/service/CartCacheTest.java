@@ -0,0 +1,48 @@
+package com.trendyol.checkout.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartCacheTest {
+
+    @Test
+    void it_should_keep_at_most_capacity_carts_however_many_are_added() {
+        // given
+        CartCache<String> cache = new CartCache<>(64);
+
+        // when
+        for (int cartId = 0; cartId < 100_000; cartId++) {
+            cache.computeIfAbsent(cartId, String::valueOf);
+        }
+
+        // then
+        assertTrue(cache.size() <= 64);
+        assertEquals("99999", cache.get(99_999));
+    }
+
+    @Test
+    void it_should_drop_least_recently_used_cart_when_full() {
+        // given
+        CartCache<String> cache = new CartCache<>(2);
+        cache.merge(1, "first", (existing, candidate) -> candidate);
+        cache.merge(2, "second", (existing, candidate) -> candidate);
+        cache.get(1);
+
+        // when
+        cache.merge(3, "third", (existing, candidate) -> candidate);
+
+        // then
+        assertEquals("first", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("third", cache.get(3));
+    }
+
+    @Test
+    void it_should_throw_illegal_argument_exception_when_capacity_is_not_positive() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> new CartCache<String>(0));
+    }
+}
@@ -0,0 +1,40 @@
+package com.trendyol.checkout.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartChangeLogTest {
+
+    @Test
+    void it_should_merge_changes_of_versions_recorded_out_of_order() {
+        // given
+        CartChangeLog changeLog = new CartChangeLog();
+
+        // when
+        changeLog.record(2, new int[]{2, 3});
+        changeLog.record(1, new int[]{1, 2});
+
+        // then
+        assertEquals(Set.of(1, 2, 3), changeLog.changedItemIdsBetween(0, 2));
+        assertEquals(Set.of(2, 3), changeLog.changedItemIdsBetween(1, 2));
+    }
+
+    @Test
+    void it_should_return_null_when_version_in_between_is_no_longer_in_log() {
+        // given
+        CartChangeLog changeLog = new CartChangeLog();
+
+        // when
+        for (int version = 1; version <= CartChangeLog.CAPACITY + 1; version++) {
+            changeLog.record(version, new int[]{version});
+        }
+
+        // then
+        assertNull(changeLog.changedItemIdsBetween(0, CartChangeLog.CAPACITY + 1));
+        assertNull(changeLog.changedItemIdsBetween(CartChangeLog.CAPACITY + 1, CartChangeLog.CAPACITY + 2));
+        assertEquals(Set.of(CartChangeLog.CAPACITY + 1), changeLog.changedItemIdsBetween(CartChangeLog.CAPACITY, CartChangeLog.CAPACITY + 1));
+    }
+}
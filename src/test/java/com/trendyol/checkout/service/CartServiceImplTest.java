@@ -1,30 +1,59 @@
 package com.trendyol.checkout.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trendyol.checkout.CartConstants;
 import com.trendyol.checkout.exception.ItemNotFoundException;
+import com.trendyol.checkout.models.dto.request.BatchItemRequest;
 import com.trendyol.checkout.models.dto.request.ItemRequest;
 import com.trendyol.checkout.models.dto.request.VasItemRequest;
 import com.trendyol.checkout.models.dto.response.BasicResponse;
+import com.trendyol.checkout.models.dto.response.BatchItemResponse;
+import com.trendyol.checkout.models.dto.response.CartDeltaResponse;
+import com.trendyol.checkout.models.dto.response.CartResponse;
 import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
 import com.trendyol.checkout.models.entity.item.*;
 import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.snapshot.CartSnapshotStore;
+import com.trendyol.checkout.snapshot.FileCartSnapshotStore;
+import com.trendyol.checkout.store.OffHeapCartStore;
+import com.trendyol.checkout.store.ShardedCartStore;
 import com.trendyol.checkout.validation.ItemValidator;
+import com.trendyol.checkout.wal.CartMutationLog;
+import com.trendyol.checkout.wal.FsyncPolicy;
+import com.trendyol.checkout.wal.MappedCartMutationLog;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
-@SpringBootTest
+@SpringBootTest(properties = {"checkout.wal.directory=target/wal-test", "checkout.snapshot.directory=target/snapshot-test",
+        "checkout.cart-expiry.spill-directory=target/spill-test"})
 class CartServiceImplTest {
+    private static final int CART_ID = 1;
 
     @Mock
     private ItemValidator validator;
@@ -32,22 +61,44 @@ class CartServiceImplTest {
     @Mock
     private PromotionCalculator promotionCalculator;
 
-
-    @InjectMocks
     private CartServiceImpl cartService;
 
-    private Cart cart;
+    private CartStore cartStore;
 
     @BeforeEach
     void setUp() {
-        cart = new Cart();
-        cartService = new CartServiceImpl(cart, validator, promotionCalculator);
         MockitoAnnotations.openMocks(this);
+        cartStore = new ShardedCartStore(1);
+        cartService = new CartServiceImpl(cartStore, validator, promotionCalculator);
+
+        // The validator hands the item built from the request to the service
+        when(validator.validateNonVasItemRequest(any(), any())).thenAnswer(invocation -> toItem(invocation.getArgument(1)));
+        when(validator.validateVasItemRequest(any(), any())).thenAnswer(invocation -> toItem(invocation.getArgument(1)));
     }
 
     @AfterEach
     void clearUp() {
-        cart = new Cart();
+        cartStore.remove(CART_ID);
+    }
+
+    private CompactCart committedCart() {
+        return cartStore.getOrCreate(CART_ID);
+    }
+
+    private void givenCartItems(Item... items) {
+        Cart cart = new Cart(CART_ID);
+        cart.setItems(List.of(items));
+        cartStore.restore(CompactCart.of(cart));
+    }
+
+    private static Item toItem(ItemRequest request) {
+        if (request instanceof VasItemRequest vasItemRequest) {
+            return new VasItem(vasItemRequest.getVasItemId(), request.getCategoryId(), request.getSellerId(), request.getPrice(), request.getQuantity());
+        } else if (request.getCategoryId() == CartConstants.DIGITAL_ITEM_CATEGORY_ID) {
+            return new DigitalItem(request.getItemId(), request.getCategoryId(), request.getSellerId(), request.getPrice(), request.getQuantity());
+        } else {
+            return new DefaultItem(request.getItemId(), request.getCategoryId(), request.getSellerId(), request.getPrice(), request.getQuantity());
+        }
     }
 
     /*
@@ -59,7 +110,7 @@ class CartServiceImplTest {
         ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(100).quantity(1).price(1000.0).build();
 
         // when
-        ResponseEntity<BasicResponse> response = cartService.addNonVasItemToCart(request);
+        ResponseEntity<BasicResponse> response = cartService.addNonVasItemToCart(CART_ID, request);
 
         // then
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -71,7 +122,7 @@ class CartServiceImplTest {
         ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(100).quantity(1).price(1000.0).build();
 
         // when
-        ResponseEntity<BasicResponse> response = cartService.addNonVasItemToCart(request);
+        ResponseEntity<BasicResponse> response = cartService.addNonVasItemToCart(CART_ID, request);
 
         // then
         assertEquals("Item with id: 1 successfully added to cart", response.getBody().getMessage());
@@ -84,50 +135,63 @@ class CartServiceImplTest {
 
         // when
         // then
-        cartService.addNonVasItemToCart(request);
-        assertEquals(3000.0, cart.getTotalPrice());
+        cartService.addNonVasItemToCart(CART_ID, request);
+        assertEquals(3000.0, committedCart().getTotalPrice());
     }
 
     @Test
     void it_should_successfully_add_different_non_vas_item_to_non_empty_cart_and_return_correct_cart_total_price() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         ItemRequest request = ItemRequest.builder().itemId(2).sellerId(100).categoryId(100).quantity(3).price(1000.0).build();
 
         // when
         // then
-        cartService.addNonVasItemToCart(request);
-        assertEquals(3100.0, cart.getTotalPrice());
+        cartService.addNonVasItemToCart(CART_ID, request);
+        assertEquals(3100.0, committedCart().getTotalPrice());
     }
 
     @Test
     void it_should_successfully_add_already_existing_non_vas_item_to_non_empty_cart_and_return_correct_cart_total_price() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         ItemRequest request = ItemRequest.builder().itemId(1).sellerId(1).categoryId(1).quantity(3).price(100.0).build();
 
         // when
         // then
-        cartService.addNonVasItemToCart(request);
-        assertEquals(400.0, cart.getTotalPrice());
+        cartService.addNonVasItemToCart(CART_ID, request);
+        assertEquals(400.0, committedCart().getTotalPrice());
+    }
+
+    @Test
+    void it_should_return_exact_cart_total_price_when_items_with_fractional_prices_are_added() {
+        // given
+        ItemRequest request1 = ItemRequest.builder().itemId(1).sellerId(100).categoryId(100).quantity(1).price(0.1).build();
+        ItemRequest request2 = ItemRequest.builder().itemId(2).sellerId(100).categoryId(100).quantity(1).price(0.2).build();
+
+        // when
+        // then
+        cartService.addNonVasItemToCart(CART_ID, request1);
+        cartService.addNonVasItemToCart(CART_ID, request2);
+        assertEquals(0.3, committedCart().getTotalPrice());
     }
 
     @Test
     void it_should_successfully_add_already_existing_non_vas_item_to_non_empty_cart_and_individual_item_quantity_increase() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         ItemRequest request = ItemRequest.builder().itemId(1).sellerId(1).categoryId(1).quantity(3).price(100.0).build();
 
         // when
         // then
-        cartService.addNonVasItemToCart(request);
-        Item item = cart.getItems().get(0);
+        cartService.addNonVasItemToCart(CART_ID, request);
+        Item item = committedCart().getItems().get(0);
         assertEquals(4, item.getQuantity());
     }
 
@@ -136,15 +200,15 @@ class CartServiceImplTest {
         // given
         DefaultItem defaultItem1 = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).build();
         DefaultItem defaultItem2 = DefaultItem.builder().itemId(2).sellerId(1).categoryId(1).quantity(4).price(100).type(ItemType.DEFAULT_ITEM).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem1, defaultItem2)));
+        givenCartItems(defaultItem1, defaultItem2);
 
         ItemRequest request = ItemRequest.builder().itemId(3).sellerId(1).categoryId(1).quantity(3).price(100.0).build();
 
         // when
         // then
-        cartService.addNonVasItemToCart(request);
+        cartService.addNonVasItemToCart(CART_ID, request);
 
-        assertEquals(3, cart.getItems().size());
+        assertEquals(3, committedCart().getItems().size());
     }
 
     /*
@@ -155,12 +219,12 @@ class CartServiceImplTest {
     void it_should_successfully_add_vas_item_and_return_http_status_created() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         VasItemRequest request = VasItemRequest.builder().itemId(1).sellerId(5003).categoryId(3242).quantity(1).price(10.0).vasItemId(12).build();
 
         // when
-        ResponseEntity<BasicResponse> response = cartService.addVasItemToCart(request);
+        ResponseEntity<BasicResponse> response = cartService.addVasItemToCart(CART_ID, request);
 
         // then
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -170,12 +234,12 @@ class CartServiceImplTest {
     void it_should_successfully_add_vas_item_and_return_message_item_is_successfully_added() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         VasItemRequest request = VasItemRequest.builder().itemId(1).sellerId(5003).categoryId(3242).quantity(1).price(10.0).vasItemId(12).build();
 
         // when
-        ResponseEntity<BasicResponse> response = cartService.addVasItemToCart(request);
+        ResponseEntity<BasicResponse> response = cartService.addVasItemToCart(CART_ID, request);
 
         // then
         assertEquals("Item with id: 12 successfully added to cart", response.getBody().getMessage());
@@ -185,14 +249,14 @@ class CartServiceImplTest {
     void it_should_successfully_add_vas_item_to_cart_with_single_default_item_and_return_correct_cart_total_price() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(100).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         VasItemRequest request = VasItemRequest.builder().itemId(1).sellerId(5003).categoryId(3242).quantity(1).price(10.0).vasItemId(12).build();
 
         // when
         // then
-        cartService.addVasItemToCart(request);
-        assertEquals(110.0, cart.getTotalPrice());
+        cartService.addVasItemToCart(CART_ID, request);
+        assertEquals(110.0, committedCart().getTotalPrice());
     }
 
     @Test
@@ -200,14 +264,14 @@ class CartServiceImplTest {
         // given
         VasItem vasItem = VasItem.builder().itemId(2).sellerId(5003).categoryId(3242).quantity(1).price(100).type(ItemType.VAS_ITEM).build();
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>(List.of(vasItem))).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem, vasItem)));
+        givenCartItems(defaultItem, vasItem);
 
         VasItemRequest request = VasItemRequest.builder().itemId(1).sellerId(5003).categoryId(3242).quantity(1).price(10.0).vasItemId(2).build();
 
         // when
         // then
-        cartService.addVasItemToCart(request);
-        assertEquals(1110.0, cart.getTotalPrice());
+        cartService.addVasItemToCart(CART_ID, request);
+        assertEquals(1110.0, committedCart().getTotalPrice());
     }
 
     @Test
@@ -215,14 +279,14 @@ class CartServiceImplTest {
         // given
         VasItem vasItem = VasItem.builder().itemId(2).sellerId(5003).categoryId(3242).quantity(1).price(100).type(ItemType.VAS_ITEM).build();
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem, vasItem)));
+        givenCartItems(defaultItem, vasItem);
 
         VasItemRequest request = VasItemRequest.builder().itemId(1).sellerId(5003).categoryId(3242).quantity(1).price(10.0).vasItemId(2).build();
 
         // when
         // then
-        cartService.addVasItemToCart(request);
-        int itemCount = cart.getItems().stream().filter(i -> i.getItemId() == 2).findFirst().get().getQuantity();
+        cartService.addVasItemToCart(CART_ID, request);
+        int itemCount = committedCart().getItems().stream().filter(i -> i.getItemId() == 2).findFirst().get().getQuantity();
         assertEquals(2, itemCount);
     }
 
@@ -236,13 +300,13 @@ class CartServiceImplTest {
         VasItem vasItem = VasItem.builder().itemId(12).sellerId(5003).categoryId(3242).quantity(7).price(100).type(ItemType.VAS_ITEM).build();
         DefaultItem defaultItem1 = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>(List.of(vasItem))).build();
         DefaultItem defaultItem2 = DefaultItem.builder().itemId(2).sellerId(1).categoryId(1).quantity(5).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem1, defaultItem2, vasItem)));
+        givenCartItems(defaultItem1, defaultItem2, vasItem);
 
         // when
         // then
-        cartService.removeItem(1);
+        cartService.removeItem(CART_ID, 1);
 
-        assertEquals(5, cart.getItemCount());
+        assertEquals(5, committedCart().getItemCount());
     }
 
     @Test
@@ -250,12 +314,12 @@ class CartServiceImplTest {
         // given
         DefaultItem defaultItem1 = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
         DefaultItem defaultItem2 = DefaultItem.builder().itemId(2).sellerId(1).categoryId(1).quantity(5).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem1, defaultItem2)));
+        givenCartItems(defaultItem1, defaultItem2);
 
         // when
         // then
-        cartService.removeItem(1);
-        Item remainingItem = cart.getItems().get(0);
+        cartService.removeItem(CART_ID, 1);
+        Item remainingItem = committedCart().getItems().get(0);
 
         assertEquals(5, remainingItem.getQuantity());
     }
@@ -264,12 +328,12 @@ class CartServiceImplTest {
     void it_should_throw_item_not_found_exception_when_no_item_with_id_in_cart() {
         // given
         DefaultItem defaultItem1 = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem1)));
+        givenCartItems(defaultItem1);
 
         // when
         // then
         ItemNotFoundException exception = assertThrows(ItemNotFoundException.class, () -> {
-            cartService.removeItem(125);
+            cartService.removeItem(CART_ID, 125);
         });
 
         assertEquals("There is no item with id: 125 in your cart", exception.getMessage());
@@ -279,26 +343,24 @@ class CartServiceImplTest {
     void it_should_successfully_nullify_cart_type_when_last_digital_item_is_removed() {
         // given
         DigitalItem digitalItem = DigitalItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DIGITAL_ITEM).build();
-        cart.setDigitalItemCart(true);
-        cart.setItems(new ArrayList<>(List.of(digitalItem)));
+        givenCartItems(digitalItem);
 
         // when
         // then
-        cartService.removeItem(1);
-        assertNull(cart.isDigitalItemCart());
+        cartService.removeItem(CART_ID, 1);
+        assertNull(committedCart().isDigitalItemCart());
     }
 
     @Test
     void it_should_successfully_nullify_cart_type_when_last_default_item_is_removed() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setDigitalItemCart(true);
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
 
         // when
         // then
-        cartService.removeItem(1);
-        assertNull(cart.isDigitalItemCart());
+        cartService.removeItem(CART_ID, 1);
+        assertNull(committedCart().isDigitalItemCart());
     }
 
     /*
@@ -309,11 +371,353 @@ class CartServiceImplTest {
     void it_should_reset_item_count_to_zero_when_cart_is_reset() {
         // given
         DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
-        cart.setItems(new ArrayList<>(List.of(defaultItem)));
+        givenCartItems(defaultItem);
+
+        // when
+        // then
+        cartService.resetCart(CART_ID);
+        assertEquals(0, committedCart().getItemCount());
+    }
+
+    /*
+     * concurrency
+     */
+
+    @Test
+    void it_should_not_lose_updates_when_same_cart_is_mutated_concurrently() throws InterruptedException {
+        // given
+        int threadCount = 8;
+        int addsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        for (int t = 0; t < threadCount; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < addsPerThread; i++) {
+                    ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(100).quantity(1).price(10.0).build();
+                    cartService.addNonVasItemToCart(CART_ID, request);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // then
+        assertEquals(threadCount * addsPerThread, committedCart().getItemCount());
+        assertEquals(threadCount * addsPerThread, committedCart().getItems().get(0).getQuantity());
+        assertEquals(threadCount * addsPerThread, committedCart().getVersion());
+    }
+
+    @Test
+    void it_should_not_change_previously_read_cart_when_cart_is_mutated() {
+        // given
+        CompactCart readCart = committedCart();
+        ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(100).quantity(3).price(1000.0).build();
+
+        // when
+        cartService.addNonVasItemToCart(CART_ID, request);
+
+        // then
+        assertEquals(0, readCart.getItemCount());
+        assertEquals(0, readCart.getVersion());
+        assertEquals(1, committedCart().getVersion());
+    }
+
+    @Test
+    void it_should_not_commit_new_version_when_mutation_fails() {
+        // given
+        DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1).categoryId(1).quantity(1).price(1000).type(ItemType.DEFAULT_ITEM).vasItems(new ArrayList<>()).build();
+        givenCartItems(defaultItem);
+        CompactCart committed = committedCart();
+
+        // when
+        assertThrows(ItemNotFoundException.class, () -> cartService.removeItem(CART_ID, 125));
+
+        // then
+        assertSame(committed, committedCart());
+        assertEquals(0, committedCart().getVersion());
+    }
+
+    @Test
+    void it_should_not_store_unknown_cart_when_it_is_read_or_emptied() {
+        // given
+        // when
+        ResponseEntity<BasicResponse> response = cartService.displayCart(CART_ID);
+        cartService.displayCart(CART_ID, null);
+        cartService.displayCartChanges(CART_ID, 3);
+        cartService.resetCart(CART_ID);
+        assertThrows(ItemNotFoundException.class, () -> cartService.removeItem(CART_ID, 1));
+
+        // then
+        CartResponse cartResponse = (CartResponse) response.getBody().getMessage();
+        assertEquals(0, cartResponse.getItems().size());
+        assertEquals(0, cartResponse.getVersion());
+        assertTrue(cartStore.find(CART_ID).isEmpty());
+        assertEquals(0, cartStore.size());
+    }
+
+    /*
+     * addItemsToCart
+     */
+    @Test
+    void it_should_add_all_batch_items_as_single_new_version() {
+        // given
+        BatchItemRequest request = BatchItemRequest.builder().items(List.of(
+                ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build(),
+                ItemRequest.builder().itemId(2).sellerId(100).categoryId(1001).quantity(3).price(50.0).build()
+        )).build();
+
+        // when
+        ResponseEntity<BasicResponse> response = cartService.addItemsToCart(CART_ID, request);
+
+        // then
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(5, committedCart().getItemCount());
+        assertEquals(350.0, committedCart().getTotalPrice());
+        assertEquals(1, committedCart().getVersion());
+    }
+
+    @Test
+    void it_should_reject_invalid_batch_line_and_add_remaining_lines() {
+        // given
+        CartServiceImpl service = new CartServiceImpl(cartStore, new ItemValidator(), promotionCalculator);
+        BatchItemRequest request = BatchItemRequest.builder().items(List.of(
+                ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build(),
+                ItemRequest.builder().itemId(2).sellerId(100).categoryId(1001).quantity(11).price(50.0).build(),
+                ItemRequest.builder().itemId(3).sellerId(100).categoryId(1001).quantity(1).price(10.0).build()
+        )).build();
+
+        // when
+        ResponseEntity<BasicResponse> response = service.addItemsToCart(CART_ID, request);
+
+        // then
+        BatchItemResponse batchResponse = (BatchItemResponse) response.getBody().getMessage();
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertFalse(response.getBody().isResult());
+        assertEquals(2, batchResponse.getAddedCount());
+        assertFalse(batchResponse.getLines().get(1).isResult());
+        assertEquals(3, committedCart().getItemCount());
+        assertNull(committedCart().findItem(2));
+    }
+
+    @Test
+    void it_should_not_commit_new_version_when_every_batch_line_is_rejected() {
+        // given
+        CartServiceImpl service = new CartServiceImpl(cartStore, new ItemValidator(), promotionCalculator);
+        BatchItemRequest request = BatchItemRequest.builder().items(List.of(
+                ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(11).price(100.0).build(),
+                ItemRequest.builder().itemId(2).sellerId(100).categoryId(1001).quantity(9).price(4e16).build()
+        )).build();
+
+        // when
+        service.addItemsToCart(CART_ID, request);
+        ResponseEntity<BasicResponse> response = service.addItemsToCart(CART_ID, request);
+
+        // then
+        BatchItemResponse batchResponse = (BatchItemResponse) response.getBody().getMessage();
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(2, batchResponse.getRejectedCount());
+        assertEquals("Cart total can be maximum 500000", batchResponse.getLines().get(1).getMessage());
+        assertEquals(0, batchResponse.getVersion());
+        assertEquals(0, committedCart().getVersion());
+    }
+
+    @Test
+    void it_should_add_vas_item_to_default_item_of_same_batch() {
+        // given
+        CartServiceImpl service = new CartServiceImpl(cartStore, new ItemValidator(), promotionCalculator);
+        BatchItemRequest request = BatchItemRequest.builder()
+                .items(List.of(ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(1).price(100.0).build()))
+                .vasItems(List.of(VasItemRequest.builder().itemId(1).vasItemId(2).sellerId(5003).categoryId(3242).quantity(1).price(10.0).build()))
+                .build();
+
+        // when
+        ResponseEntity<BasicResponse> response = service.addItemsToCart(CART_ID, request);
+
+        // then
+        assertTrue(response.getBody().isResult());
+        assertEquals(1, ((DefaultItem) committedCart().findItem(1)).getVasItems().size());
+        assertEquals(110.0, committedCart().getTotalPrice());
+    }
+
+    @Test
+    void it_should_throw_illegal_argument_exception_when_batch_is_empty() {
+        // given
+        BatchItemRequest request = new BatchItemRequest(List.of(), null);
+
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> cartService.addItemsToCart(CART_ID, request));
+        assertEquals(0, committedCart().getVersion());
+    }
+
+    @Test
+    void it_should_return_not_modified_without_evaluating_promotions_when_etag_matches_cart_version() {
+        // given
+        ResponseEntity<byte[]> first = cartService.displayCart(CART_ID, null);
+
+        // when
+        ResponseEntity<byte[]> second = cartService.displayCart(CART_ID, first.getHeaders().getETag());
+
+        // then
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        verify(promotionCalculator, times(1)).calculateMaxPromotion(any(), any());
+    }
+
+    @Test
+    void it_should_reuse_rendered_body_while_cart_version_is_unchanged() {
+        // given
+        givenCartItems();
+        ResponseEntity<byte[]> first = cartService.displayCart(CART_ID, null);
 
         // when
+        ResponseEntity<byte[]> second = cartService.displayCart(CART_ID, null);
+
+        // then
+        assertSame(first.getBody(), second.getBody());
+        verify(promotionCalculator, times(1)).calculateMaxPromotion(any(), any());
+    }
+
+    @Test
+    void it_should_render_new_body_and_etag_when_cart_is_mutated() {
+        // given
+        ResponseEntity<byte[]> before = cartService.displayCart(CART_ID, null);
+        ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build();
+        cartService.addNonVasItemToCart(CART_ID, request);
+
+        // when
+        ResponseEntity<byte[]> after = cartService.displayCart(CART_ID, before.getHeaders().getETag());
+
+        // then
+        assertEquals(HttpStatus.OK, after.getStatusCode());
+        assertNotEquals(before.getHeaders().getETag(), after.getHeaders().getETag());
+        assertTrue(new String(after.getBody()).contains("\"totalPrice\":200.0"));
+    }
+
+    @Test
+    void it_should_keep_bounded_heap_entries_however_many_off_heap_carts_are_displayed() {
+        // given
+        OffHeapCartStore offHeapCartStore = new OffHeapCartStore(1, DataSize.ofKilobytes(64));
+        CartServiceImpl service = new CartServiceImpl(offHeapCartStore, validator, promotionCalculator, new ObjectMapper(),
+                CartMutationLog.DISABLED, CartSnapshotStore.DISABLED, 32, 32);
+        ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(1).price(100.0).build();
+
+        // when
+        for (int cartId = 1; cartId <= 2000; cartId++) {
+            service.addNonVasItemToCart(cartId, request);
+            service.displayCart(cartId, null);
+        }
+
+        // then
+        assertEquals(2000, offHeapCartStore.size());
+        assertTrue(service.cachedCartCount() <= 64);
+        assertEquals(HttpStatus.OK, service.displayCart(1, null).getStatusCode());
+        CartResponse cartResponse = (CartResponse) service.displayCartChanges(1, 0).getBody().getMessage();
+        assertEquals(1, cartResponse.getItems().size());
+    }
+
+    @Test
+    void it_should_return_only_items_changed_and_removed_after_given_version() {
+        // given
+        cartService.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(1).price(100.0).build());
+        cartService.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(2).sellerId(100).categoryId(1001).quantity(1).price(50.0).build());
+        cartService.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(3).sellerId(100).categoryId(1001).quantity(1).price(10.0).build());
+        long sinceVersion = committedCart().getVersion();
+        cartService.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(2).sellerId(100).categoryId(1001).quantity(2).price(50.0).build());
+        cartService.removeItem(CART_ID, 3);
+
+        // when
+        ResponseEntity<BasicResponse> response = cartService.displayCartChanges(CART_ID, sinceVersion);
+
+        // then
+        CartDeltaResponse delta = (CartDeltaResponse) response.getBody().getMessage();
+        assertEquals(sinceVersion, delta.getSinceVersion());
+        assertEquals(5, delta.getVersion());
+        assertEquals(1, delta.getItems().size());
+        assertEquals(2, delta.getItems().get(0).getItemId());
+        assertEquals(3, delta.getItems().get(0).getQuantity());
+        assertEquals(List.of(3), delta.getRemovedItemIds());
+        assertEquals(250.0, delta.getTotalPrice());
+    }
+
+    @Test
+    void it_should_return_full_cart_when_given_version_is_older_than_change_log() {
+        // given
+        givenCartItems();
+        for (int i = 0; i <= CartChangeLog.CAPACITY; i++) {
+            cartService.resetCart(CART_ID);
+        }
+
+        // when
+        ResponseEntity<BasicResponse> response = cartService.displayCartChanges(CART_ID, 0);
+
+        // then
+        CartResponse cartResponse = (CartResponse) response.getBody().getMessage();
+        assertEquals(CartChangeLog.CAPACITY + 1, cartResponse.getVersion());
+    }
+
+    @Test
+    void it_should_rebuild_committed_carts_from_mutation_log(@TempDir Path walDirectory) throws IOException {
+        // given
+        try (MappedCartMutationLog log = new MappedCartMutationLog(walDirectory, 1 << 16, FsyncPolicy.NEVER, Duration.ofMillis(100))) {
+            CartServiceImpl service = new CartServiceImpl(cartStore, new ItemValidator(), promotionCalculator, new ObjectMapper(), log, CartSnapshotStore.DISABLED);
+            service.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build());
+            service.addVasItemToCart(CART_ID, VasItemRequest.builder().itemId(1).vasItemId(2).sellerId(5003).categoryId(3242).quantity(1).price(10.0).build());
+            service.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(3).sellerId(100).categoryId(1001).quantity(1).price(50.0).build());
+            service.removeItem(CART_ID, 3);
+        }
+        CompactCart committed = committedCart();
+
+        // when
+        CartStore recoveredStore = new ShardedCartStore(1);
+        try (MappedCartMutationLog log = new MappedCartMutationLog(walDirectory, 1 << 16, FsyncPolicy.NEVER, Duration.ofMillis(100))) {
+            new CartServiceImpl(recoveredStore, new ItemValidator(), promotionCalculator, new ObjectMapper(), log, CartSnapshotStore.DISABLED).recoverCarts();
+        }
+
+        // then
+        CompactCart recovered = recoveredStore.getOrCreate(CART_ID);
+        assertEquals(committed.getVersion(), recovered.getVersion());
+        assertEquals(committed.getTotalPriceInCents(), recovered.getTotalPriceInCents());
+        assertEquals(committed.getItemCount(), recovered.getItemCount());
+        assertEquals(committed.getUniqueItemCount(), recovered.getUniqueItemCount());
+        assertNull(recovered.findItem(3));
+        assertEquals(1, ((DefaultItem) recovered.findItem(1)).getVasItems().size());
+    }
+
+    @Test
+    void it_should_rebuild_carts_from_snapshot_and_mutation_log_written_after_it(@TempDir Path walDirectory, @TempDir Path snapshotDirectory) throws IOException {
+        // given
+        try (MappedCartMutationLog log = new MappedCartMutationLog(walDirectory, 1 << 16, FsyncPolicy.NEVER, Duration.ofMillis(100));
+             FileCartSnapshotStore snapshotStore = new FileCartSnapshotStore(cartStore, log, snapshotDirectory, 2)) {
+            CartServiceImpl service = new CartServiceImpl(cartStore, new ItemValidator(), promotionCalculator, new ObjectMapper(), log, snapshotStore);
+            service.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build());
+            service.addNonVasItemToCart(CART_ID, ItemRequest.builder().itemId(3).sellerId(100).categoryId(1001).quantity(1).price(50.0).build());
+            snapshotStore.takeSnapshot();
+            service.addVasItemToCart(CART_ID, VasItemRequest.builder().itemId(1).vasItemId(2).sellerId(5003).categoryId(3242).quantity(1).price(10.0).build());
+            service.removeItem(CART_ID, 3);
+        }
+        CompactCart committed = committedCart();
+
+        // when
+        CartStore recoveredStore = new ShardedCartStore(1);
+        try (MappedCartMutationLog log = new MappedCartMutationLog(walDirectory, 1 << 16, FsyncPolicy.NEVER, Duration.ofMillis(100));
+             FileCartSnapshotStore snapshotStore = new FileCartSnapshotStore(recoveredStore, log, snapshotDirectory, 2)) {
+            new CartServiceImpl(recoveredStore, new ItemValidator(), promotionCalculator, new ObjectMapper(), log, snapshotStore).recoverCarts();
+        }
+
         // then
-        cartService.resetCart();
-        assertEquals(0, cart.getItemCount());
+        CompactCart recovered = recoveredStore.getOrCreate(CART_ID);
+        assertEquals(committed.getVersion(), recovered.getVersion());
+        assertEquals(committed.getTotalPriceInCents(), recovered.getTotalPriceInCents());
+        assertEquals(committed.getItemCount(), recovered.getItemCount());
+        assertNull(recovered.findItem(3));
+        assertEquals(1, ((DefaultItem) recovered.findItem(1)).getVasItems().size());
     }
-}
\ No newline at end of file
+}
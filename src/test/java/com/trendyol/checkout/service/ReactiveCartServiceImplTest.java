@@ -0,0 +1,69 @@
+package com.trendyol.checkout.service;
+
+import com.trendyol.checkout.exception.ItemNotFoundException;
+import com.trendyol.checkout.models.dto.request.ItemRequest;
+import com.trendyol.checkout.models.dto.response.BasicResponse;
+import com.trendyol.checkout.models.dto.response.CartResponse;
+import com.trendyol.checkout.promotion.PromotionCalculator;
+import com.trendyol.checkout.store.ShardedCartStore;
+import com.trendyol.checkout.validation.ItemValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveCartServiceImplTest {
+    private static final int CART_ID = 1;
+
+    private ReactiveCartServiceImpl reactiveCartService;
+
+    @BeforeEach
+    void setUp() {
+        CartServiceImpl cartService = new CartServiceImpl(new ShardedCartStore(1), new ItemValidator(), new PromotionCalculator());
+        reactiveCartService = new ReactiveCartServiceImpl(cartService);
+    }
+
+    @Test
+    void it_should_not_change_cart_until_mono_is_subscribed() {
+        // given
+        ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build();
+
+        // when
+        Mono<ResponseEntity<BasicResponse>> add = reactiveCartService.addNonVasItemToCart(CART_ID, request);
+
+        // then
+        assertEquals(0.0, displayedCart().getTotalPrice());
+        assertEquals(HttpStatus.CREATED, add.block().getStatusCode());
+        assertEquals(200.0, displayedCart().getTotalPrice());
+    }
+
+    @Test
+    void it_should_signal_item_not_found_exception_as_error_when_removed_item_is_not_in_cart() {
+        // given
+        Mono<ResponseEntity<BasicResponse>> remove = reactiveCartService.removeItem(CART_ID, 125);
+
+        // when
+        // then
+        assertThrows(ItemNotFoundException.class, remove::block);
+    }
+
+    @Test
+    void it_should_empty_cart_when_reset_is_subscribed() {
+        // given
+        ItemRequest request = ItemRequest.builder().itemId(1).sellerId(100).categoryId(1001).quantity(2).price(100.0).build();
+        reactiveCartService.addNonVasItemToCart(CART_ID, request).block();
+
+        // when
+        reactiveCartService.resetCart(CART_ID).block();
+
+        // then
+        assertTrue(displayedCart().getItems().isEmpty());
+    }
+
+    private CartResponse displayedCart() {
+        return (CartResponse) reactiveCartService.displayCart(CART_ID).block().getBody().getMessage();
+    }
+}
@@ -0,0 +1,118 @@
+package com.trendyol.checkout.snapshot;
+
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.DigitalItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import com.trendyol.checkout.store.CartStore;
+import com.trendyol.checkout.store.ShardedCartStore;
+import com.trendyol.checkout.wal.FsyncPolicy;
+import com.trendyol.checkout.wal.MappedCartMutationLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCartSnapshotStoreTest {
+    @TempDir
+    Path walDirectory;
+
+    @TempDir
+    Path snapshotDirectory;
+
+    @Test
+    void it_should_restore_every_committed_cart_from_latest_snapshot() throws IOException {
+        // given
+        CartStore cartStore = new ShardedCartStore(4);
+        DefaultItem defaultItem = new DefaultItem(10, 1001, 100, 49.99, 2);
+        defaultItem.getVasItems().add(new VasItem(20, 3242, 5003, 9.5, 1));
+        cartStore.restore(cart(1, 3, List.of(defaultItem, new VasItem(20, 3242, 5003, 9.5, 1)), false));
+        cartStore.restore(cart(2, 1, List.of(new DigitalItem(30, 7889, 100, 15.0, 1)), true));
+        // Carts only looked up have never been committed
+        cartStore.getOrCreate(3);
+        // Spans several chunks
+        for (int cartId = 100; cartId < 100_100; cartId++) {
+            cartStore.restore(cart(cartId, 1, List.of(new DefaultItem(cartId, 1001, 100, 1.0, 1)), false));
+        }
+
+        try (MappedCartMutationLog log = openLog();
+             FileCartSnapshotStore snapshotStore = new FileCartSnapshotStore(cartStore, log, snapshotDirectory, 4)) {
+            snapshotStore.takeSnapshot();
+        }
+
+        // when
+        CartStore restoredStore = new ShardedCartStore(4);
+        int restoredCount;
+        try (MappedCartMutationLog log = openLog();
+             FileCartSnapshotStore snapshotStore = new FileCartSnapshotStore(restoredStore, log, snapshotDirectory, 4)) {
+            restoredCount = snapshotStore.restore(restoredStore);
+        }
+
+        // then
+        assertEquals(100_002, restoredCount);
+        assertTrue(restoredStore.find(3).isEmpty());
+        CompactCart restored = restoredStore.find(1).orElseThrow();
+        assertEquals(3, restored.getVersion());
+        assertEquals(10948, restored.getTotalPriceInCents());
+        assertEquals(3, restored.getItemCount());
+        assertEquals(1, restored.getUniqueItemCount());
+        assertEquals(7, restored.getAppliedPromotionId());
+        assertFalse(restored.isDigitalItemCart());
+        DefaultItem restoredItem = (DefaultItem) restored.findItem(10);
+        assertEquals(4999, restoredItem.getPriceInCents());
+        assertEquals(20, restoredItem.getVasItems().get(0).getItemId());
+        assertEquals(2, restored.getItems().size());
+        assertInstanceOf(DigitalItem.class, restoredStore.find(2).orElseThrow().findItem(30));
+        assertEquals(100_099, restoredStore.find(100_099).orElseThrow().findItem(100_099).getItemId());
+    }
+
+    @Test
+    void it_should_truncate_mutation_log_and_older_snapshots_before_checkpoint() throws IOException {
+        // given
+        CartStore cartStore = new ShardedCartStore(1);
+        cartStore.restore(cart(1, 1, List.of(new DefaultItem(10, 1001, 100, 1.0, 1)), false));
+
+        try (MappedCartMutationLog log = openLog();
+             FileCartSnapshotStore snapshotStore = new FileCartSnapshotStore(cartStore, log, snapshotDirectory, 1)) {
+            // when
+            snapshotStore.takeSnapshot();
+            Path latest = snapshotStore.takeSnapshot();
+
+            // then
+            assertEquals(List.of(latest), list(snapshotDirectory));
+            assertEquals(1, list(walDirectory).size());
+        }
+    }
+
+    private MappedCartMutationLog openLog() {
+        return new MappedCartMutationLog(walDirectory, 4096, FsyncPolicy.NEVER, Duration.ofMillis(10));
+    }
+
+    private static CompactCart cart(int cartId, long version, List<Item> items, boolean digitalItemCart) {
+        int itemCount = 0;
+        long totalPriceInCents = 0;
+        for (Item item : items) {
+            itemCount += item.getQuantity();
+            totalPriceInCents += item.getPriceInCents() * item.getQuantity();
+        }
+        Cart cart = new Cart(cartId, items, itemCount, 1, 0, cartId == 1 ? 7 : null, 0, digitalItemCart);
+        cart.setTotalPriceInCents(totalPriceInCents);
+        cart.setVersion(version);
+        return CompactCart.of(cart);
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
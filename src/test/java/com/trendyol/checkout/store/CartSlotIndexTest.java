@@ -0,0 +1,52 @@
+package com.trendyol.checkout.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartSlotIndexTest {
+
+    @Test
+    void it_should_return_no_address_when_cart_is_not_indexed() {
+        // given
+        CartSlotIndex index = new CartSlotIndex(4);
+        index.put(1, 0);
+
+        // when
+        // then
+        assertEquals(0, index.get(1));
+        assertEquals(SlabAllocator.NO_ADDRESS, index.get(2));
+        assertEquals(SlabAllocator.NO_ADDRESS, index.remove(2));
+    }
+
+    @Test
+    void it_should_match_hash_map_through_growth_and_removals() {
+        // given
+        CartSlotIndex index = new CartSlotIndex(4);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // when
+        for (int i = 0; i < 50_000; i++) {
+            int cartId = random.nextInt(5_000) - 2_500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(cartId, SlabAllocator.NO_ADDRESS), index.remove(cartId));
+                expected.remove(cartId);
+            } else {
+                long address = ((long) random.nextInt(100) << 32) | random.nextInt(1 << 20);
+                index.put(cartId, address);
+                expected.put(cartId, address);
+            }
+        }
+
+        // then
+        assertEquals(expected.size(), index.size());
+        for (int cartId = -2_500; cartId < 2_500; cartId++) {
+            assertEquals(expected.getOrDefault(cartId, SlabAllocator.NO_ADDRESS), index.get(cartId));
+        }
+    }
+}
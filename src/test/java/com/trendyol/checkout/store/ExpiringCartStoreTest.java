@@ -0,0 +1,219 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.DigitalItem;
+import com.trendyol.checkout.models.entity.item.Item;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import com.trendyol.checkout.snapshot.FileCartSpillStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCartStoreTest {
+    private static final Duration DEFAULT_CART_TTL = Duration.ofMinutes(30);
+    private static final Duration DIGITAL_CART_TTL = Duration.ofMinutes(5);
+    private static final Duration SPILL_TTL = Duration.ofDays(30);
+
+    @TempDir
+    Path spillDirectory;
+
+    private final AtomicLong nanoTime = new AtomicLong(1_000_000_000L);
+    private ShardedCartStore residentCartStore;
+    private ExpiringCartStore cartStore;
+    private final List<Integer> evictedCartIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        residentCartStore = new ShardedCartStore(1);
+        cartStore = new ExpiringCartStore(residentCartStore, new FileCartSpillStore(spillDirectory), DEFAULT_CART_TTL, DIGITAL_CART_TTL, SPILL_TTL,
+                Duration.ofSeconds(1), 64, nanoTime::get);
+        cartStore.addEvictionListener(evictedCartIds::add);
+    }
+
+    @Test
+    void it_should_spill_idle_cart_and_fault_it_back_in_when_accessed() {
+        // given
+        DefaultItem defaultItem = new DefaultItem(10, 1001, 100, 49.99, 2);
+        defaultItem.getVasItems().add(new VasItem(20, 3242, 5003, 9.5, 1));
+        CompactCart cart = cart(1, 3, false, defaultItem);
+        cartStore.restore(cart);
+
+        // when
+        advance(DEFAULT_CART_TTL.plusSeconds(2));
+
+        // then
+        assertEquals(0, cartStore.size());
+        assertEquals(List.of(1), evictedCartIds);
+        CompactCart faultedIn = cartStore.getOrCreate(1);
+        assertEquals(cart.toString(), faultedIn.toString());
+        assertEquals(1, cartStore.size());
+        assertEquals(1, cartStore.getEvictedCartCount());
+        assertEquals(1, cartStore.getFaultedInCartCount());
+    }
+
+    @Test
+    void it_should_keep_cart_accessed_within_its_ttl() {
+        // given
+        cartStore.restore(cart(1, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1)));
+
+        // when
+        advance(DEFAULT_CART_TTL.minusMinutes(1));
+        cartStore.getOrCreate(1);
+        advance(DEFAULT_CART_TTL.minusMinutes(1));
+
+        // then
+        assertEquals(1, residentCartStore.size());
+        assertTrue(evictedCartIds.isEmpty());
+
+        advance(Duration.ofMinutes(2));
+        assertEquals(0, residentCartStore.size());
+    }
+
+    @Test
+    void it_should_expire_digital_carts_after_their_own_ttl() {
+        // given
+        cartStore.restore(cart(1, 1, true, new DigitalItem(30, 7889, 100, 15.0, 1)));
+        cartStore.restore(cart(2, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1)));
+
+        // when
+        advance(DIGITAL_CART_TTL.plusSeconds(2));
+
+        // then
+        assertEquals(List.of(1), evictedCartIds);
+        assertTrue(residentCartStore.find(1).isEmpty());
+        assertTrue(residentCartStore.find(2).isPresent());
+    }
+
+    @Test
+    void it_should_fail_replace_of_cart_evicted_after_it_was_read() {
+        // given
+        CompactCart current = cart(1, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1));
+        cartStore.restore(current);
+        advance(DEFAULT_CART_TTL.plusSeconds(2));
+
+        // when
+        boolean replaced = cartStore.replace(current, cart(1, 2, false, new DefaultItem(10, 1001, 100, 10.0, 2)));
+
+        // then
+        assertFalse(replaced);
+        CompactCart faultedIn = cartStore.getOrCreate(1);
+        assertEquals(1, faultedIn.getVersion());
+        assertTrue(cartStore.replace(faultedIn, cart(1, 2, false, new DefaultItem(10, 1001, 100, 10.0, 2))));
+    }
+
+    @Test
+    void it_should_drop_never_changed_cart_without_spilling_it() {
+        // given
+        cartStore.getOrCreate(1);
+
+        // when
+        advance(DEFAULT_CART_TTL.plusSeconds(2));
+
+        // then
+        assertEquals(List.of(1), evictedCartIds);
+        assertTrue(cartStore.find(1).isEmpty());
+        assertEquals(0, cartStore.getOrCreate(1).getVersion());
+        assertEquals(0, cartStore.getFaultedInCartCount());
+    }
+
+    @Test
+    void it_should_keep_cart_committed_while_it_was_being_spilled() {
+        // given
+        CompactCart current = cart(1, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1));
+        CompactCart updated = cart(1, 2, false, new DefaultItem(10, 1001, 100, 10.0, 2));
+        FileCartSpillStore committingSpillStore = new FileCartSpillStore(spillDirectory) {
+            @Override
+            public Spill prepare(CompactCart cart) {
+                // The write happens without the stripe lock, a mutation can commit meanwhile
+                residentCartStore.replace(current, updated);
+                return super.prepare(cart);
+            }
+        };
+        cartStore = new ExpiringCartStore(residentCartStore, committingSpillStore, DEFAULT_CART_TTL, DIGITAL_CART_TTL, SPILL_TTL,
+                Duration.ofSeconds(1), 64, nanoTime::get);
+        cartStore.restore(current);
+
+        // when
+        advance(DEFAULT_CART_TTL.plusSeconds(2));
+
+        // then
+        assertEquals(2, residentCartStore.find(1).orElseThrow().getVersion());
+        assertEquals(0, cartStore.getEvictedCartCount());
+        assertTrue(committingSpillStore.read(1).isEmpty());
+    }
+
+    @Test
+    void it_should_delete_spill_file_of_faulted_in_cart_once_snapshot_contains_it() {
+        // given
+        FileCartSpillStore spillStore = new FileCartSpillStore(spillDirectory);
+        cartStore.restore(cart(1, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1)));
+        cartStore.restore(cart(2, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1)));
+        advance(DEFAULT_CART_TTL.plusSeconds(2));
+        cartStore.getOrCreate(1);
+        long mark = cartStore.beginSnapshot();
+        cartStore.getOrCreate(2);
+
+        // when
+        cartStore.snapshotDurable(mark);
+
+        // then
+        assertTrue(spillStore.read(1).isEmpty());
+        assertTrue(spillStore.read(2).isPresent());
+        assertEquals(1, cartStore.find(1).orElseThrow().getVersion());
+        assertEquals(2, cartStore.size());
+    }
+
+    @Test
+    void it_should_drop_spilled_cart_once_its_file_is_older_than_spill_ttl() throws IOException {
+        // given
+        cartStore.restore(cart(1, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1)));
+        cartStore.restore(cart(2, 1, false, new DefaultItem(10, 1001, 100, 10.0, 1)));
+        advance(DEFAULT_CART_TTL.plusSeconds(2));
+        Files.setLastModifiedTime(spillDirectory.resolve("01").resolve("1.cart"),
+                FileTime.from(Instant.now().minus(SPILL_TTL).minusSeconds(60)));
+
+        // when
+        cartStore.sweepSpilledCarts();
+
+        // then
+        assertTrue(cartStore.find(1).isEmpty());
+        assertEquals(1, cartStore.find(2).orElseThrow().getVersion());
+        assertEquals(1, cartStore.getExpiredSpilledCartCount());
+    }
+
+    private void advance(Duration duration) {
+        // Expire every tick like the expiry thread does
+        long end = nanoTime.get() + duration.toNanos();
+        while (nanoTime.get() < end) {
+            nanoTime.set(Math.min(end, nanoTime.get() + TimeUnit.SECONDS.toNanos(1)));
+            cartStore.expireIdleCarts();
+        }
+    }
+
+    private static CompactCart cart(int cartId, long version, boolean digital, Item... items) {
+        Cart cart = new Cart(cartId);
+        for (Item item : items) {
+            cart.addItem(item);
+        }
+        cart.setItemCount(items.length);
+        cart.setUniqueItemCount(items.length);
+        cart.setDigitalItemCart(digital);
+        cart.setVersion(version);
+        return CompactCart.of(cart);
+    }
+}
@@ -0,0 +1,70 @@
+package com.trendyol.checkout.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimerWheelTest {
+    private static final long TICK_NANOS = Duration.ofMillis(100).toNanos();
+
+    @Test
+    void it_should_expire_timers_on_the_tick_of_their_deadline_across_rotations() {
+        // given
+        HashedTimerWheel<HashedTimerWheel.Timer> wheel = new HashedTimerWheel<>(Duration.ofMillis(100), 8, 0);
+        HashedTimerWheel.Timer soon = timer(3 * TICK_NANOS);
+        HashedTimerWheel.Timer afterTwoRotations = timer(19 * TICK_NANOS);
+        wheel.schedule(soon);
+        wheel.schedule(afterTwoRotations);
+        List<HashedTimerWheel.Timer> expired = new ArrayList<>();
+
+        // when
+        // then
+        wheel.advance(2 * TICK_NANOS, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(3 * TICK_NANOS, expired::add);
+        assertEquals(List.of(soon), expired);
+        wheel.advance(18 * TICK_NANOS, expired::add);
+        assertEquals(List.of(soon), expired);
+        wheel.advance(19 * TICK_NANOS, expired::add);
+        assertEquals(List.of(soon, afterTwoRotations), expired);
+    }
+
+    @Test
+    void it_should_expire_timer_scheduled_again_by_its_expiry() {
+        // given
+        HashedTimerWheel<HashedTimerWheel.Timer> wheel = new HashedTimerWheel<>(Duration.ofMillis(100), 8, 0);
+        HashedTimerWheel.Timer timer = timer(TICK_NANOS);
+        wheel.schedule(timer);
+        List<Long> expiries = new ArrayList<>();
+
+        // when
+        wheel.advance(30 * TICK_NANOS, expired -> {
+            expiries.add(expired.deadlineNanos);
+            if (expiries.size() < 3) {
+                expired.deadlineNanos += 10 * TICK_NANOS;
+                wheel.schedule(expired);
+            }
+        });
+
+        // then
+        assertEquals(List.of(TICK_NANOS, 11 * TICK_NANOS, 21 * TICK_NANOS), expiries);
+    }
+
+    @Test
+    void it_should_throw_illegal_argument_exception_when_wheel_size_is_not_power_of_two() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimerWheel<>(Duration.ofMillis(100), 10, 0));
+    }
+
+    private static HashedTimerWheel.Timer timer(long deadlineNanos) {
+        HashedTimerWheel.Timer timer = new HashedTimerWheel.Timer();
+        timer.deadlineNanos = deadlineNanos;
+        return timer;
+    }
+}
@@ -0,0 +1,221 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.models.entity.cart.Cart;
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.DigitalItem;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCartStoreTest {
+
+    private OffHeapCartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        cartStore = new OffHeapCartStore(1, DataSize.ofKilobytes(4));
+    }
+
+    @Test
+    void it_should_create_empty_cart_with_given_id_when_cart_does_not_exist() {
+        // given
+        // when
+        CompactCart cart = cartStore.getOrCreate(42);
+
+        // then
+        assertEquals(42, cart.getId());
+        assertEquals(0, cart.getItemCount());
+        assertEquals(0, cartStore.getOrCreate(42).getVersion());
+        assertEquals(1, cartStore.size());
+    }
+
+    @Test
+    void it_should_read_back_cart_with_vas_items_spanning_overflow_blocks() {
+        // given
+        CompactCart cart = cart(42, 1);
+
+        // when
+        cartStore.restore(cart);
+
+        // then
+        CompactCart stored = cartStore.find(42).orElseThrow();
+        assertEquals(cart.toString(), stored.toString());
+        assertEquals(cart.lineCount(), stored.lineCount());
+        for (int line = 0; line < cart.lineCount(); line++) {
+            assertEquals(cart.parent(line), stored.parent(line));
+        }
+    }
+
+    @Test
+    void it_should_store_full_cart_with_vas_items_as_cart_lines() {
+        // given
+        Cart cart = new Cart(7);
+        for (int itemId = 0; itemId < 10; itemId++) {
+            DefaultItem defaultItem = new DefaultItem(itemId, 1001, 100, 100.0, 1);
+            cart.addItem(defaultItem);
+            if (itemId % 5 == 0) {
+                VasItem vasItem = new VasItem(20 + itemId, 3242, 5003, 10.0, 1);
+                defaultItem.getVasItems().add(new VasItem(vasItem));
+                cart.addItem(vasItem);
+            }
+        }
+        cart.setVersion(1);
+        CompactCart full = CompactCart.of(cart);
+
+        // when
+        cartStore.restore(full);
+
+        // then
+        CompactCart stored = cartStore.find(7).orElseThrow();
+        assertEquals(12, stored.getLineCount());
+        assertEquals(full.toString(), stored.toString());
+        for (int line = 0; line < full.lineCount(); line++) {
+            assertEquals(full.itemId(line), stored.itemId(line));
+            assertEquals(full.parent(line), stored.parent(line));
+        }
+    }
+
+    @Test
+    void it_should_read_committed_versions_while_cart_is_replaced_concurrently() throws InterruptedException {
+        // given
+        cartStore.restore(cart(42, 1));
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int version = 1; version < 20_000; version++) {
+                CompactCart current = cartStore.find(42).orElseThrow();
+                cartStore.replace(current, version % 2 == 0 ? cart(42, version + 1) : emptyCart(42, version + 1));
+            }
+            writing.set(false);
+        });
+
+        // when
+        writer.start();
+        int reads = 0;
+        while (writing.get() || reads == 0) {
+            CompactCart read = cartStore.find(42).orElseThrow();
+
+            // then
+            // Odd versions hold the items, even versions are empty
+            assertEquals(read.getVersion() % 2 == 1 ? 13 : 0, read.getItemCount());
+            assertEquals(read.getVersion() % 2 == 1 ? 9 : 0, read.lineCount());
+            reads++;
+        }
+        writer.join();
+    }
+
+    @Test
+    void it_should_replace_cart_only_when_current_version_is_still_committed() {
+        // given
+        CompactCart current = cartStore.getOrCreate(42);
+        CompactCart updated = cart(42, 1);
+        CompactCart stale = cart(42, 2);
+
+        // when
+        boolean replaced = cartStore.replace(current, updated);
+        boolean replacedStale = cartStore.replace(current, stale);
+
+        // then
+        assertTrue(replaced);
+        assertFalse(replacedStale);
+        assertEquals(1, cartStore.find(42).orElseThrow().getVersion());
+    }
+
+    @Test
+    void it_should_reuse_overflow_blocks_freed_by_reset_cart() {
+        // given
+        CompactCart cart = cart(1, 1);
+        cartStore.restore(cart);
+        cartStore.restore(CompactCart.empty(2));
+        long reservedBytes = cartStore.reservedBytes();
+
+        // when
+        cartStore.replace(cart, emptyCart(1, 2));
+        cartStore.replace(cartStore.find(2).orElseThrow(), cart(2, 1));
+
+        // then
+        assertEquals(reservedBytes, cartStore.reservedBytes());
+        assertEquals(0, cartStore.find(1).orElseThrow().lineCount());
+        assertEquals(cart(2, 1).toString(), cartStore.find(2).orElseThrow().toString());
+    }
+
+    @Test
+    void it_should_reuse_slot_of_removed_cart() {
+        // given
+        cartStore.restore(cart(1, 1));
+        long reservedBytes = cartStore.reservedBytes();
+
+        // when
+        cartStore.remove(1);
+        cartStore.restore(cart(2, 1));
+
+        // then
+        assertTrue(cartStore.find(1).isEmpty());
+        assertEquals(1, cartStore.size());
+        assertEquals(reservedBytes, cartStore.reservedBytes());
+    }
+
+    @Test
+    void it_should_visit_every_cart_once_across_slabs() {
+        // given
+        for (int cartId = 0; cartId < 1000; cartId++) {
+            cartStore.restore(cart(cartId, 1));
+        }
+        cartStore.remove(500);
+
+        // when
+        Set<Integer> visited = new HashSet<>();
+        cartStore.forEach(cart -> assertTrue(visited.add(cart.getId())));
+
+        // then
+        assertEquals(999, visited.size());
+        assertFalse(visited.contains(500));
+        assertEquals(999, cartStore.size());
+    }
+
+    @Test
+    void it_should_throw_illegal_argument_exception_when_slab_cannot_hold_a_cart() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapCartStore(4, DataSize.ofBytes(64)));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapCartStore(10, DataSize.ofKilobytes(4)));
+    }
+
+    private static CompactCart cart(int cartId, long version) {
+        Cart cart = new Cart(cartId);
+        DefaultItem first = new DefaultItem(10, 1001, 100, 100.0, 2);
+        first.getVasItems().add(new VasItem(20, 3242, 5003, 10.0, 1));
+        first.getVasItems().add(new VasItem(21, 3242, 5003, 12.5, 2));
+        first.getVasItems().add(new VasItem(22, 3242, 5003, 7.0, 1));
+        DefaultItem second = new DefaultItem(11, 3004, 200, 50.0, 1);
+        DefaultItem third = new DefaultItem(12, 1001, 100, 30.0, 1);
+        third.getVasItems().add(new VasItem(23, 3242, 5003, 5.0, 1));
+        third.getVasItems().add(new VasItem(24, 3242, 5003, 6.0, 1));
+        cart.addItem(first);
+        cart.addItem(second);
+        cart.addItem(third);
+        cart.addItem(new DigitalItem(13, 7889, 300, 20.0, 1));
+        cart.setItemCount(13);
+        cart.setUniqueItemCount(4);
+        cart.setTotalPriceInCents(45_000);
+        cart.setTotalDiscountInCents(250);
+        cart.setAppliedPromotionId(5676);
+        cart.setDigitalItemCart(false);
+        cart.setVersion(version);
+        return CompactCart.of(cart);
+    }
+
+    private static CompactCart emptyCart(int cartId, long version) {
+        Cart cart = new Cart(cartId);
+        cart.setVersion(version);
+        return CompactCart.of(cart);
+    }
+}
@@ -0,0 +1,71 @@
+package com.trendyol.checkout.store;
+
+import com.trendyol.checkout.models.entity.cart.CompactCart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCartStoreTest {
+
+    private ShardedCartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        cartStore = new ShardedCartStore(16);
+    }
+
+    @Test
+    void it_should_create_empty_cart_with_given_id_when_cart_does_not_exist() {
+        // given
+        // when
+        CompactCart cart = cartStore.getOrCreate(42);
+
+        // then
+        assertEquals(42, cart.getId());
+        assertEquals(0, cart.getItemCount());
+    }
+
+    @Test
+    void it_should_return_same_cart_when_cart_with_id_already_exists() {
+        // given
+        CompactCart cart = cartStore.getOrCreate(42);
+
+        // when
+        // then
+        assertSame(cart, cartStore.getOrCreate(42));
+    }
+
+    @Test
+    void it_should_keep_carts_with_different_ids_separate() {
+        // given
+        // when
+        for (int cartId = 0; cartId < 1000; cartId++) {
+            cartStore.getOrCreate(cartId);
+        }
+
+        // then
+        assertEquals(1000, cartStore.size());
+        assertNotSame(cartStore.getOrCreate(1), cartStore.getOrCreate(2));
+    }
+
+    @Test
+    void it_should_not_find_cart_after_it_is_removed() {
+        // given
+        cartStore.getOrCreate(42);
+
+        // when
+        cartStore.remove(42);
+
+        // then
+        assertTrue(cartStore.find(42).isEmpty());
+    }
+
+    @Test
+    void it_should_throw_illegal_argument_exception_when_shard_count_is_not_power_of_two() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalArgumentException.class, () -> new ShardedCartStore(10));
+    }
+}
@@ -0,0 +1,38 @@
+package com.trendyol.checkout.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingTest {
+
+    @AfterEach
+    void tearDown() {
+        ServerTiming.end();
+    }
+
+    @Test
+    void it_should_render_only_recorded_phases_in_milliseconds() {
+        // given
+        ServerTiming timing = ServerTiming.begin();
+
+        // when
+        timing.add(ServerTiming.Phase.VALIDATION, 12_345);
+        timing.add(ServerTiming.Phase.VALIDATION, 1_000);
+        timing.add(ServerTiming.Phase.SERIALIZATION, 2_504_000);
+
+        // then
+        assertEquals("validation;dur=0.013, serialization;dur=2.504", timing.toHeaderValue());
+    }
+
+    @Test
+    void it_should_ignore_recorded_phases_when_no_request_is_timed() {
+        // given
+        // when
+        ServerTiming.record(ServerTiming.Phase.PROMOTION, System.nanoTime());
+
+        // then
+        assertNull(ServerTiming.current());
+    }
+}
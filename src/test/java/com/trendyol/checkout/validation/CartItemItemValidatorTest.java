@@ -22,7 +22,7 @@ class CartItemItemValidatorTest {
     @BeforeEach
     void setUp() {
         cart = new Cart();
-        validator = new ItemValidator(cart);
+        validator = new ItemValidator();
     }
 
 
@@ -33,7 +33,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(cart, request));
     }
 
     @Test
@@ -48,7 +48,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Invalid request parameter(s). Fail reason: " + List.of("Item ID is required", "Category ID is required", "Seller ID is required", "Price must be greater than 0", "Quantity must be greater than 0");
@@ -68,7 +68,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "There can be maximum 30 items in the cart";
@@ -89,7 +89,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "There can be maximum 10 unique items in the cart";
@@ -109,7 +109,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateVasItemRequest(cart, request));
     }
 
     @Test
@@ -125,7 +125,22 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
+        });
+
+        String expectedErrorMessage = "Cart total can be maximum 500000";
+        assertEquals(expectedErrorMessage, exception.getMessage());
+    }
+
+    @Test
+    void it_should_throw_invalid_cart_state_exception_when_item_amount_does_not_fit_in_cents() {
+        // given
+        ItemRequest request = ItemRequest.builder().itemId(100).sellerId(1234).categoryId(1111).price(4e16).quantity(9).build();
+
+        // when
+        // then
+        InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cart total can be maximum 500000";
@@ -143,7 +158,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cart cannot hold both digital and default items. Current cart is holding default items.";
@@ -161,7 +176,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cart cannot hold both digital and default items. Current cart is holding digital items.";
@@ -179,7 +194,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(cart, request));
     }
 
     @Test
@@ -190,7 +205,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Each digital_item can be added maximum of 5 times to the cart.";
@@ -207,7 +222,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateVasItemRequest(cart, request));
     }
 
     @Test
@@ -217,7 +232,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(cart, request));
     }
 
     @Test
@@ -228,7 +243,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Each default_item can be added maximum of 10 times to the cart.";
@@ -248,7 +263,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateNonVasItemRequest(cart, request));
     }
 
     @Test
@@ -261,7 +276,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cannot add item with categoryId: " + categoryId + ". This categoryId is only for VasItems";
@@ -278,7 +293,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateNonVasItemRequest(request);
+            validator.validateNonVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cannot add item with sellerId: " + sellerId + ". This sellerId is only for VasItems";
@@ -301,7 +316,7 @@ class CartItemItemValidatorTest {
 
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateVasItemRequest(cart, request));
     }
 
     @Test
@@ -317,7 +332,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateVasItemRequest(request);
+            validator.validateVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cannot add VasItem with categoryId: " + categoryId + ". VasItems should have categoryId of 3242";
@@ -337,7 +352,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateVasItemRequest(request);
+            validator.validateVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "Cannot add item with sellerId: " + sellerId + ". VasItems should have sellerId of 5003";
@@ -356,7 +371,7 @@ class CartItemItemValidatorTest {
         cart.setItems(cartItems);
         // when
         // then
-        assertDoesNotThrow(() -> validator.validateVasItemRequest(request));
+        assertDoesNotThrow(() -> validator.validateVasItemRequest(cart, request));
     }
 
     @Test
@@ -367,7 +382,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateVasItemRequest(request);
+            validator.validateVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "There is no default item in your cart with the given id: " + request.getItemId();
@@ -384,7 +399,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateVasItemRequest(request);
+            validator.validateVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "You can only add vasItem to default items with category ids: " + List.of(1001, 3004);
@@ -402,7 +417,7 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartStateException exception = assertThrows(InvalidCartStateException.class, () -> {
-            validator.validateVasItemRequest(request);
+            validator.validateVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "You cannot add more than 3 VasItem to default items";
@@ -420,10 +435,26 @@ class CartItemItemValidatorTest {
         // when
         // then
         InvalidCartItemException exception = assertThrows(InvalidCartItemException.class, () -> {
-            validator.validateVasItemRequest(request);
+            validator.validateVasItemRequest(cart, request);
         });
 
         String expectedErrorMessage = "VasItem price cannot be more than default item price. VasItem price: " + request.getPrice() + ", Default item price: " + defaultItem.getPrice();
         assertEquals(expectedErrorMessage, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void it_should_reject_without_capturing_stack_trace_when_cart_is_full() {
+        // given
+        DefaultItem defaultItem = DefaultItem.builder().itemId(1).sellerId(1234).categoryId(1111).price(100).quantity(30).type(ItemType.DEFAULT_ITEM).build();
+        cart.setItems(List.of(defaultItem));
+        ItemRequest request = ItemRequest.builder().itemId(2).sellerId(1234).categoryId(1111).price(100.0).quantity(1).build();
+
+        // when
+        InvalidCartStateException first = assertThrows(InvalidCartStateException.class, () -> validator.validateNonVasItemRequest(cart, request));
+        InvalidCartStateException second = assertThrows(InvalidCartStateException.class, () -> validator.validateNonVasItemRequest(cart, request));
+
+        // then
+        assertEquals(0, first.getStackTrace().length);
+        assertSame(first.getMessage(), second.getMessage());
+    }
+}
@@ -0,0 +1,179 @@
+package com.trendyol.checkout.wal;
+
+import com.trendyol.checkout.models.entity.item.DefaultItem;
+import com.trendyol.checkout.models.entity.item.DigitalItem;
+import com.trendyol.checkout.models.entity.item.VasItem;
+import com.trendyol.checkout.service.CartOperation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCartMutationLogTest {
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void it_should_replay_every_operation_type_after_reopen() throws IOException {
+        // given
+        try (MappedCartMutationLog log = open(FsyncPolicy.ALWAYS)) {
+            log.append(1, 1, List.of(new CartOperation.AddItem(new DefaultItem(10, 1001, 100, 49.99, 2))));
+            log.append(1, 2, List.of(new CartOperation.AddVasItem(10, new VasItem(20, 3242, 5003, 9.5, 1))));
+            log.append(2, 1, List.of(new CartOperation.AddItem(new DigitalItem(30, 7889, 100, 15.0, 1))));
+            log.append(1, 3, List.of(new CartOperation.RemoveItem(10), new CartOperation.Reset()));
+        }
+
+        // when
+        List<CartLogRecord> records = replay();
+
+        // then
+        assertEquals(4, records.size());
+        DefaultItem defaultItem = (DefaultItem) ((CartOperation.AddItem) records.get(0).operations().get(0)).item();
+        assertEquals(4999, defaultItem.getPriceInCents());
+        assertEquals(2, defaultItem.getQuantity());
+        CartOperation.AddVasItem addVasItem = (CartOperation.AddVasItem) records.get(1).operations().get(0);
+        assertEquals(10, addVasItem.defaultItemId());
+        assertEquals(20, addVasItem.vasItem().getItemId());
+        assertInstanceOf(DigitalItem.class, ((CartOperation.AddItem) records.get(2).operations().get(0)).item());
+        assertEquals(2, records.get(2).cartId());
+        assertEquals(List.of(new CartOperation.RemoveItem(10), new CartOperation.Reset()), records.get(3).operations());
+        assertEquals(3, records.get(3).version());
+    }
+
+    @Test
+    void it_should_roll_over_to_new_segment_and_replay_records_in_append_order() throws IOException {
+        // given
+        try (MappedCartMutationLog log = open(FsyncPolicy.NEVER)) {
+            for (int version = 1; version <= 500; version++) {
+                log.append(1, version, List.of(new CartOperation.RemoveItem(version)));
+            }
+        }
+
+        // when
+        List<CartLogRecord> records = replay();
+
+        // then
+        assertTrue(segmentCount() > 1);
+        assertEquals(500, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i).version());
+        }
+    }
+
+    @Test
+    void it_should_stop_segment_replay_at_torn_record_and_continue_with_later_segments() throws IOException {
+        // given
+        try (MappedCartMutationLog log = open(FsyncPolicy.INTERVAL)) {
+            log.append(1, 1, List.of(new CartOperation.Reset()));
+            log.append(1, 2, List.of(new CartOperation.Reset()));
+        }
+        corruptLastByteOfSecondRecord(firstSegment());
+        try (MappedCartMutationLog log = open(FsyncPolicy.INTERVAL)) {
+            log.append(1, 3, List.of(new CartOperation.Reset()));
+        }
+
+        // when
+        List<CartLogRecord> records = replay();
+
+        // then
+        assertEquals(List.of(1L, 3L), records.stream().map(CartLogRecord::version).toList());
+    }
+
+    @Test
+    void it_should_throw_illegal_state_exception_when_appending_to_closed_log() throws IOException {
+        // given
+        MappedCartMutationLog log = open(FsyncPolicy.ALWAYS);
+        log.close();
+
+        // when
+        // then
+        assertThrows(IllegalStateException.class, () -> log.append(1, 1, List.of(new CartOperation.Reset())));
+    }
+
+    @Test
+    void it_should_keep_every_acknowledged_append_that_races_with_close() throws Exception {
+        // given
+        MappedCartMutationLog log = open(FsyncPolicy.ALWAYS);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(4);
+        List<Future<Integer>> acknowledgedCounts = new ArrayList<>();
+        for (int cartId = 1; cartId <= 4; cartId++) {
+            int appendingCartId = cartId;
+            acknowledgedCounts.add(executor.submit(() -> {
+                started.countDown();
+                int acknowledged = 0;
+                try {
+                    for (int version = 1; version <= 10_000; version++) {
+                        log.append(appendingCartId, version, List.of(new CartOperation.Reset()));
+                        acknowledged++;
+                    }
+                } catch (IllegalStateException e) {
+                    // Closed underneath, the appends acknowledged so far must survive
+                }
+                return acknowledged;
+            }));
+        }
+
+        // when
+        started.await();
+        log.close();
+        int acknowledgedCount = 0;
+        for (Future<Integer> count : acknowledgedCounts) {
+            acknowledgedCount += count.get();
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue(replay().size() >= acknowledgedCount);
+    }
+
+    private MappedCartMutationLog open(FsyncPolicy fsyncPolicy) {
+        return new MappedCartMutationLog(directory, SEGMENT_SIZE, fsyncPolicy, Duration.ofMillis(10));
+    }
+
+    private List<CartLogRecord> replay() throws IOException {
+        List<CartLogRecord> records = new ArrayList<>();
+        try (MappedCartMutationLog log = open(FsyncPolicy.NEVER)) {
+            log.replay(records::add);
+        }
+        return records;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private Path firstSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().findFirst().orElseThrow();
+        }
+    }
+
+    private static void corruptLastByteOfSecondRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int recordSize = 8 + header.getInt(0);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), 2L * recordSize - 1);
+        }
+    }
+}